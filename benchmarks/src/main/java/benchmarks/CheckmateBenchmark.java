@@ -0,0 +1,36 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * isInCheckmate() on a position that is checkmate, where every escape has to be ruled out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckmateBenchmark {
+    private ChessGame game;
+    private ChessBoard[] boards;
+    private int boardIndex;
+
+    @Setup
+    public void setUp() {
+        game = Fen.read(Positions.BACK_RANK_MATE);
+        boards = new ChessBoard[]{game.getBoard(), game.getBoard().copy()};
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        boardIndex ^= 1;
+        game.setBoard(boards[boardIndex]);
+        return game.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+}
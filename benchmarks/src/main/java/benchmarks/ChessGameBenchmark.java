@@ -0,0 +1,88 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game status on typical positions. Each invocation switches the game between two copies of the
+ * board, so nothing cached for the previous position is reused, as with a new move from the server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+    @Param({Positions.START, Positions.QUEENS_GAMBIT, Positions.ITALIAN, Positions.KIWIPETE})
+    public String fen;
+
+    private ChessGame game;
+    private ChessBoard[] boards;
+    private int boardIndex;
+    private ChessMove firstMove;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setUp() {
+        game = Fen.read(fen);
+        boards = new ChessBoard[]{game.getBoard(), game.getBoard().copy()};
+        for (ChessPosition position : game.getBoard().getTeamPieces(game.getTeamTurn())) {
+            if (firstMove == null && !game.validMoves(position).isEmpty()) {
+                firstMove = game.validMoves(position).iterator().next();
+            }
+        }
+    }
+
+    private ChessGame uncachedGame() {
+        boardIndex ^= 1;
+        game.setBoard(boards[boardIndex]);
+        return game;
+    }
+
+    @Benchmark
+    public void validMovesForTeam(Blackhole blackhole) {
+        ChessGame position = uncachedGame();
+        for (ChessPosition start : position.getBoard().getTeamPieces(position.getTeamTurn())) {
+            blackhole.consume(position.validMoves(start));
+        }
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        moves.clear();
+        uncachedGame().generateLegalMoves(moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public void applyAndUndoEachMove() {
+        moves.clear();
+        ChessGame position = uncachedGame();
+        position.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            position.applyMove(moves.get(i));
+            position.undoMove();
+        }
+    }
+
+    @Benchmark
+    public GameStatus makeMoveAndStatus() throws InvalidMoveException {
+        ChessGame child = game.copy();
+        child.makeMove(firstMove);
+        return child.getStatus();
+    }
+
+    @Benchmark
+    public ChessGame copyOnly() {
+        return game.copy();
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return uncachedGame().isInCheckmate(game.getTeamTurn());
+    }
+}
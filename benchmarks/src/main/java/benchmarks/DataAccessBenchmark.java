@@ -0,0 +1,61 @@
+package benchmarks;
+
+import dataaccess.exception.DataAccessException;
+import dataaccess.memory.MemoryAuthDAO;
+import dataaccess.memory.MemoryGameDAO;
+import dataaccess.memory.MemoryUserDAO;
+import model.AuthToken;
+import model.Game;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the in-memory DAOs, which the server does several times for every WebSocket command.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataAccessBenchmark {
+    @Param({"10", "1000"})
+    public int size;
+
+    private MemoryAuthDAO authDAO;
+    private MemoryGameDAO gameDAO;
+    private String lastToken;
+    private int lastGameID;
+
+    @Setup
+    public void setUp() throws DataAccessException {
+        MemoryUserDAO userDAO = new MemoryUserDAO();
+        authDAO = new MemoryAuthDAO(userDAO);
+        gameDAO = new MemoryGameDAO(userDAO);
+        for (int i = 0; i < size; i++) {
+            String username = "user" + i;
+            userDAO.insertNewUser(new User(username, "hash", username + "@example.com"));
+            lastToken = "token" + i;
+            authDAO.addAuthToken(new AuthToken(lastToken, username));
+            lastGameID = gameDAO.generateNewGameID();
+            gameDAO.insertNewGame(new Game(lastGameID, "game" + i));
+        }
+    }
+
+    @Benchmark
+    public boolean isValidAuthToken() throws DataAccessException {
+        return authDAO.isValidAuthToken(lastToken);
+    }
+
+    @Benchmark
+    public String getUsername() throws DataAccessException {
+        return authDAO.getUsername(lastToken);
+    }
+
+    @Benchmark
+    public Game findGame() throws DataAccessException {
+        return gameDAO.findGame(lastGameID);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.MoveList;
+import chess.engine.Evaluation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluations per second, alone and together with the move that changes the board's incrementally kept scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    @Param({Positions.START, Positions.ITALIAN, Positions.KIWIPETE})
+    public String fen;
+
+    private ChessGame game;
+    private final MoveList moves = new MoveList();
+    private int moveIndex;
+
+    @Setup
+    public void setUp() {
+        game = Fen.read(fen);
+        game.generateLegalMoves(moves);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluation.evaluate(game);
+    }
+
+    @Benchmark
+    public int applyEvaluateUndo() {
+        moveIndex = moveIndex + 1 == moves.size() ? 0 : moveIndex + 1;
+        game.applyMove(moves.get(moveIndex));
+        int score = Evaluation.evaluate(game);
+        game.undoMove();
+        return score;
+    }
+}
@@ -0,0 +1,15 @@
+package benchmarks;
+
+/**
+ * FEN strings for the positions the benchmarks run on.
+ */
+final class Positions {
+    static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    static final String QUEENS_GAMBIT = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 8";
+    static final String ITALIAN = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/5PPP/3r2K1 w - - 0 1";
+
+    private Positions() {
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to search to a fixed depth with a Lazy SMP search on a given number of threads, for measuring how the search
+ * scales with cores. Each invocation starts from an empty transposition table, as a search of a new position would.
+ * <p>
+ * Run with e.g. {@code -p threads=1,8,16,32} on a machine with at least as many cores as the largest count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({Positions.QUEENS_GAMBIT, Positions.KIWIPETE})
+    public String fen;
+
+    @Param({"1", "8", "16", "32"})
+    public int threads;
+
+    @Param({"7"})
+    public int depth;
+
+    private ChessGame game;
+    private ForkJoinPool helperPool;
+    private TranspositionTable table;
+    private Searcher searcher;
+    private SearchLimits limits;
+
+    @Setup
+    public void setUp() {
+        game = Fen.read(fen);
+        helperPool = new ForkJoinPool(Math.max(1, threads - 1));
+        table = new TranspositionTable(256);
+        searcher = new Searcher(table, helperPool);
+        limits = SearchLimits.depth(depth).withThreads(threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        helperPool.shutdown();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth() {
+        return searcher.search(game, limits);
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import http.ChessSerializer;
+import model.Game;
+import org.openjdk.jmh.annotations.*;
+import websocket.messages.LoadGameServerMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting games to and from JSON, as the server does for every LOAD_GAME message and database write, compared with
+ * FEN.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({Positions.START, Positions.ITALIAN})
+    public String fen;
+
+    private ChessGame chessGame;
+    private Game game;
+    private String chessGameJson;
+    private String chessGameFen;
+
+    @Setup
+    public void setUp() {
+        chessGame = Fen.read(fen);
+        game = new Game(1, "benchmark", chessGame);
+        game.setWhiteUsername("white");
+        game.setBlackUsername("black");
+        chessGameJson = ChessSerializer.gson().toJson(chessGame);
+        chessGameFen = chessGame.toFen();
+    }
+
+    @Benchmark
+    public String chessGameToJson() {
+        return ChessSerializer.gson().toJson(chessGame);
+    }
+
+    @Benchmark
+    public ChessGame chessGameFromJson() {
+        return ChessSerializer.gson().fromJson(chessGameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame chessGameRoundTrip() {
+        String json = ChessSerializer.gson().toJson(chessGame);
+        return ChessSerializer.gson().fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public String chessGameToFen() {
+        return chessGame.toFen();
+    }
+
+    @Benchmark
+    public ChessGame chessGameFromFen() {
+        return ChessGame.fromFen(chessGameFen);
+    }
+
+    @Benchmark
+    public String loadGameMessageToJson() {
+        return ChessSerializer.gson().toJson(new LoadGameServerMessage(game));
+    }
+}
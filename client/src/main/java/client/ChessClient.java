@@ -2,8 +2,10 @@ package client;
 
 import chess.ChessMove;
 import chess.ChessPosition;
+import chess.engine.Searcher;
 import http.AuthResponse;
 import http.GameListItem;
+import http.MoveAnalysis;
 import httpconnection.ChessServerFacade;
 import httpconnection.FailedConnectionException;
 import httpconnection.FailedResponseException;
@@ -27,6 +29,10 @@ import java.util.HashSet;
 import static ui.EscapeSequences.*;
 
 public class ChessClient {
+    // The server analyzes a game in the background, so the client asks again until it is done
+    private static final int ANALYSIS_TRIES = 60;
+    private static final long ANALYSIS_POLL_MILLIS = 1000;
+
     private final ConsoleUI ui;
     private final ChessServerFacade serverFacade;
     private final WebSocketClient ws;
@@ -150,6 +156,62 @@ public class ChessClient {
         ws.send(gameCommand);
     }
 
+    public void analyzeGame() throws FailedConnectionException, FailedResponseException {
+        ArrayList<GameListItem> games = listGames();
+        if (games.isEmpty()) {
+            return;
+        }
+        Integer gameNumber = ui.promptMaybeInteger("Enter the number of the finished game to analyze: ");
+        if (gameNumber == null) {
+            return;
+        } else if (gameNumber < 0 || gameNumber >= games.size()) {
+            ui.println(String.format("Game number %d is out of range.", gameNumber));
+            return;
+        }
+
+        int gameID = games.get(gameNumber).gameID();
+        ArrayList<MoveAnalysis> moves = serverFacade.analyzeGame(gameID, sessionData.getAuthTokenString());
+        for (int tries = 1; moves == null; tries++) {
+            if (tries > ANALYSIS_TRIES) {
+                ui.println("The analysis is taking a while. Try again later.");
+                return;
+            }
+            ui.println("Analyzing the game...");
+            try {
+                Thread.sleep(ANALYSIS_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            moves = serverFacade.analyzeGame(gameID, sessionData.getAuthTokenString());
+        }
+        printAnalysis(moves);
+    }
+
+    private void printAnalysis(ArrayList<MoveAnalysis> moves) {
+        if (moves.isEmpty()) {
+            ui.println("No moves were played in that game.");
+        }
+        for (int ply = 0; ply < moves.size(); ply++) {
+            MoveAnalysis analysis = moves.get(ply);
+            String moveNumber = (ply / 2 + 1) + (ply % 2 == 0 ? "." : "...");
+            StringBuilder line = new StringBuilder(String.format("\t%s %s (%s)", moveNumber, analysis.move(),
+                    formatEvaluation(analysis.evaluation())));
+            if (analysis.blunder()) {
+                line.append(String.format(" %sblunder%s, best was %s", SET_TEXT_BOLD, RESET_TEXT_BOLD_FAINT,
+                        analysis.bestMove()));
+            }
+            ui.println(line.toString());
+        }
+    }
+
+    private static String formatEvaluation(int evaluation) {
+        if (Searcher.isMateScore(evaluation)) {
+            return evaluation > 0 ? "White mates" : "Black mates";
+        }
+        return String.format("%+.2f", evaluation / 100.0);
+    }
+
     public ArrayList<GameListItem> listGames() throws FailedConnectionException, FailedResponseException {
         // TODO make sure this never returns null
         ArrayList<GameListItem> games = serverFacade.listGames(sessionData.getAuthTokenString());
@@ -18,7 +18,7 @@ public class ChessInputParser {
         if (row < 1 || row > 8 || col < 1 || col > 8) {
             throw new InvalidUserInputException(positionString, "Invalid positionString: '" + positionString + "'");
         }
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     public static ChessPiece.PieceType parseToPromotionPiece(String rawPromotionString)
@@ -31,8 +31,9 @@ public class GameJoiner {
         if (!games.isEmpty()) {
             int gameID = selectGame("Enter the number for the game you would like to play.");
             ChessGame.TeamColor color = selectColor();
+            boolean againstComputer = isOtherSeatEmpty(gameID, color) && selectComputerOpponent();
 
-            serverFacade.joinGame(color, gameID, sessionData.getAuthTokenString());
+            serverFacade.joinGame(color, gameID, againstComputer, sessionData.getAuthTokenString());
 
             sessionData.setGameData(gameID, color);
             sessionData.setAuthRole(AuthorizationRole.PLAYER);
@@ -75,6 +76,27 @@ public class GameJoiner {
         }
     }
 
+    private boolean isOtherSeatEmpty(int gameID, ChessGame.TeamColor color) {
+        for (GameListItem game : games) {
+            if (game.gameID() == gameID) {
+                String opponent = color == ChessGame.TeamColor.WHITE ? game.blackUsername() : game.whiteUsername();
+                return opponent == null || opponent.isEmpty();
+            }
+        }
+        return false;
+    }
+
+    private boolean selectComputerOpponent() throws InvalidUserInputException {
+        String answer = ui.promptInput("Would you like to play against the computer? Enter 'yes' or 'no': ");
+        if ("yes".equals(answer) || "y".equals(answer)) {
+            return true;
+        } else if ("no".equals(answer) || "n".equals(answer)) {
+            return false;
+        } else {
+            throw new InvalidUserInputException(answer, String.format("Invalid yes or no answer: '%s'", answer));
+        }
+    }
+
     private ChessGame.TeamColor selectColor() throws InvalidUserInputException {
         String colorString = ui.promptInput("What color would you like to play? Enter 'white' or 'black': ");
         if ("white".equals(colorString) || "w".equals(colorString)) {
@@ -55,6 +55,7 @@ public class REPL implements NotificationHandler {
             case LIST_GAMES -> client.listGames();
             case JOIN_GAME -> client.joinGame();
             case OBSERVE_GAME -> client.observeGame();
+            case ANALYZE_GAME -> client.analyzeGame();
             case DRAW -> client.drawBoard();
             case LEAVE -> client.leaveGame();
             case MAKE_MOVE -> client.makeMove();
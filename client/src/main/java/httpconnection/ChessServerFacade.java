@@ -51,10 +51,19 @@ public class ChessServerFacade {
         return response.games();
     }
 
-    public void joinGame(ChessGame.TeamColor playerColor, int gameID, String authTokenString)
+    public void joinGame(ChessGame.TeamColor playerColor, int gameID, boolean againstComputer, String authTokenString)
             throws FailedConnectionException, FailedResponseException {
-        JoinGameRequest request = new JoinGameRequest(playerColor.name(), gameID);
+        JoinGameRequest request = new JoinGameRequest(playerColor.name(), gameID, againstComputer);
         RequestData rd = new RequestData("PUT", "/game", request).includeToken(authTokenString);
         serverFacade.makeRequest(rd);
     }
+
+    public ArrayList<MoveAnalysis> analyzeGame(int gameID, String authTokenString)
+            throws FailedConnectionException, FailedResponseException {
+        // Null until the server has finished analyzing the game; ask again until it has.
+        AnalyzeGameRequest request = new AnalyzeGameRequest(gameID);
+        RequestData rd = new RequestData("POST", "/game/analysis", request).includeToken(authTokenString);
+        AnalyzeGameResponse response = serverFacade.makeRequest(rd, AnalyzeGameResponse.class);
+        return response.moves();
+    }
 }
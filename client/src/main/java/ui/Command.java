@@ -18,6 +18,7 @@ public enum Command {
     LIST_GAMES("list", "List all games", AuthorizationRole.USER),
     JOIN_GAME("join", "Join an existing game", AuthorizationRole.USER),
     OBSERVE_GAME("observe", "Observe an existing game as a spectator", AuthorizationRole.USER),
+    ANALYZE_GAME("analyze", "Review the moves of a finished game", AuthorizationRole.USER),
 
     // OBSERVER or higher
     DRAW("draw", "Redraw the game board", AuthorizationRole.OBSERVER),
@@ -37,7 +38,7 @@ public enum Command {
     private final String description;
     private final AuthorizationRole[] acceptedAuthRoles;
     public static final Command[] UI_COMMANDS = {HELP, QUIT, REGISTER, LOGIN, LOGOUT, CREATE_GAME, LIST_GAMES,
-            JOIN_GAME, OBSERVE_GAME, DRAW, LEAVE, MAKE_MOVE, RESIGN, HIGHLIGHT_MOVES};
+            JOIN_GAME, OBSERVE_GAME, ANALYZE_GAME, DRAW, LEAVE, MAKE_MOVE, RESIGN, HIGHLIGHT_MOVES};
 
 
     Command(String commandID, String description, AuthorizationRole acceptedAuthRole) {
@@ -48,7 +48,7 @@ public class BoardToUIElementParser implements BoardUIElementReader {
             return generateBorderFGElement(row, col);
         }
 
-        ChessPosition chessPos = new ChessPosition(row, col);
+        ChessPosition chessPos = ChessPosition.of(row, col);
         if (board.hasPieceAt(chessPos)) {
             return new ForegroundElement(board.getPiece(chessPos));
         }
@@ -17,7 +17,7 @@ public class BoardUIElementHighlighter implements BoardUIElementReader {
 
     @Override
     public BoardElement get(int row, int col) {
-        if (highlightedPositions.contains(new ChessPosition(row, col))) {
+        if (ChessPosition.isOnBoard(row, col) && highlightedPositions.contains(ChessPosition.of(row, col))) {
             BoardElement elem = reader.get(row, col);
             return new BoardElement(BackgroundElement.HIGHLIGHTED_SQUARE, elem.fgElem());
         } else {
@@ -56,7 +56,7 @@ public interface GameDAO {
      * Assigns a role to a user if not already assigned.
      *
      * @param gameID   the ID of the game to add the user to
-     * @param username the username of the user
+     * @param username the username of the user, or {@link Game#COMPUTER_USERNAME} for the computer opponent
      * @param role     the role to assign to the user
      * @throws DataAccessException if the game or the user was not found
      */
@@ -80,7 +80,7 @@ public class MemoryGameDAO implements GameDAO {
      * Assigns a role to a user if not already assigned.
      *
      * @param gameID   the ID of the game to add the user to
-     * @param username the username of the user
+     * @param username the username of the user, or {@link Game#COMPUTER_USERNAME} for the computer opponent
      * @param role     the role to assign to the user
      * @throws DataAccessException if the game or the user was not found
      */
@@ -88,7 +88,7 @@ public class MemoryGameDAO implements GameDAO {
         // Failures: can't access database; game not found; user not found
         assertIDExists(gameID);
 
-        if (!userDAO.hasUser(username)) {
+        if (!Game.COMPUTER_USERNAME.equals(username) && !userDAO.hasUser(username)) {
             throw new UnauthorizedAccessException("Unrecognized username");
         }
 
@@ -133,7 +133,7 @@ public class DatabaseGameDAO implements GameDAO {
      * Assigns a role to a user if not already assigned.
      *
      * @param gameID   the ID of the game to add the user to
-     * @param username the username of the user
+     * @param username the username of the user, or {@link Game#COMPUTER_USERNAME} for the computer opponent
      * @param role     the role to assign to the user
      * @throws DataAccessException if the game or the user was not found
      */
@@ -141,7 +141,7 @@ public class DatabaseGameDAO implements GameDAO {
     public void assignPlayerRole(int gameID, String username, PlayerRole role) throws DataAccessException {
         // Failures: game not found, user not found
         assertIDExists(gameID);
-        if (!userDAO.hasUser(username)) {
+        if (!Game.COMPUTER_USERNAME.equals(username) && !userDAO.hasUser(username)) {
             throw new UnauthorizedAccessException("Unrecognized username");
         }
 
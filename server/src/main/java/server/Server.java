@@ -16,6 +16,7 @@ import spark.Spark;
 
 public class Server {
 
+    private final AnalyzeGameHandler analyzeGameHandler;
     private final ClearApplicationHandler clearApplicationHandler;
     private final CreateGameHandler createGameHandler;
     private final JoinGameHandler joinGameHandler;
@@ -37,6 +38,7 @@ public class Server {
         authDAO = new DatabaseAuthDAO(userDAO);
         gameDAO = new DatabaseGameDAO(userDAO);
 
+        analyzeGameHandler = new AnalyzeGameHandler(authDAO, gameDAO);
         createGameHandler = new CreateGameHandler(authDAO, gameDAO);
         joinGameHandler = new JoinGameHandler(authDAO, gameDAO);
         listGamesHandler = new ListGamesHandler(authDAO, gameDAO);
@@ -136,6 +138,7 @@ public class Server {
         Spark.get("/game", listGamesHandler::handleRequest);
         Spark.post("/game", createGameHandler::handleRequest);
         Spark.put("/game", joinGameHandler::handleRequest);
+        Spark.post("/game/analysis", analyzeGameHandler::handleRequest);
     }
 
     private void createAfterRoutes() {
@@ -0,0 +1,216 @@
+package server.analysis;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.TranspositionTable;
+import http.MoveAnalysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes finished games for post-game reviews: each position of a game is searched, and each move is scored and
+ * flagged as a blunder if it lost much more than the engine's choice would have.
+ * <p>
+ * Analyses run on a fixed set of worker threads of their own, so that they never hold up the threads that serve other
+ * requests, and the number of games waiting for a worker is bounded. A request for a game's analysis therefore does
+ * not wait for it: it queues the game and returns, and the caller asks again until the analysis is ready.
+ * <p>
+ * Search results are cached by position key, so a position reached in many games, such as those of popular
+ * openings, is searched once, and asking again for a game already analyzed costs no searching at all. The cache
+ * keeps the most recently used positions up to a fixed count.
+ * <p>
+ * A finished analysis is kept until it is asked for, but only until as many games as can be waiting or running at
+ * once have finished after it, so that analyses never asked for again are dropped.
+ */
+public class GameAnalyzer implements AutoCloseable {
+    /**
+     * How much searching each position gets unless told otherwise.
+     */
+    public static final SearchLimits DEFAULT_LIMITS = SearchLimits.nodes(250_000);
+
+    // A move that loses this much, from the mover's point of view, is a blunder
+    private static final int BLUNDER_CENTIPAWNS = 200;
+    // Mate scores count as this much when judging blunders, so that a slower mate is not a blunder
+    private static final int MATE_CENTIPAWNS = 2_000;
+
+    private final SearchLimits limits;
+    private final int cacheEntries;
+    private final TranspositionTable table;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Searcher> searchers;
+
+    // Guarded by itself; iterates from least to most recently used
+    private final LinkedHashMap<Long, SearchResult> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // Guarded by this: the analyses waiting or running, and those finished but not yet asked for, oldest first
+    private final Map<Integer, Future<List<MoveAnalysis>>> jobs = new HashMap<>();
+    private final LinkedHashMap<Integer, Future<List<MoveAnalysis>>> finished = new LinkedHashMap<>();
+    private final int maxFinished;
+
+    /**
+     * @param threads         the number of games to analyze at once.
+     * @param maxWaitingGames the number of games that may wait for a worker before further games are turned away.
+     * @param tableMegabytes  the size of the workers' shared transposition table.
+     * @param cacheEntries    the number of positions whose results are kept.
+     * @param limits          how much searching each position gets.
+     */
+    public GameAnalyzer(int threads, int maxWaitingGames, int tableMegabytes, int cacheEntries, SearchLimits limits) {
+        if (threads < 1 || maxWaitingGames < 1) {
+            throw new IllegalArgumentException("A GameAnalyzer needs at least one thread and one waiting slot");
+        }
+        this.limits = limits;
+        this.cacheEntries = cacheEntries;
+        this.maxFinished = threads + maxWaitingGames;
+        this.table = new TranspositionTable(tableMegabytes);
+        this.searchers = ThreadLocal.withInitial(() -> new Searcher(table));
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxWaitingGames), runnable -> {
+                    Thread worker = new Thread(runnable, "analysis-worker-" + workerCount.getAndIncrement());
+                    worker.setDaemon(true);
+                    return worker;
+                });
+    }
+
+    /**
+     * Returns a game's analysis if it is ready, and otherwise queues the game, unless it is already queued or running.
+     * A game whose positions are all cached is ready straight away.
+     *
+     * @param gameID the game's ID, by which a queued game is recognised when asked for again.
+     * @param game   the game to analyze. It is not modified.
+     * @return the analysis of each move in order, or null if the game has been queued and should be asked for again
+     * later.
+     * @throws RejectedExecutionException if too many games are already waiting, or the analyzer has been closed.
+     * @throws IllegalStateException      if the game's analysis failed. Asking again starts it again.
+     */
+    public synchronized List<MoveAnalysis> analyze(int gameID, ChessGame game) {
+        Future<List<MoveAnalysis>> done = finished.remove(gameID);
+        if (done != null) {
+            try {
+                return done.get();
+            } catch (ExecutionException | InterruptedException e) {
+                throw new IllegalStateException("The analysis of game " + gameID + " failed", e);
+            }
+        }
+        if (jobs.containsKey(gameID)) {
+            return null;
+        }
+
+        String startFen = game.getStartFen();
+        List<ChessMove> moves = game.getMoveHistory();
+        SearchResult[] results = new SearchResult[moves.size() + 1];
+        ChessGame position = ChessGame.fromFen(startFen);
+        boolean allCached = true;
+        for (int i = 0; i <= moves.size() && allCached; i++) {
+            results[i] = cached(position.getZobristKey());
+            allCached = results[i] != null;
+            if (i < moves.size()) {
+                position.applyMove(position.findLegalMove(moves.get(i)));
+            }
+        }
+        if (allCached) {
+            return analysis(startFen, moves, results);
+        }
+        FutureTask<List<MoveAnalysis>> job = new FutureTask<>(() -> search(startFen, moves)) {
+            @Override
+            protected void done() {
+                finish(gameID, this);
+            }
+        };
+        executor.execute(job);
+        jobs.put(gameID, job);
+        return null;
+    }
+
+    /**
+     * Moves a finished analysis to those waiting to be asked for, dropping the oldest if there are too many. Runs on
+     * a worker thread, and as this holds the lock, only once {@link #analyze} has put the job in {@code jobs}.
+     */
+    private synchronized void finish(int gameID, Future<List<MoveAnalysis>> job) {
+        if (!jobs.remove(gameID, job)) {
+            return;
+        }
+        finished.put(gameID, job);
+        if (finished.size() > maxFinished) {
+            finished.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Stops the workers, abandoning any analyses waiting or running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Searches each position of a game that is not already cached, and analyzes its moves. Runs on a worker thread.
+     */
+    private List<MoveAnalysis> search(String startFen, List<ChessMove> moves) {
+        Searcher searcher = searchers.get();
+        SearchResult[] results = new SearchResult[moves.size() + 1];
+        ChessGame position = ChessGame.fromFen(startFen);
+        for (int i = 0; i <= moves.size(); i++) {
+            long key = position.getZobristKey();
+            results[i] = cached(key);
+            if (results[i] == null) {
+                results[i] = searcher.search(position, limits);
+                synchronized (cache) {
+                    cache.put(key, results[i]);
+                    if (cache.size() > cacheEntries) {
+                        cache.pollFirstEntry();
+                    }
+                }
+            }
+            if (i < moves.size()) {
+                position.applyMove(position.findLegalMove(moves.get(i)));
+            }
+        }
+        return analysis(startFen, moves, results);
+    }
+
+    private SearchResult cached(long key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * @param results the search result of each position, starting with the start position's.
+     */
+    private static List<MoveAnalysis> analysis(String startFen, List<ChessMove> moves, SearchResult[] results) {
+        boolean whiteToMove = ChessGame.fromFen(startFen).getTeamTurn() == ChessGame.TeamColor.WHITE;
+        List<MoveAnalysis> analysis = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            // Each score is for the team to move in its position, so the mover's score after the move is negated
+            int before = results[i].score();
+            int after = -results[i + 1].score();
+            int loss = centipawns(before) - centipawns(after);
+            int evaluation = whiteToMove ? after : -after;
+            analysis.add(new MoveAnalysis(moves.get(i), evaluation, results[i].bestMove(),
+                    loss >= BLUNDER_CENTIPAWNS));
+            whiteToMove = !whiteToMove;
+        }
+        return analysis;
+    }
+
+    private static int centipawns(int score) {
+        return Math.clamp(score, -MATE_CENTIPAWNS, MATE_CENTIPAWNS);
+    }
+}
@@ -0,0 +1,44 @@
+package server.handlers;
+
+import dataaccess.AuthDAO;
+import dataaccess.exception.DataAccessException;
+import dataaccess.GameDAO;
+import http.AnalyzeGameRequest;
+import http.AnalyzeGameResponse;
+import server.analysis.GameAnalyzer;
+import server.services.AnalyzeGameService;
+import server.services.ServiceUnavailableException;
+import spark.Request;
+import spark.Response;
+
+public class AnalyzeGameHandler extends HttpHandler {
+    private static final int ANALYSIS_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    private static final int MAX_WAITING_ANALYSES = 32;
+    private static final int ANALYSIS_TABLE_MEGABYTES = 32;
+    private static final int CACHED_POSITIONS = 100_000;
+
+    private final AnalyzeGameService service;
+
+    public AnalyzeGameHandler(AuthDAO authDAO, GameDAO gameDAO) {
+        GameAnalyzer analyzer = new GameAnalyzer(ANALYSIS_THREADS, MAX_WAITING_ANALYSES, ANALYSIS_TABLE_MEGABYTES,
+                CACHED_POSITIONS, GameAnalyzer.DEFAULT_LIMITS);
+        service = new AnalyzeGameService(authDAO, gameDAO, analyzer);
+    }
+
+    @Override
+    protected Object route(Request req, Response res) throws DataAccessException, ServiceUnavailableException {
+        AnalyzeGameRequest analyzeGameRequest = gson.fromJson(req.body(), AnalyzeGameRequest.class);
+        String authToken = req.headers("authorization");
+        AnalyzeGameResponse response = service.analyzeGame(analyzeGameRequest, authToken);
+        return parseToBody(res, response, response.moves() == null ? 202 : 200);
+    }
+}
+
+/*
+
+| **Request class**    | AnalyzeGameRequest
+| **Response class**   | AnalyzeGameResponse
+| **Description**      | Analyzes a finished game. Answers 202 until the analysis is ready; repeat the request.
+| **Headers**          | `authorization: <authToken>`
+| **Body**             | `{ "gameID": 1234 }`
+ */
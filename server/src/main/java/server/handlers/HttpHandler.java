@@ -3,6 +3,7 @@ package server.handlers;
 import com.google.gson.Gson;
 import dataaccess.exception.*;
 import http.MessageResponse;
+import server.services.ServiceUnavailableException;
 import spark.Request;
 import spark.Response;
 
@@ -34,13 +35,16 @@ public abstract class HttpHandler {
             return handleError(res, 401, e.getMessage());
         } catch (ValueAlreadyTakenException e) {
             return handleError(res, 403, e.getMessage());
+        } catch (ServiceUnavailableException e) {
+            return handleError(res, 503, e.getMessage());
         } catch (Exception e) {
             System.out.println("[ERROR] Threw an unknown error: " + e.getMessage());
             return handleError(res, 500, e.getMessage());
         }
     }
 
-    protected abstract Object route(Request request, Response response) throws DataAccessException;
+    protected abstract Object route(Request request, Response response)
+            throws DataAccessException, ServiceUnavailableException;
 
     protected String handleError(Response res, int status, String errMsg) {
         MessageResponse response = new MessageResponse(String.format("Error: %s", errMsg));
@@ -0,0 +1,78 @@
+package server.services;
+
+import chess.WinState;
+import dataaccess.AuthDAO;
+import dataaccess.GameDAO;
+import dataaccess.exception.BadRequestException;
+import dataaccess.exception.DataAccessException;
+import dataaccess.exception.UnauthorizedAccessException;
+import http.AnalyzeGameRequest;
+import http.AnalyzeGameResponse;
+import http.MoveAnalysis;
+import model.Game;
+import server.analysis.GameAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Provides the Analyze Game service, which reviews a finished game move by move. The analysis runs on the
+ * {@link GameAnalyzer}'s own threads, so the first request for a game queues it and returns straight away, and the
+ * caller repeats the request until the analysis is ready.
+ */
+public class AnalyzeGameService {
+    private final AuthDAO authDAO;
+    private final GameDAO gameDAO;
+    private final GameAnalyzer analyzer;
+
+    public AnalyzeGameService(AuthDAO authDAO, GameDAO gameDAO, GameAnalyzer analyzer) {
+        this.authDAO = authDAO;
+        this.gameDAO = gameDAO;
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Get the analysis of a finished game, or queue the game to be analyzed.
+     *
+     * @param request   an AnalyzeGameRequest representing the HTTP request.
+     * @param authToken the AuthToken of the user asking.
+     * @return an AnalyzeGameResponse with each move's analysis, or with no moves if the analysis is still running.
+     * @throws ServiceUnavailableException if too many games are already waiting for analysis.
+     */
+    public AnalyzeGameResponse analyzeGame(AnalyzeGameRequest request, String authToken)
+            throws DataAccessException, ServiceUnavailableException {
+        if (!authDAO.isValidAuthToken(authToken)) {
+            throw new UnauthorizedAccessException("Could not analyze game: provided token was invalid");
+        }
+
+        Game game = gameDAO.findGame(request.gameID());
+        if (game.chessGame().getWinState() == WinState.IN_PROGRESS) {
+            throw new BadRequestException("Could not analyze game: game is still in progress");
+        }
+
+        List<MoveAnalysis> moves;
+        try {
+            moves = analyzer.analyze(request.gameID(), game.chessGame());
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Could not analyze game: too many games are waiting for analysis");
+        }
+        if (moves == null) {
+            return new AnalyzeGameResponse(null, "Analysis in progress");
+        }
+        return new AnalyzeGameResponse(new ArrayList<>(moves), "Okay!");
+    }
+
+/*
+
+| **Headers**          | `authorization: <authToken>`
+| **Body**             | `{ "gameID": 1234 }`
+| **Success response** | [200] `{ "moves": [{ "move": {...}, "evaluation": 35, "bestMove": {...}, "blunder": false }], "message": "Okay!" }`
+| **Pending response** | [202] `{ "message": "Analysis in progress" }`
+| **Failure response** | [400] `{ "message": "Error: bad request" }`
+| **Failure response** | [401] `{ "message": "Error: unauthorized" }`
+| **Failure response** | [503] `{ "message": "Error: too many games are waiting for analysis" }`
+| **Failure response** | [500] `{ "message": "Error: description" }`
+     */
+
+}
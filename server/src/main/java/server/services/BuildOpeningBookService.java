@@ -0,0 +1,53 @@
+package server.services;
+
+import chess.InvalidMoveException;
+import chess.WinState;
+import chess.book.OpeningBookBuilder;
+import chess.pgn.PgnGame;
+import dataaccess.GameDAO;
+import dataaccess.exception.DataAccessException;
+import http.GameListItem;
+import model.Game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Provides the Build Opening Book service, which writes an opening book of the finished games played on the server,
+ * for computer opponents to play from. Games are fetched one at a time, so only one is held in memory along with the
+ * book.
+ */
+public class BuildOpeningBookService {
+    private final GameDAO gameDAO;
+
+    public BuildOpeningBookService(GameDAO gameDAO) {
+        this.gameDAO = gameDAO;
+    }
+
+    /**
+     * Add the opening moves of each finished game to a book and write it.
+     *
+     * @param file where to write the book, replacing any file there.
+     * @return the number of games added.
+     */
+    public int buildFromFinishedGames(Path file) throws DataAccessException, IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        int count = 0;
+        for (GameListItem item : gameDAO.allGames()) {
+            Game game = gameDAO.findGame(item.gameID());
+            if (game.chessGame().getWinState() == WinState.IN_PROGRESS) {
+                continue;
+            }
+            try {
+                if (builder.add(PgnGame.of(game.chessGame(), Map.of()))) {
+                    count++;
+                }
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("Game " + item.gameID() + " has an illegal move in its history", e);
+            }
+        }
+        builder.write(file);
+        return count;
+    }
+}
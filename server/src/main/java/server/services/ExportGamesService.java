@@ -0,0 +1,59 @@
+package server.services;
+
+import chess.WinState;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnWriter;
+import dataaccess.GameDAO;
+import dataaccess.exception.DataAccessException;
+import http.GameListItem;
+import model.Game;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides the Export Games service, which writes every finished game as PGN. Games are fetched and written one at a
+ * time, so only one is held in memory however many there are.
+ */
+public class ExportGamesService {
+    private final GameDAO gameDAO;
+
+    public ExportGamesService(GameDAO gameDAO) {
+        this.gameDAO = gameDAO;
+    }
+
+    /**
+     * Write each finished game to the given Writer as PGN.
+     *
+     * @param out where to write the games. It is flushed but not closed.
+     * @return the number of games written.
+     */
+    public int exportFinishedGames(Writer out) throws DataAccessException, IOException {
+        PgnWriter writer = new PgnWriter(out);
+        int count = 0;
+        for (GameListItem item : gameDAO.allGames()) {
+            Game game = gameDAO.findGame(item.gameID());
+            if (game.chessGame().getWinState() == WinState.IN_PROGRESS) {
+                continue;
+            }
+            writer.write(PgnGame.of(game.chessGame(), tags(game)));
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static Map<String, String> tags(Game game) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", game.gameName());
+        tags.put("White", usernameOrUnknown(game.whiteUsername()));
+        tags.put("Black", usernameOrUnknown(game.blackUsername()));
+        return tags;
+    }
+
+    private static String usernameOrUnknown(String username) {
+        return username == null || username.isEmpty() ? "?" : username;
+    }
+}
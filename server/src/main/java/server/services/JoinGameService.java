@@ -4,8 +4,10 @@ import dataaccess.*;
 import dataaccess.exception.BadRequestException;
 import dataaccess.exception.DataAccessException;
 import dataaccess.exception.UnauthorizedAccessException;
+import dataaccess.exception.ValueAlreadyTakenException;
 import http.JoinGameRequest;
 import http.MessageResponse;
+import model.Game;
 
 /**
  * Provides the Join Game service, which connects a user to an existing game as a player. This
@@ -22,7 +24,8 @@ public class JoinGameService {
 
     /**
      * Connect a user to an existing game as a player. Verifies that the specified game exists and adds the caller
-     * as the requested color to the game. This request is idempotent.
+     * as the requested color to the game, and the computer opponent as the other color if asked for. This request is
+     * idempotent.
      *
      * @param request   a JoinGameRequest representing the HTTP request.
      * @param authToken the AuthToken representing the user to assign.
@@ -40,7 +43,26 @@ public class JoinGameService {
         int gameID = request.gameID();
         String username = authDAO.getUsername(authToken);
         PlayerRole role = PlayerRole.stringToRole(request.playerColor());
+        PlayerRole computerRole = null;
+        if (request.againstComputer()) {
+            if (PlayerRole.WHITE_PLAYER.equals(role)) {
+                computerRole = PlayerRole.BLACK_PLAYER;
+            } else if (PlayerRole.BLACK_PLAYER.equals(role)) {
+                computerRole = PlayerRole.WHITE_PLAYER;
+            } else {
+                throw new BadRequestException("Could not join game: only a player can play against the computer");
+            }
+            // Checked first so that the user is not seated in a game they cannot play
+            Game game = gameDAO.findGame(gameID);
+            String opponent = PlayerRole.WHITE_PLAYER.equals(computerRole) ? game.whiteUsername() : game.blackUsername();
+            if (opponent != null && !opponent.isEmpty() && !Game.COMPUTER_USERNAME.equals(opponent)) {
+                throw new ValueAlreadyTakenException("Could not join game: the other color is already taken");
+            }
+        }
         gameDAO.assignPlayerRole(gameID, username, role);
+        if (computerRole != null) {
+            gameDAO.assignPlayerRole(gameID, Game.COMPUTER_USERNAME, computerRole);
+        }
 
         return new MessageResponse("Okay!");
     }
@@ -48,7 +70,7 @@ public class JoinGameService {
 /*
 
 | **Headers**          | `authorization: <authToken>`
-| **Body**             | `{ "playerColor":"WHITE/BLACK", "gameID": 1234 }`
+| **Body**             | `{ "playerColor":"WHITE/BLACK", "gameID": 1234, "againstComputer": false }`
 | **Success response** | [200]
 | **Failure response** | [400] `{ "message": "Error: bad request" }`
 | **Failure response** | [401] `{ "message": "Error: unauthorized" }`
@@ -3,10 +3,12 @@ package server.services;
 import dataaccess.AuthDAO;
 import dataaccess.exception.BadRequestException;
 import dataaccess.exception.DataAccessException;
+import dataaccess.exception.ValueAlreadyTakenException;
 import dataaccess.UserDAO;
 import http.AuthResponse;
 import http.RegisterRequest;
 import model.AuthToken;
+import model.Game;
 import model.User;
 import org.mindrot.jbcrypt.BCrypt;
 
@@ -34,6 +36,9 @@ public class RegisterService {
         if (request.username() == null || request.password() == null || request.username().isEmpty() || request.password().isEmpty()) {
             throw new BadRequestException("Please provide a username and password");
         }
+        if (Game.COMPUTER_USERNAME.equals(request.username())) {
+            throw new ValueAlreadyTakenException("That username is reserved for the computer opponent");
+        }
         String pwHash = BCrypt.hashpw(request.password(), BCrypt.gensalt());
         User user = new User(request.username(), pwHash, request.email());
         userDAO.insertNewUser(user);
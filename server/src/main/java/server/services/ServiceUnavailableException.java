@@ -0,0 +1,10 @@
+package server.services;
+
+/**
+ * Indicates the server is too busy to take the request now, but may take it if it is made again later.
+ */
+public class ServiceUnavailableException extends Exception {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,289 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.book.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.TranspositionTable;
+import chess.tablebase.Tablebases;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Runs engine searches for computer opponents on a fixed set of worker threads of its own, so that a search never
+ * holds up the Jetty threads that handle every game's WebSocket messages.
+ * <p>
+ * Each game has at most one search waiting, and waiting games are served in the order they first asked, so every game
+ * gets its turn however often another game asks: submitting again for a game that is still waiting just replaces its
+ * position. The number of waiting games is bounded, and a game's search can be cancelled while waiting or running.
+ * Each game searches within its own budget, which defaults to {@link #DEFAULT_BUDGET}.
+ * <p>
+ * The workers share one transposition table, and any endgame tables. They are started, and the transposition table
+ * allocated, on the first submission.
+ * <p>
+ * Positions in the executor's {@link OpeningBook} are answered from it straight away on the submitting thread, without
+ * waiting for a worker or searching.
+ */
+public class EngineExecutor implements AutoCloseable {
+    public static final SearchLimits DEFAULT_BUDGET = SearchLimits.time(Duration.ofSeconds(2));
+
+    private final int threads;
+    private final int maxWaitingGames;
+    private final int tableMegabytes;
+    private final Tablebases tablebases;
+    private final OpeningBook book;
+    private final Map<Integer, SearchLimits> budgets = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final LinkedHashMap<Integer, Job> waiting = new LinkedHashMap<>();
+    private final Map<Integer, Job> running = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private TranspositionTable table;
+    private boolean closed;
+
+    /**
+     * @param threads         the number of searches to run at once.
+     * @param maxWaitingGames the number of games that may wait for a worker before further games are turned away.
+     * @param tableMegabytes  the size of the workers' shared transposition table.
+     */
+    public EngineExecutor(int threads, int maxWaitingGames, int tableMegabytes) {
+        this(threads, maxWaitingGames, tableMegabytes, Tablebases.NONE);
+    }
+
+    /**
+     * @param threads         the number of searches to run at once.
+     * @param maxWaitingGames the number of games that may wait for a worker before further games are turned away.
+     * @param tableMegabytes  the size of the workers' shared transposition table.
+     * @param tablebases      the endgame tables the workers probe.
+     */
+    public EngineExecutor(int threads, int maxWaitingGames, int tableMegabytes, Tablebases tablebases) {
+        this(threads, maxWaitingGames, tableMegabytes, tablebases, OpeningBook.EMPTY);
+    }
+
+    /**
+     * @param threads         the number of searches to run at once.
+     * @param maxWaitingGames the number of games that may wait for a worker before further games are turned away.
+     * @param tableMegabytes  the size of the workers' shared transposition table.
+     * @param tablebases      the endgame tables the workers probe.
+     * @param book            the opening book to play from instead of searching.
+     */
+    public EngineExecutor(int threads, int maxWaitingGames, int tableMegabytes, Tablebases tablebases,
+                          OpeningBook book) {
+        if (threads < 1 || maxWaitingGames < 1) {
+            throw new IllegalArgumentException("An EngineExecutor needs at least one thread and one waiting slot");
+        }
+        this.threads = threads;
+        this.maxWaitingGames = maxWaitingGames;
+        this.tableMegabytes = tableMegabytes;
+        this.tablebases = tablebases;
+        this.book = book;
+    }
+
+    /**
+     * Sets how much searching a game's moves may take, from its next search on.
+     */
+    public void setBudget(int gameID, SearchLimits budget) {
+        budgets.put(gameID, budget);
+    }
+
+    /**
+     * Asks for a move for the team to move in a game. Any search already running for the game is cancelled, since the
+     * new position replaces it.
+     *
+     * @param gameID the game's ID.
+     * @param game   the game to find a move in. It is copied, so the caller may go on using it.
+     * @param reply  called with the result on a worker thread, unless the search is cancelled first, or for a book
+     *               move with a depth of 0, before this returns.
+     * @return true if the search was queued or the book answered, or false if too many games are already waiting.
+     * @throws IllegalStateException if the executor has been closed.
+     */
+    public boolean submit(int gameID, ChessGame game, Consumer<SearchResult> reply) {
+        ChessMove bookMove = book.pick(game, ThreadLocalRandom.current());
+        if (bookMove == null) {
+            return queue(gameID, game, reply);
+        }
+        synchronized (this) {
+            requireOpen();
+            cancel(gameID);
+        }
+        reply.accept(new SearchResult(bookMove, 0, 0, 0));
+        return true;
+    }
+
+    private synchronized boolean queue(int gameID, ChessGame game, Consumer<SearchResult> reply) {
+        requireOpen();
+        if (!waiting.containsKey(gameID) && waiting.size() >= maxWaitingGames) {
+            return false;
+        }
+        cancelRunning(gameID);
+        startWorkersIfNeeded();
+
+        // Replacing a waiting game's job keeps the game's place in line
+        Job job = new Job(gameID, game.copy(), budgets.getOrDefault(gameID, DEFAULT_BUDGET), reply);
+        waiting.put(gameID, job);
+        notifyAll();
+        return true;
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("Called submit() on a closed EngineExecutor");
+        }
+    }
+
+    /**
+     * Cancels a game's search, whether waiting or running, e.g. because the human player resigned or left. Its reply
+     * is not called. Does nothing if the game has no search.
+     */
+    public synchronized void cancel(int gameID) {
+        waiting.remove(gameID);
+        cancelRunning(gameID);
+    }
+
+    /**
+     * @return the number of games waiting for a worker.
+     */
+    synchronized int waitingGames() {
+        return waiting.size();
+    }
+
+    /**
+     * @return whether a search is running for the given game.
+     */
+    synchronized boolean isRunning(int gameID) {
+        return running.containsKey(gameID);
+    }
+
+    /**
+     * Cancels every search and stops the workers.
+     */
+    @Override
+    public void close() {
+        List<Thread> stoppedWorkers;
+        synchronized (this) {
+            closed = true;
+            waiting.clear();
+            for (Job job : running.values()) {
+                job.cancel();
+            }
+            stoppedWorkers = new ArrayList<>(workers);
+            notifyAll();
+        }
+        for (Thread worker : stoppedWorkers) {
+            worker.interrupt();
+        }
+    }
+
+    private void cancelRunning(int gameID) {
+        Job job = running.remove(gameID);
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
+    private void startWorkersIfNeeded() {
+        if (!workers.isEmpty()) {
+            return;
+        }
+        table = new TranspositionTable(tableMegabytes);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "engine-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void work() {
+        Searcher searcher;
+        synchronized (this) {
+            searcher = new Searcher(table, ForkJoinPool.commonPool(), tablebases);
+        }
+        while (true) {
+            Job job = takeJob(searcher);
+            if (job == null) {
+                return;
+            }
+            SearchResult result = searcher.search(job.game, job.budget);
+
+            boolean cancelled;
+            synchronized (this) {
+                running.remove(job.gameID, job);
+                cancelled = job.cancelled;
+                // A cancel that came after the search finished would otherwise stop the worker's next search
+                job.searcher = null;
+                searcher.clearStop();
+            }
+            if (!cancelled) {
+                try {
+                    job.reply.accept(result);
+                } catch (RuntimeException e) {
+                    System.err.printf("Engine reply for game %d failed: %s%n", job.gameID, e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the game that has waited longest, and marks it as running on the given searcher.
+     *
+     * @return the job, or null if the executor was closed.
+     */
+    private synchronized Job takeJob(Searcher searcher) {
+        while (!closed && waiting.isEmpty()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        if (closed) {
+            return null;
+        }
+        Iterator<Job> oldest = waiting.values().iterator();
+        Job job = oldest.next();
+        oldest.remove();
+        job.searcher = searcher;
+        running.put(job.gameID, job);
+        return job;
+    }
+
+    private static final class Job {
+        private final int gameID;
+        private final ChessGame game;
+        private final SearchLimits budget;
+        private final Consumer<SearchResult> reply;
+        private Searcher searcher;
+        private boolean cancelled;
+
+        Job(int gameID, ChessGame game, SearchLimits budget, Consumer<SearchResult> reply) {
+            this.gameID = gameID;
+            this.game = game;
+            this.budget = budget;
+            this.reply = reply;
+        }
+
+        /**
+         * Called with the executor's lock held.
+         */
+        void cancel() {
+            cancelled = true;
+            if (searcher != null) {
+                searcher.stop();
+            }
+        }
+    }
+}
@@ -2,8 +2,12 @@ package server.websocket;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.GameStatus;
 import chess.InvalidMoveException;
 import chess.WinState;
+import chess.book.OpeningBook;
+import chess.engine.SearchResult;
+import chess.tablebase.Tablebases;
 import dataaccess.*;
 import dataaccess.exception.BadRequestException;
 import dataaccess.exception.DataAccessException;
@@ -15,20 +19,63 @@ import websocket.commands.*;
 import websocket.messages.LoadGameServerMessage;
 import websocket.messages.NotificationServerMessage;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Objects;
 
 public class UserGameCommandHandler {
+    private static final int ENGINE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int MAX_WAITING_ENGINE_GAMES = 256;
+    private static final int ENGINE_TABLE_MEGABYTES = 64;
+    // Endgame tables written by chess.tablebase.TablebaseGenerator, if any
+    private static final Path TABLEBASE_DIRECTORY = Path.of("tablebases");
+    // An opening book written by chess.book.OpeningBookBuilder or BuildOpeningBookService, if any
+    private static final Path OPENING_BOOK_FILE = Path.of("openings.book");
+    private static final int GAME_LOCK_STRIPES = 64;
+
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
     private final GameSessionManager sessionManager;
     private final WebSocketServer wsServer;
+    private final EngineExecutor engineExecutor;
+    // A game's moves and resignation read, check and write its state holding its lock, so that a computer move found
+    // on an engine thread cannot overwrite a resignation or a move made meanwhile. Searches are queued holding it too. Games share locks by ID modulo the
+    // number of locks.
+    private final Object[] gameLocks = new Object[GAME_LOCK_STRIPES];
 
     public UserGameCommandHandler(AuthDAO authDAO, GameDAO gameDAO, WebSocketServer wsServer) {
         this.authDAO = authDAO;
         this.gameDAO = gameDAO;
         this.sessionManager = new GameSessionManager(wsServer);
         this.wsServer = wsServer;
+        this.engineExecutor = new EngineExecutor(ENGINE_THREADS, MAX_WAITING_ENGINE_GAMES, ENGINE_TABLE_MEGABYTES,
+                openTablebases(), openOpeningBook());
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new Object();
+        }
+    }
+
+    private Object gameLock(int gameID) {
+        return gameLocks[Math.floorMod(gameID, gameLocks.length)];
+    }
+
+    private static Tablebases openTablebases() {
+        try {
+            return Tablebases.open(TABLEBASE_DIRECTORY);
+        } catch (IOException e) {
+            System.err.printf("Could not open the endgame tables in %s: %s%n", TABLEBASE_DIRECTORY, e.getMessage());
+            return Tablebases.NONE;
+        }
+    }
+
+    private static OpeningBook openOpeningBook() {
+        try {
+            return OpeningBook.open(OPENING_BOOK_FILE);
+        } catch (IOException e) {
+            System.err.printf("Could not open the opening book %s: %s%n", OPENING_BOOK_FILE, e.getMessage());
+            return OpeningBook.EMPTY;
+        }
     }
 
     private void requireValidAuthString(UserGameCommand gameCommand) throws DataAccessException {
@@ -88,6 +135,10 @@ public class UserGameCommandHandler {
         String notifyStr = String.format("User %s has joined the game as %s", username, roleString);
         NotificationServerMessage notifyMsg = new NotificationServerMessage(notifyStr);
         sessionManager.broadcast(gameID, username, notifyMsg);
+
+        synchronized (gameLock(gameID)) {
+            requestComputerMoveIfNeeded(session, gameDAO.findGame(gameID));
+        }
     }
 
     public void parseAsMakeMove(Session session, String message) throws DataAccessException {
@@ -97,32 +148,82 @@ public class UserGameCommandHandler {
                 gameCommand.getMove().getEndPosition().getRow(), gameCommand.getMove().getEndPosition().getColumn());
 
         requireValidAuthString(gameCommand);
-        requireUnfinishedGame(gameCommand.getGameID());
-        ChessGame.TeamColor playerColor = requireColor(gameCommand.getAuthToken(), gameCommand.getGameID());
 
-        Game game = gameDAO.findGame(gameCommand.getGameID());
+        synchronized (gameLock(gameCommand.getGameID())) {
+            requireUnfinishedGame(gameCommand.getGameID());
+            ChessGame.TeamColor playerColor = requireColor(gameCommand.getAuthToken(), gameCommand.getGameID());
+
+            Game game = gameDAO.findGame(gameCommand.getGameID());
+            ChessGame chessGame = game.chessGame();
+            if (!playerColor.equals(chessGame.getTeamTurn())) {
+                wsServer.sendError(session, "It's the other player's turn right now.");
+                return;
+            }
+
+            ChessMove move = gameCommand.getMove();
+            try {
+                chessGame.makeMove(move);
+                gameDAO.updateGameState(game);
+            } catch (InvalidMoveException e) {
+                wsServer.sendError(session, e, "Invalid move.");
+                return;
+            }
+
+            LoadGameServerMessage loadMessage = new LoadGameServerMessage(game);
+            sessionManager.broadcastAll(gameCommand.getGameID(), loadMessage);
+
+            String username = authDAO.getUsername(gameCommand.getAuthToken());
+            String msg = getMoveNotificationString(game, username, move);
+            NotificationServerMessage notifyMessage = new NotificationServerMessage(msg);
+            sessionManager.broadcast(gameCommand.getGameID(), username, notifyMessage);
+
+            requestComputerMoveIfNeeded(session, game);
+        }
+    }
+
+    /**
+     * Queues a search for the computer's move if it is the computer's turn. The move is played and broadcast from an
+     * engine thread once found. Called holding the game's lock, so that a resignation cannot cancel the game's search
+     * before it is queued.
+     */
+    private void requestComputerMoveIfNeeded(Session session, Game game) {
         ChessGame chessGame = game.chessGame();
-        if (!playerColor.equals(chessGame.getTeamTurn())) {
-            wsServer.sendError(session, "It's the other player's turn right now.");
+        if (chessGame.getWinState() != WinState.IN_PROGRESS || !game.isComputerToMove()) {
             return;
         }
+        int gameID = game.gameID();
+        long positionKey = chessGame.getZobristKey();
+        boolean queued = engineExecutor.submit(gameID, chessGame,
+                result -> playComputerMove(gameID, positionKey, result));
+        if (!queued) {
+            wsServer.sendError(session, "The computer opponent is busy right now. Please reconnect to try again.");
+        }
+    }
 
-        ChessMove move = gameCommand.getMove();
+    /**
+     * Plays the computer's move, unless the game has moved on or ended since the search started. The game is checked
+     * and written holding its lock, so a resignation cannot slip in between.
+     */
+    private void playComputerMove(int gameID, long positionKey, SearchResult result) {
         try {
-            chessGame.makeMove(move);
-            gameDAO.updateGameState(game);
-        } catch (InvalidMoveException e) {
-            wsServer.sendError(session, e, "Invalid move.");
-            return;
+            synchronized (gameLock(gameID)) {
+                Game game = gameDAO.findGame(gameID);
+                ChessGame chessGame = game.chessGame();
+                ChessMove move = result.bestMove();
+                if (move == null || chessGame.getWinState() != WinState.IN_PROGRESS ||
+                        chessGame.getZobristKey() != positionKey || !game.isComputerToMove()) {
+                    return;
+                }
+                chessGame.makeMove(move);
+                gameDAO.updateGameState(game);
+
+                sessionManager.broadcastAll(gameID, new LoadGameServerMessage(game));
+                String msg = getMoveNotificationString(game, Game.COMPUTER_USERNAME, move);
+                sessionManager.broadcastAll(gameID, new NotificationServerMessage(msg));
+            }
+        } catch (DataAccessException | InvalidMoveException | IllegalArgumentException e) {
+            System.err.printf("Failed to play the computer's move in game %d: %s%n", gameID, e.getMessage());
         }
-
-        LoadGameServerMessage loadMessage = new LoadGameServerMessage(game);
-        sessionManager.broadcastAll(gameCommand.getGameID(), loadMessage);
-
-        String username = authDAO.getUsername(gameCommand.getAuthToken());
-        String msg = getMoveNotificationString(game, username, move);
-        NotificationServerMessage notifyMessage = new NotificationServerMessage(msg);
-        sessionManager.broadcast(gameCommand.getGameID(), username, notifyMessage);
     }
 
     private String getMoveNotificationString(Game game, String username, ChessMove move) {
@@ -134,32 +235,41 @@ public class UserGameCommandHandler {
 
     private void appendGameInfo(StringBuilder builder, Game game) {
         ChessGame chessGame = game.chessGame();
-        String whiteUser = game.whiteUsername();
-        String blackUser = game.blackUsername();
-
+        GameStatus status = chessGame.getStatus();
+
+        // Only the team to move can be in check, checkmate or stalemate
+        String teamName;
+        String username;
+        if (status.teamToMove() == ChessGame.TeamColor.WHITE) {
+            teamName = "White";
+            username = game.whiteUsername();
+        } else {
+            teamName = "Black";
+            username = game.blackUsername();
+        }
 
-        if (chessGame.isInCheck(ChessGame.TeamColor.WHITE)) {
-            builder.append(String.format(" White (%s) is in check.", whiteUser));
-        } else if (chessGame.isInCheck(ChessGame.TeamColor.BLACK)) {
-            builder.append(String.format(" Black (%s) is in check.", blackUser));
+        if (status.inCheck()) {
+            builder.append(String.format(" %s (%s) is in check.", teamName, username));
         }
 
-        if (chessGame.isInCheckmate(ChessGame.TeamColor.WHITE)) {
-            builder.append(String.format(" White (%s) is in checkmate.", whiteUser));
-        } else if (chessGame.isInCheckmate(ChessGame.TeamColor.BLACK)) {
-            builder.append(String.format(" Black (%s) is in checkmate.", blackUser));
+        if (status.isCheckmate()) {
+            builder.append(String.format(" %s (%s) is in checkmate.", teamName, username));
         }
 
-        if (chessGame.isInStalemate(ChessGame.TeamColor.WHITE)) {
-            builder.append(String.format(" White (%s) is in stalemate.", whiteUser));
-        } else if (chessGame.isInStalemate(ChessGame.TeamColor.BLACK)) {
-            builder.append(String.format(" Black (%s) is in stalemate.", blackUser));
+        if (status.isStalemate()) {
+            builder.append(String.format(" %s (%s) is in stalemate.", teamName, username));
         }
 
         if (chessGame.getWinState() == WinState.WHITE_WIN) {
             builder.append("\nGame over: White has won!");
         } else if (chessGame.getWinState() == WinState.BLACK_WIN) {
             builder.append("\nGame over: Black has won!");
+        } else if (chessGame.getWinState() == WinState.DRAW_BY_REPETITION) {
+            builder.append("\nGame over: Draw by threefold repetition.");
+        } else if (chessGame.getWinState() == WinState.DRAW_BY_FIFTY_MOVE_RULE) {
+            builder.append("\nGame over: Draw by the fifty-move rule.");
+        } else if (chessGame.getWinState() == WinState.DRAW_BY_INSUFFICIENT_MATERIAL) {
+            builder.append("\nGame over: Draw, neither player can checkmate.");
         }
     }
 
@@ -200,6 +310,12 @@ public class UserGameCommandHandler {
         requireHasRoleInGame(authToken, gameId);
 
         String username = authDAO.getUsername(authToken);
+        Game game = gameDAO.findGame(gameId);
+        if (Objects.equals(username, game.whiteUsername()) || Objects.equals(username, game.blackUsername())) {
+            // No one is left to play against the computer
+            engineExecutor.cancel(gameId);
+        }
+
         String msg = String.format("User %s left the game", username);
         sessionManager.removeUser(gameId, username);
         sessionManager.broadcast(gameId, username, new NotificationServerMessage(msg));
@@ -212,18 +328,23 @@ public class UserGameCommandHandler {
         System.out.printf("RESIGN | gameID: %d%n", gameCommand.getGameID());
 
         requireValidAuthString(gameCommand);
-        requireUnfinishedGame(gameCommand.getGameID());
 
-        ChessGame.TeamColor playerColor = requireColor(gameCommand.getAuthToken(), gameCommand.getGameID());
-        if (playerColor == null) {
-            wsServer.sendError(session, "Only active players can resign.");
-            return;
-        }
+        ChessGame.TeamColor playerColor;
+        synchronized (gameLock(gameCommand.getGameID())) {
+            requireUnfinishedGame(gameCommand.getGameID());
 
-        Game game = gameDAO.findGame(gameCommand.getGameID());
-        ChessGame chessGame = game.chessGame();
-        chessGame.resign(playerColor);
-        gameDAO.updateGameState(game);
+            playerColor = requireColor(gameCommand.getAuthToken(), gameCommand.getGameID());
+            if (playerColor == null) {
+                wsServer.sendError(session, "Only active players can resign.");
+                return;
+            }
+
+            engineExecutor.cancel(gameCommand.getGameID());
+            Game game = gameDAO.findGame(gameCommand.getGameID());
+            ChessGame chessGame = game.chessGame();
+            chessGame.resign(playerColor);
+            gameDAO.updateGameState(game);
+        }
 
         String username = authDAO.getUsername(gameCommand.getAuthToken());
         String msg = String.format("User %s (%s) has resigned the game.", username, playerColor.name());
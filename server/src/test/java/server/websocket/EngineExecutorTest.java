@@ -0,0 +1,129 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.book.OpeningBook;
+import chess.book.OpeningBookBuilder;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.pgn.PgnGame;
+import chess.tablebase.Tablebases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EngineExecutorTest {
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+    private static final SearchLimits LONG_SEARCH = SearchLimits.time(Duration.ofSeconds(30));
+
+    private final EngineExecutor executor = new EngineExecutor(1, 2, 1);
+    private final AtomicInteger cancelledReplies = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+        Assertions.assertEquals(0, cancelledReplies.get(), "a cancelled search replied");
+    }
+
+    @Test
+    void repliesWithBestMove() throws Exception {
+        CompletableFuture<SearchResult> reply = new CompletableFuture<>();
+        executor.setBudget(1, SearchLimits.depth(3));
+        Assertions.assertTrue(executor.submit(1, ChessGame.fromFen(BACK_RANK_MATE), reply::complete));
+
+        ChessMove mate = new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null);
+        Assertions.assertEquals(mate, reply.get(10, TimeUnit.SECONDS).bestMove());
+    }
+
+    @Test
+    void servesGamesInTurnAndReplacesWaitingPositions() throws Exception {
+        List<Integer> replies = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        executor.setBudget(1, SearchLimits.time(Duration.ofMillis(200)));
+        executor.setBudget(2, SearchLimits.depth(2));
+        executor.setBudget(3, SearchLimits.depth(2));
+
+        executor.submit(1, new ChessGame(), result -> {
+            replies.add(1);
+            done.countDown();
+        });
+        awaitRunning(1);
+        executor.submit(2, new ChessGame(), result -> replies.add(-2));
+        executor.submit(3, new ChessGame(), result -> {
+            replies.add(3);
+            done.countDown();
+        });
+        // Game 2 keeps its place ahead of game 3, with the newer position
+        executor.submit(2, ChessGame.fromFen(BACK_RANK_MATE), result -> {
+            replies.add(2);
+            done.countDown();
+        });
+
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(1, 2, 3), replies);
+    }
+
+    @Test
+    void turnsGamesAwayWhenQueueIsFull() throws Exception {
+        executor.setBudget(1, LONG_SEARCH);
+        executor.submit(1, new ChessGame(), result -> cancelledReplies.incrementAndGet());
+        awaitRunning(1);
+        Assertions.assertTrue(executor.submit(2, new ChessGame(), result -> { }));
+        Assertions.assertTrue(executor.submit(3, new ChessGame(), result -> { }));
+        Assertions.assertFalse(executor.submit(4, new ChessGame(), result -> { }));
+        Assertions.assertTrue(executor.submit(2, new ChessGame(), result -> { }), "a waiting game can resubmit");
+
+        executor.cancel(2);
+        Assertions.assertTrue(executor.submit(4, new ChessGame(), result -> { }));
+        executor.cancel(1);
+    }
+
+    @Test
+    void cancelStopsRunningSearch() throws Exception {
+        executor.setBudget(1, LONG_SEARCH);
+        executor.submit(1, new ChessGame(), result -> cancelledReplies.incrementAndGet());
+        awaitRunning(1);
+        executor.cancel(1);
+
+        CompletableFuture<SearchResult> reply = new CompletableFuture<>();
+        executor.setBudget(2, SearchLimits.depth(1));
+        executor.submit(2, new ChessGame(), reply::complete);
+        Assertions.assertNotNull(reply.get(10, TimeUnit.SECONDS).bestMove());
+    }
+
+    @Test
+    void answersFromBookWithoutSearching() throws InvalidMoveException {
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.add(new PgnGame(Map.of(), List.of(e4), "1-0"));
+        OpeningBook book = builder.build();
+
+        try (EngineExecutor bookExecutor = new EngineExecutor(1, 1, 1, Tablebases.NONE, book)) {
+            bookExecutor.setBudget(1, LONG_SEARCH);
+            List<SearchResult> replies = new CopyOnWriteArrayList<>();
+            Assertions.assertTrue(bookExecutor.submit(1, new ChessGame(), replies::add));
+            Assertions.assertEquals(List.of(new SearchResult(e4, 0, 0, 0)), replies, "answered before submit returned");
+            Assertions.assertEquals(0, bookExecutor.waitingGames());
+            Assertions.assertFalse(bookExecutor.isRunning(1));
+        }
+    }
+
+    private void awaitRunning(int gameID) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!executor.isRunning(gameID)) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "game " + gameID + " never started");
+            Thread.sleep(5);
+        }
+    }
+}
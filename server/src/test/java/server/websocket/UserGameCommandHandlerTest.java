@@ -0,0 +1,80 @@
+package server.websocket;
+
+import chess.ChessGame;
+import dataaccess.AuthDAO;
+import dataaccess.GameDAO;
+import dataaccess.UserDAO;
+import dataaccess.exception.DataAccessException;
+import dataaccess.memory.MemoryAuthDAO;
+import dataaccess.memory.MemoryGameDAO;
+import dataaccess.memory.MemoryUserDAO;
+import http.ChessSerializer;
+import http.JoinGameRequest;
+import model.AuthToken;
+import model.Game;
+import model.User;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import server.services.JoinGameService;
+import websocket.commands.ConnectGameCommand;
+import websocket.messages.NotificationServerMessage;
+import websocket.messages.ServerMessage;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class UserGameCommandHandlerTest {
+    private static final int GAME_ID = 1;
+
+    private final UserDAO userDAO = new MemoryUserDAO();
+    private final AuthDAO authDAO = new MemoryAuthDAO(userDAO);
+    private final GameDAO gameDAO = new MemoryGameDAO(userDAO);
+    private final BlockingQueue<ServerMessage> sent = new LinkedBlockingQueue<>();
+
+    @Test
+    void computerRepliesToEveryoneInTheGame() throws DataAccessException, InterruptedException {
+        userDAO.insertNewUser(new User("user1", "hash", "mail1"));
+        AuthToken token = new AuthToken("1234", "user1");
+        authDAO.addAuthToken(token);
+        gameDAO.insertNewGame(new Game(GAME_ID, "game1"));
+        new JoinGameService(authDAO, gameDAO).joinGame(new JoinGameRequest("BLACK", GAME_ID, true), token.authToken());
+        Assertions.assertEquals(Game.COMPUTER_USERNAME, gameDAO.findGame(GAME_ID).whiteUsername());
+
+        WebSocketServer wsServer = new WebSocketServer(authDAO, gameDAO) {
+            @Override
+            public void send(Session session, ServerMessage serverMessage) {
+                sent.add(serverMessage);
+            }
+        };
+        ConnectGameCommand connect = new ConnectGameCommand(token.authToken(), GAME_ID, ChessGame.TeamColor.BLACK);
+        wsServer.onMessage(fakeSession(), ChessSerializer.gson().toJson(connect));
+
+        // The connecting player's own board, then the computer's move as a board and a notification
+        Assertions.assertEquals(ServerMessage.ServerMessageType.LOAD_GAME, next().getServerMessageType());
+        Assertions.assertEquals(ServerMessage.ServerMessageType.LOAD_GAME, next().getServerMessageType());
+        ServerMessage notification = next();
+        Assertions.assertInstanceOf(NotificationServerMessage.class, notification);
+        Assertions.assertTrue(((NotificationServerMessage) notification).getMessage()
+                .startsWith("User " + Game.COMPUTER_USERNAME + " has made move"), notification.toString());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, gameDAO.findGame(GAME_ID).chessGame().getTeamTurn());
+    }
+
+    private ServerMessage next() throws InterruptedException {
+        ServerMessage message = sent.poll(30, TimeUnit.SECONDS);
+        Assertions.assertNotNull(message, "no message was sent");
+        return message;
+    }
+
+    private static Session fakeSession() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "fake session";
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,127 @@
+package service;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.engine.SearchLimits;
+import chess.engine.Searcher;
+import dataaccess.exception.BadRequestException;
+import dataaccess.exception.DataAccessException;
+import dataaccess.exception.UnauthorizedAccessException;
+import http.AnalyzeGameRequest;
+import http.AnalyzeGameResponse;
+import http.MoveAnalysis;
+import model.AuthToken;
+import model.Game;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.analysis.GameAnalyzer;
+import server.services.AnalyzeGameService;
+import server.services.ServiceUnavailableException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class AnalyzeGameServiceTest extends ServiceTest {
+    private static final ChessMove QH4 = new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8));
+
+    private final AuthToken token = new AuthToken("1234", "user1");
+    private GameAnalyzer analyzer;
+    private AnalyzeGameService service;
+
+    @BeforeEach
+    void setUp() throws DataAccessException, InvalidMoveException {
+        initDAOs();
+        userDAO.insertNewUser(createTestUser("user1", "pass1", "mail1"));
+        authDAO.addAuthToken(token);
+        gameDAO.insertNewGame(foolsMate(1));
+        gameDAO.insertNewGame(foolsMate(2));
+        Game inProgress = new Game(3, "still going");
+        inProgress.chessGame().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        gameDAO.insertNewGame(inProgress);
+
+        analyzer = new GameAnalyzer(1, 1, 1, 1000, SearchLimits.depth(2));
+        service = new AnalyzeGameService(authDAO, gameDAO, analyzer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        analyzer.close();
+    }
+
+    // Positive test
+    @Test
+    void analyzeReportsEachMove() throws DataAccessException, ServiceUnavailableException, InterruptedException {
+        AnalyzeGameResponse first = service.analyzeGame(new AnalyzeGameRequest(1), token.authToken());
+        Assertions.assertNull(first.moves(), "the first request only queues the game");
+
+        List<MoveAnalysis> moves = awaitAnalysis(1);
+        Assertions.assertEquals(4, moves.size());
+        Assertions.assertEquals(List.of(false, false, true, false), moves.stream().map(MoveAnalysis::blunder).toList(),
+                "2. g4 allows mate");
+        Assertions.assertEquals(QH4, moves.get(3).bestMove(), "the engine would have mated too");
+        Assertions.assertEquals(QH4, moves.get(3).move());
+        Assertions.assertEquals(-Searcher.MATE_SCORE, moves.get(3).evaluation(), "black has mated white");
+    }
+
+    @Test
+    void analyzeAnswersFromCachedPositions()
+            throws DataAccessException, ServiceUnavailableException, InterruptedException {
+        List<MoveAnalysis> moves = awaitAnalysis(1);
+        Assertions.assertEquals(moves, service.analyzeGame(new AnalyzeGameRequest(1), token.authToken()).moves());
+        Assertions.assertEquals(moves, service.analyzeGame(new AnalyzeGameRequest(2), token.authToken()).moves(),
+                "another game through the same positions is not searched again");
+    }
+
+    // Negative test
+    @Test
+    void analyzeGameInProgressReturnsBadRequestError() {
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.analyzeGame(new AnalyzeGameRequest(3), token.authToken()));
+    }
+
+    @Test
+    void analyzeWithInvalidTokenReturnsUnauthorizedError() {
+        Assertions.assertThrows(UnauthorizedAccessException.class,
+                () -> service.analyzeGame(new AnalyzeGameRequest(1), "bad token"));
+    }
+
+    @Test
+    void analyzeWhenQueueIsFullReturnsServiceUnavailableError()
+            throws DataAccessException, ServiceUnavailableException, InvalidMoveException {
+        try (GameAnalyzer busyAnalyzer = new GameAnalyzer(1, 1, 1, 1000, SearchLimits.NONE)) {
+            AnalyzeGameService busyService = new AnalyzeGameService(authDAO, gameDAO, busyAnalyzer);
+            gameDAO.insertNewGame(foolsMate(4));
+            Assertions.assertNull(busyService.analyzeGame(new AnalyzeGameRequest(1), token.authToken()).moves());
+            Assertions.assertNull(busyService.analyzeGame(new AnalyzeGameRequest(2), token.authToken()).moves());
+            Assertions.assertNull(busyService.analyzeGame(new AnalyzeGameRequest(2), token.authToken()).moves(),
+                    "asking again for a waiting game does not queue it twice");
+            Assertions.assertThrows(ServiceUnavailableException.class,
+                    () -> busyService.analyzeGame(new AnalyzeGameRequest(4), token.authToken()));
+        }
+    }
+
+    private List<MoveAnalysis> awaitAnalysis(int gameID)
+            throws DataAccessException, ServiceUnavailableException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            List<MoveAnalysis> moves = service.analyzeGame(new AnalyzeGameRequest(gameID), token.authToken()).moves();
+            if (moves != null) {
+                return moves;
+            }
+            Assertions.assertTrue(System.nanoTime() < deadline, "the analysis never finished");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Game foolsMate(int gameID) throws InvalidMoveException {
+        Game game = new Game(gameID, "fools mate");
+        game.chessGame().makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6)));
+        game.chessGame().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        game.chessGame().makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7)));
+        game.chessGame().makeMove(QH4);
+        return game;
+    }
+}
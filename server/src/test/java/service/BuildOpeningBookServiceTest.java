@@ -0,0 +1,70 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.book.BookMove;
+import chess.book.OpeningBook;
+import dataaccess.exception.DataAccessException;
+import model.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.services.BuildOpeningBookService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+class BuildOpeningBookServiceTest extends ServiceTest {
+    private static final ChessMove F3 = new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6));
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5));
+
+    private final Game finished = new Game(1, "fools mate");
+    private final Game inProgress = new Game(2, "still going");
+    private BuildOpeningBookService service;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws DataAccessException, InvalidMoveException {
+        initDAOs();
+        service = new BuildOpeningBookService(gameDAO);
+
+        finished.chessGame().makeMove(F3);
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7)));
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8)));
+        inProgress.chessGame().makeMove(E4);
+
+        gameDAO.insertNewGame(finished);
+        gameDAO.insertNewGame(inProgress);
+    }
+
+    // Positive test
+    @Test
+    void buildAddsOnlyFinishedGames() throws DataAccessException, IOException {
+        Path file = directory.resolve("openings.book");
+        Assertions.assertEquals(1, service.buildFromFinishedGames(file));
+
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(2, book.size(), "only the winner's moves");
+        Assertions.assertEquals(List.of(), book.moves(new ChessGame()), "white lost, so 1. f3 is left out");
+        ChessGame afterF3 = new ChessGame();
+        afterF3.applyMove(afterF3.findLegalMove(F3));
+        Assertions.assertEquals(1, book.moves(afterF3).size());
+        Assertions.assertEquals(2, book.moves(afterF3).stream().mapToInt(BookMove::weight).sum());
+    }
+
+    // Negative test
+    @Test
+    void buildWithNoFinishedGamesWritesEmptyBook() throws DataAccessException, IOException {
+        gameDAO.removeGame(1);
+        Path file = directory.resolve("openings.book");
+        Assertions.assertEquals(0, service.buildFromFinishedGames(file));
+        Assertions.assertEquals(0, OpeningBook.open(file).size());
+    }
+}
@@ -0,0 +1,61 @@
+package service;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import dataaccess.exception.DataAccessException;
+import model.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.services.ExportGamesService;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+class ExportGamesServiceTest extends ServiceTest {
+    private final Game finished = new Game(1, "fools mate");
+    private final Game inProgress = new Game(2, "still going");
+    private ExportGamesService service;
+
+    @BeforeEach
+    void setUp() throws DataAccessException, InvalidMoveException {
+        initDAOs();
+        service = new ExportGamesService(gameDAO);
+
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6)));
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7)));
+        finished.chessGame().makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8)));
+        inProgress.chessGame().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+
+        gameDAO.insertNewGame(finished);
+        gameDAO.insertNewGame(inProgress);
+    }
+
+    // Positive test
+    @Test
+    void exportWritesOnlyFinishedGames() throws DataAccessException, IOException {
+        StringWriter out = new StringWriter();
+        Assertions.assertEquals(1, service.exportFinishedGames(out));
+        Assertions.assertTrue(out.toString().contains("1. f3 e5 2. g4 Qh4# 0-1"), out.toString());
+
+        PgnReader reader = new PgnReader(new StringReader(out.toString()));
+        PgnGame game = reader.next();
+        Assertions.assertEquals("fools mate", game.tags().get("Event"));
+        Assertions.assertEquals(finished.chessGame().getMoveHistory(), game.moves());
+        Assertions.assertFalse(reader.hasNext());
+    }
+
+    // Negative test
+    @Test
+    void exportWithNoFinishedGamesWritesNothing() throws DataAccessException, IOException {
+        gameDAO.removeGame(1);
+        StringWriter out = new StringWriter();
+        Assertions.assertEquals(0, service.exportFinishedGames(out));
+        Assertions.assertEquals("", out.toString());
+    }
+}
@@ -87,6 +87,22 @@ class JoinGameServiceTest extends ServiceTest {
         Assertions.assertEquals("Okay!", response.message());
     }
 
+    @Test
+    void joinGameAgainstComputerSeatsTheComputerAsTheOtherColor() throws DataAccessException {
+        service.joinGame(new JoinGameRequest("BLACK", 1, true), token1.authToken());
+        Assertions.assertEquals("user1", gameDAO.findGame(1).blackUsername());
+        Assertions.assertEquals(Game.COMPUTER_USERNAME, gameDAO.findGame(1).whiteUsername());
+    }
+
+    @Test
+    void joinGameAgainstComputerWithOtherColorTakenReturnsTaken() throws DataAccessException {
+        service.joinGame(requestB, token2.authToken());
+
+        Assertions.assertThrows(ValueAlreadyTakenException.class,
+                () -> service.joinGame(new JoinGameRequest("WHITE", 1, true), token1.authToken()));
+        Assertions.assertEquals("", gameDAO.findGame(1).whiteUsername(), "the user was not seated either");
+    }
+
     @Test
     void joinGameWithInvalidTokenErrors() {
         Assertions.assertThrows(UnauthorizedAccessException.class, () -> service.joinGame(requestW, "iAmIncorrect"));
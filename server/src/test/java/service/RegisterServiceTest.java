@@ -5,6 +5,7 @@ import dataaccess.exception.DataAccessException;
 import dataaccess.exception.ValueAlreadyTakenException;
 import http.AuthResponse;
 import http.RegisterRequest;
+import model.Game;
 import model.User;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,6 +40,12 @@ class RegisterServiceTest extends ServiceTest {
                 () -> service.register(new RegisterRequest("existingUser", "pass1", "mail1")));
     }
 
+    @Test
+    void registerComputerUsernameThrowsAlreadyTaken() {
+        Assertions.assertThrows(ValueAlreadyTakenException.class,
+                () -> service.register(new RegisterRequest(Game.COMPUTER_USERNAME, "pass1", "mail1")));
+    }
+
     @Test
     void registerNewUserReturnsOkay() throws DataAccessException {
         AuthResponse response = service.register(new RegisterRequest("user1", "pass1", "mail1"));
@@ -0,0 +1,83 @@
+package chess;
+
+/**
+ * Helpers for working with bitboards: 64-bit sets of squares where bit {@code (row - 1) * 8 + (col - 1)} stands for
+ * the square at that row and column (a1 is bit 0, h1 is bit 7 and h8 is bit 63).
+ */
+public final class Bitboards {
+    public static final int NUM_PIECE_SETS = 12;
+    /**
+     * Stands for "no square", e.g. when there is no en passant target.
+     */
+    public static final int NO_SQUARE = -1;
+    /**
+     * The light squares (b1, a2, ...). The rest, starting with a1, are dark.
+     */
+    public static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index of the given position.
+     */
+    public static int square(ChessPosition position) {
+        return position.index();
+    }
+
+    /**
+     * @return the square index of the given (1-indexed) row and column.
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the (shared) ChessPosition of the given square index.
+     */
+    public static ChessPosition position(int square) {
+        return ChessPosition.ofIndex(square);
+    }
+
+    /**
+     * @return the (1-indexed) row of the given square index.
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the (1-indexed) column of the given square index.
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return a bitboard containing only the given square.
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the index of the piece set holding pieces of the given color and type.
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return the lowest square in the given (nonempty) bitboard.
+     */
+    public static int firstSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * @return the given bitboard with its lowest square removed.
+     */
+    public static long withoutFirstSquare(long bitboard) {
+        return bitboard & (bitboard - 1);
+    }
+}
@@ -29,7 +29,7 @@ public class BoardMap {
     }
 
     private int index(ChessPosition pos) {
-        return (pos.getRow() - 1) * 8 + (pos.getColumn() - 1);
+        return pos.index();
     }
 
     public void put(ChessPosition pos, ChessPiece piece) {
@@ -38,19 +38,16 @@ public class BoardMap {
 
     public Set<ChessPosition> keySet() {
         Set<ChessPosition> positions = new HashSet<>();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                if (get(pos) != null) {
-                    positions.add(pos);
-                }
+        for (int index = 0; index < 64; index++) {
+            if (board[index] != null) {
+                positions.add(ChessPosition.ofIndex(index));
             }
         }
         return positions;
     }
 
     public ChessPiece get(ChessPosition pos) {
-        if (pos.getColumn() > 0 && pos.getRow() > 0 && pos.getColumn() <= 8 && pos.getRow() <= 8) {
+        if (pos.isValidPosition()) {
             return board[index(pos)];
         } else {
             return null;
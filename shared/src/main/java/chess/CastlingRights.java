@@ -0,0 +1,109 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Flags for which castling moves each team may still make, packed into the low four bits of an int.
+ * <p>
+ * A game keeps these as part of its state and updates them on every move with {@link #afterMove(int, int, int)}: any
+ * move from or to a king's or rook's starting square removes the rights that depend on that piece. The game also keeps
+ * its kings' and rooks' {@link ChessPiece#hasNeverMoved()} flags in step with them, so that {@link #fromBoard} gives
+ * them back for its board.
+ */
+public final class CastlingRights {
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL = 15;
+
+    private static final int[] RIGHTS_KEPT_BY_MOVE = new int[64];
+
+    static {
+        Arrays.fill(RIGHTS_KEPT_BY_MOVE, ALL);
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(1, 5)] = ALL & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(1, 8)] = ALL & ~WHITE_KINGSIDE;
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(1, 1)] = ALL & ~WHITE_QUEENSIDE;
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(8, 5)] = ALL & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(8, 8)] = ALL & ~BLACK_KINGSIDE;
+        RIGHTS_KEPT_BY_MOVE[Bitboards.square(8, 1)] = ALL & ~BLACK_QUEENSIDE;
+    }
+
+    private CastlingRights() {
+    }
+
+    /**
+     * Derives castling rights from the board: a team may castle on a side while its king and that side's rook are
+     * still on their starting squares and have never moved. Used when a game is given a board with no history.
+     *
+     * @param board the board to inspect.
+     * @return a set of castling rights flags.
+     */
+    public static int fromBoard(ChessBoard board) {
+        int rights = NONE;
+        if (isUnmoved(board, 1, 5, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            if (isUnmoved(board, 1, 8, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                rights |= WHITE_KINGSIDE;
+            }
+            if (isUnmoved(board, 1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                rights |= WHITE_QUEENSIDE;
+            }
+        }
+        if (isUnmoved(board, 8, 5, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            if (isUnmoved(board, 8, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                rights |= BLACK_KINGSIDE;
+            }
+            if (isUnmoved(board, 8, 1, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                rights |= BLACK_QUEENSIDE;
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * @return the rights that depend on the piece on the given square never having moved: both of a team's for its
+     * king's starting square, one for a rook's, and none for any other square.
+     */
+    public static int dependingOn(int square) {
+        return ALL & ~RIGHTS_KEPT_BY_MOVE[square];
+    }
+
+    /**
+     * @return the given rights minus any lost by a move from and to the given squares.
+     */
+    public static int afterMove(int rights, int from, int to) {
+        return rights & RIGHTS_KEPT_BY_MOVE[from] & RIGHTS_KEPT_BY_MOVE[to];
+    }
+
+    public static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    public static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * @param kingTarget the square a castling king moves to.
+     * @return the square the rook castling with it starts on.
+     */
+    public static int rookStartSquare(int kingTarget) {
+        return Bitboards.column(kingTarget) == 7 ? kingTarget + 1 : kingTarget - 2;
+    }
+
+    /**
+     * @param kingTarget the square a castling king moves to.
+     * @return the square the rook castling with it ends on, the one the king passes over.
+     */
+    public static int rookEndSquare(int kingTarget) {
+        return Bitboards.column(kingTarget) == 7 ? kingTarget - 1 : kingTarget + 1;
+    }
+
+    private static boolean isUnmoved(ChessBoard board, int row, int col, ChessGame.TeamColor color,
+            ChessPiece.PieceType type) {
+        ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type &&
+                piece.hasNeverMoved();
+    }
+}
@@ -1,21 +1,36 @@
 package chess;
 
+import chess.movementrule.AttackTables;
+
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are stored both square-by-square and as bitboards (one set of squares per color and piece type, plus one
+ * occupancy set per color; see {@link Bitboards}). Every change goes through {@code setPiece()}, which keeps the
+ * two in sync, along with the Zobrist key and the sums of the pieces' {@link PieceSquareTables} values.
+ * <p>
  * Note: You can add to this class, but you may not alter signature of the existing methods.
  */
 public class ChessBoard {
 
     private ChessPiece[][] pieces;
+    // Derived from pieces, so not written to JSON; see rebuildFromPieces()
+    private transient long[] pieceSets;
+    private transient long[] teamSets;
+    private transient long zobristKey;
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    private transient int version;
 
     public ChessBoard() {
         this.pieces = new ChessPiece[8][8];
+        this.pieceSets = new long[Bitboards.NUM_PIECE_SETS];
+        this.teamSets = new long[2];
     }
 
     @Override
@@ -45,7 +60,7 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(pieces);
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -53,7 +68,7 @@ public class ChessBoard {
         StringBuilder builder = new StringBuilder("\n");
         for (int row = 8; row >= 1; row--) {
             for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
+                ChessPosition position = ChessPosition.of(row, col);
                 char symbol = ' ';
                 if (hasPieceAt(position)) {
                     ChessPiece piece = getPiece(position);
@@ -87,7 +102,38 @@ public class ChessBoard {
     }
 
     private void forceSetPiece(ChessPosition position, ChessPiece piece) {
-        pieces[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(Bitboards.square(position), piece);
+    }
+
+    /**
+     * Puts the given piece on the given square, replacing whatever was there. Unlike {@link #addPiece}, this neither
+     * checks that the square is empty nor needs a ChessPosition, for making and taking back moves.
+     *
+     * @param square the square index to set.
+     * @param piece  the piece to put there, or null to empty the square.
+     */
+    void setPiece(int square, ChessPiece piece) {
+        version++;
+        long squareBit = Bitboards.bit(square);
+        ChessPiece previous = pieces[square >>> 3][square & 7];
+        if (previous != null) {
+            pieceSets[Bitboards.pieceIndex(previous.getTeamColor(), previous.getPieceType())] &= ~squareBit;
+            teamSets[previous.getTeamColor().ordinal()] &= ~squareBit;
+            zobristKey ^= Zobrist.pieceKey(previous, square);
+            middlegameScore -= PieceSquareTables.middlegameScore(previous, square);
+            endgameScore -= PieceSquareTables.endgameScore(previous, square);
+            phase -= PieceSquareTables.phaseWeight(previous);
+        }
+
+        pieces[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            pieceSets[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())] |= squareBit;
+            teamSets[piece.getTeamColor().ordinal()] |= squareBit;
+            zobristKey ^= Zobrist.pieceKey(piece, square);
+            middlegameScore += PieceSquareTables.middlegameScore(piece, square);
+            endgameScore += PieceSquareTables.endgameScore(piece, square);
+            phase += PieceSquareTables.phaseWeight(piece);
+        }
     }
 
     /**
@@ -100,13 +146,65 @@ public class ChessBoard {
         if (!position.isValidPosition()) {
             return null;
         }
-        return pieces[position.getRow() - 1][position.getColumn() - 1];
+        return getPiece(position.index());
+    }
+
+    /**
+     * Gets a chess piece on the chessboard.
+     *
+     * @param square the square index (see {@link Bitboards}) to get the piece from.
+     * @return the piece on the square, or null if the square is empty.
+     */
+    public ChessPiece getPiece(int square) {
+        return pieces[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color and type.
+     */
+    public long getPieceSet(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceSets[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color.
+     */
+    public long getTeamSet(ChessGame.TeamColor color) {
+        return teamSets[color.ordinal()];
+    }
+
+    /**
+     * @return the set of occupied squares.
+     */
+    public long getOccupancy() {
+        return teamSets[0] | teamSets[1];
     }
 
     public boolean hasPieceAt(ChessPosition position) {
         return position.isValidPosition() && getPiece(position) != null;
     }
 
+    /**
+     * @return a deep copy of this board, sharing no pieces with it.
+     */
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (pieces[row][col] != null) {
+                    copy.pieces[row][col] = pieces[row][col].copy();
+                }
+            }
+        }
+        copy.pieceSets = pieceSets.clone();
+        copy.teamSets = teamSets.clone();
+        copy.zobristKey = zobristKey;
+        copy.middlegameScore = middlegameScore;
+        copy.endgameScore = endgameScore;
+        copy.phase = phase;
+        return copy;
+    }
+
     /**
      * Sets the board to the default starting board (how the game of chess normally starts).
      */
@@ -121,30 +219,82 @@ public class ChessBoard {
 
     public void clearBoard() {
         pieces = new ChessPiece[8][8];
+        pieceSets = new long[Bitboards.NUM_PIECE_SETS];
+        teamSets = new long[2];
+        zobristKey = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        version++;
     }
 
-    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece piece = pieces[i][j];
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == color) {
-                    return new ChessPosition(i + 1, j + 1);
-                }
+    /**
+     * @return the Zobrist key of the pieces on this board (see {@link Zobrist}), kept up to date as pieces are added,
+     * removed and moved.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return the middlegame material and piece-square values (see {@link PieceSquareTables}) of White's pieces less
+     * those of Black's, kept up to date as pieces are added, removed and moved.
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square values of White's pieces less those of Black's.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase of the pieces on the board, from {@link PieceSquareTables#MAX_PHASE} in the opening
+     * down to 0 with only kings and pawns left. Promotions can take it above the maximum.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Rebuilds the bitboards, the Zobrist key and the piece-square sums from the pieces, for a board whose pieces were
+     * filled in without {@code setPiece()}, such as one read from JSON.
+     */
+    void rebuildFromPieces() {
+        ChessPiece[][] placed = pieces;
+        clearBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = placed[square >>> 3][square & 7];
+            if (piece != null) {
+                setPiece(square, piece);
             }
         }
-        throw new InvalidBoardException("Called getKingPosition() but no King piece was found");
+    }
+
+    /**
+     * @return a counter that changes every time a piece is added, removed or moved, for invalidating anything computed
+     * from the current arrangement of pieces.
+     */
+    int version() {
+        return version;
+    }
+
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        long kings = getPieceSet(color, ChessPiece.PieceType.KING);
+        if (kings == 0) {
+            throw new InvalidBoardException("Called getKingPosition() but no King piece was found");
+        }
+        return Bitboards.position(Bitboards.firstSquare(kings));
     }
 
     public Collection<ChessPosition> getTeamPieces(ChessGame.TeamColor teamColor) {
-        Collection<ChessPosition> positions = new ArrayList<>();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece piece = pieces[i][j];
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    positions.add(new ChessPosition(i + 1, j + 1));
-                }
-            }
+        long team = getTeamSet(teamColor);
+        Collection<ChessPosition> positions = new ArrayList<>(Long.bitCount(team));
+        for (; team != 0; team = Bitboards.withoutFirstSquare(team)) {
+            positions.add(Bitboards.position(Bitboards.firstSquare(team)));
         }
         return positions;
     }
@@ -174,24 +324,53 @@ public class ChessBoard {
     }
 
     public boolean containsKing(ChessGame.TeamColor color) {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece piece = pieces[i][j];
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == color) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return getPieceSet(color, ChessPiece.PieceType.KING) != 0;
+    }
+
+    /**
+     * Determines whether any piece of the given color attacks the given position.
+     *
+     * @param position the position to check.
+     * @param byColor  the color of the attacking team.
+     * @return true if a piece of the given color attacks the position.
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(Bitboards.square(position), byColor);
+    }
+
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        return getAttackers(square, byColor, getOccupancy()) != 0;
+    }
+
+    /**
+     * Finds every piece of the given color that attacks the given square. Rather than generating moves for each piece
+     * of that color, this looks outward from the square: a knight attacks it if a knight sits a knight's move away,
+     * a rook or queen attacks it if one is the first piece along a rank or file, and so on.
+     *
+     * @param square    the square index to check.
+     * @param byColor   the color of the attacking team.
+     * @param occupancy the set of occupied squares to use when looking for blockers.
+     * @return the set of squares holding pieces of the given color that attack the square.
+     */
+    public long getAttackers(int square, ChessGame.TeamColor byColor, long occupancy) {
+        long queens = getPieceSet(byColor, ChessPiece.PieceType.QUEEN);
+        long diagonalSliders = getPieceSet(byColor, ChessPiece.PieceType.BISHOP) | queens;
+        long straightSliders = getPieceSet(byColor, ChessPiece.PieceType.ROOK) | queens;
+
+        return (AttackTables.pawnAttacks(ChessPieces.not(byColor), square)
+                & getPieceSet(byColor, ChessPiece.PieceType.PAWN))
+                | (AttackTables.knightAttacks(square) & getPieceSet(byColor, ChessPiece.PieceType.KNIGHT))
+                | (AttackTables.kingAttacks(square) & getPieceSet(byColor, ChessPiece.PieceType.KING))
+                | (AttackTables.bishopAttacks(square, occupancy) & diagonalSliders)
+                | (AttackTables.rookAttacks(square, occupancy) & straightSliders);
     }
 
     private void placePawns() {
         for (int col = 1; col <= 8; col++) {
             ChessPiece whitePawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
             ChessPiece blackPawn = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-            ChessPosition whitePosition = new ChessPosition(2, col);
-            ChessPosition blackPosition = new ChessPosition(7, col);
+            ChessPosition whitePosition = ChessPosition.of(2, col);
+            ChessPosition blackPosition = ChessPosition.of(7, col);
             addPiece(whitePosition, whitePawn);
             addPiece(blackPosition, blackPawn);
         }
@@ -202,10 +381,10 @@ public class ChessBoard {
         ChessPiece whiteKnight2 = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
         ChessPiece blackKnight1 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
         ChessPiece blackKnight2 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        ChessPosition whiteKnightPosition1 = new ChessPosition(1, 2);
-        ChessPosition whiteKnightPosition2 = new ChessPosition(1, 7);
-        ChessPosition blackKnightPosition1 = new ChessPosition(8, 2);
-        ChessPosition blackKnightPosition2 = new ChessPosition(8, 7);
+        ChessPosition whiteKnightPosition1 = ChessPosition.of(1, 2);
+        ChessPosition whiteKnightPosition2 = ChessPosition.of(1, 7);
+        ChessPosition blackKnightPosition1 = ChessPosition.of(8, 2);
+        ChessPosition blackKnightPosition2 = ChessPosition.of(8, 7);
         addPiece(whiteKnightPosition1, whiteKnight1);
         addPiece(whiteKnightPosition2, whiteKnight2);
         addPiece(blackKnightPosition1, blackKnight1);
@@ -217,10 +396,10 @@ public class ChessBoard {
         ChessPiece whiteBishop2 = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
         ChessPiece blackBishop1 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
         ChessPiece blackBishop2 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        ChessPosition whiteBishopPosition1 = new ChessPosition(1, 3);
-        ChessPosition whiteBishopPosition2 = new ChessPosition(1, 6);
-        ChessPosition blackBishopPosition1 = new ChessPosition(8, 3);
-        ChessPosition blackBishopPosition2 = new ChessPosition(8, 6);
+        ChessPosition whiteBishopPosition1 = ChessPosition.of(1, 3);
+        ChessPosition whiteBishopPosition2 = ChessPosition.of(1, 6);
+        ChessPosition blackBishopPosition1 = ChessPosition.of(8, 3);
+        ChessPosition blackBishopPosition2 = ChessPosition.of(8, 6);
         addPiece(whiteBishopPosition1, whiteBishop1);
         addPiece(whiteBishopPosition2, whiteBishop2);
         addPiece(blackBishopPosition1, blackBishop1);
@@ -232,10 +411,10 @@ public class ChessBoard {
         ChessPiece whiteRook2 = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
         ChessPiece blackRook1 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
         ChessPiece blackRook2 = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        ChessPosition whiteRookPosition1 = new ChessPosition(1, 1);
-        ChessPosition whiteRookPosition2 = new ChessPosition(1, 8);
-        ChessPosition blackRookPosition1 = new ChessPosition(8, 1);
-        ChessPosition blackRookPosition2 = new ChessPosition(8, 8);
+        ChessPosition whiteRookPosition1 = ChessPosition.of(1, 1);
+        ChessPosition whiteRookPosition2 = ChessPosition.of(1, 8);
+        ChessPosition blackRookPosition1 = ChessPosition.of(8, 1);
+        ChessPosition blackRookPosition2 = ChessPosition.of(8, 8);
         addPiece(whiteRookPosition1, whiteRook1);
         addPiece(whiteRookPosition2, whiteRook2);
         addPiece(blackRookPosition1, blackRook1);
@@ -247,10 +426,10 @@ public class ChessBoard {
         ChessPiece blackKing = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
         ChessPiece whiteQueen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
         ChessPiece blackQueen = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        ChessPosition whiteKingPosition = new ChessPosition(1, 5);
-        ChessPosition blackKingPosition = new ChessPosition(8, 5);
-        ChessPosition whiteQueenPosition = new ChessPosition(1, 4);
-        ChessPosition blackQueenPosition = new ChessPosition(8, 4);
+        ChessPosition whiteKingPosition = ChessPosition.of(1, 5);
+        ChessPosition blackKingPosition = ChessPosition.of(8, 5);
+        ChessPosition whiteQueenPosition = ChessPosition.of(1, 4);
+        ChessPosition blackQueenPosition = ChessPosition.of(8, 4);
         addPiece(whiteKingPosition, whiteKing);
         addPiece(blackKingPosition, blackKing);
         addPiece(whiteQueenPosition, whiteQueen);
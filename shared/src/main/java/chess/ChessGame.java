@@ -1,22 +1,104 @@
 package chess;
 
+import chess.movementrule.KingMovementRule;
+import chess.movementrule.PawnMovementRule;
+import chess.movementrule.StaticExchange;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
+ * A game is not thread-safe: one thread at a time may play moves on it. Other threads can still follow it through
+ * {@link #getPosition()}, which returns an immutable snapshot published after every move.
+ * <p>
  * Note: You can add to this class, but you may not alter signature of the existing methods.
  */
+@JsonAdapter(ChessGameTypeAdapterFactory.class)
 public class ChessGame {
     private ChessBoard board;
     private TeamColor teamTurn;
     private WinState winState = WinState.IN_PROGRESS;
+    private int castlingRights;
+    private int enPassantSquare = Bitboards.NO_SQUARE;
+    private KeyHistory history;
+    private int fullmoveNumber = 1;
+    // Setting up a position only keeps its snapshot; the FEN is written from it the first time it is asked for
+    private String startFen;
+    private transient Position startPosition;
+    private transient int startHalfmoveClock;
+    private transient int startFullmoveNumber;
+    private transient boolean startPending;
+    private transient LegalMoveMasks legalMoveMasks;
+    private transient GameStatus status;
+    private transient ChessBoard statusBoard;
+    private transient int statusBoardVersion;
+    private transient MoveList scratchMoves;
+    private transient UndoStack undoStack;
+    private transient volatile Position position;
 
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
         teamTurn = TeamColor.WHITE;
+        castlingRights = CastlingRights.ALL;
+        history = new KeyHistory(getZobristKey());
+        publishPosition();
+    }
+
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this(board, teamTurn, CastlingRights.fromBoard(board), Bitboards.NO_SQUARE);
+    }
+
+    /**
+     * @param castlingRights  the {@link CastlingRights} flags.
+     * @param enPassantSquare the square a pawn passed over with a double move on the last move, if a pawn of the team
+     *                        to move can capture it there, or {@link Bitboards#NO_SQUARE}.
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantSquare) {
+        this(board, teamTurn, castlingRights, enPassantSquare, 0, 1);
+    }
+
+    /**
+     * @param halfmoveClock  the number of moves since the last capture or pawn move.
+     * @param fullmoveNumber the number of the current full move, starting at 1.
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantSquare, int halfmoveClock,
+            int fullmoveNumber) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.fullmoveNumber = fullmoveNumber;
+        markCastlingPieces();
+        history = new KeyHistory(getZobristKey());
+        startHistory(halfmoveClock);
+        publishPosition();
+    }
+
+    private ChessGame(ChessGame other) {
+        board = other.board.copy();
+        teamTurn = other.teamTurn;
+        winState = other.winState;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        history = other.history.copy();
+        fullmoveNumber = other.fullmoveNumber;
+        startFen = other.startFen;
+        startPosition = other.startPosition;
+        startHalfmoveClock = other.startHalfmoveClock;
+        startFullmoveNumber = other.startFullmoveNumber;
+        publishPosition();
+    }
+
+    /**
+     * @return a copy of this game that can be played independently of it.
+     */
+    public ChessGame copy() {
+        return new ChessGame(this);
     }
 
     /**
@@ -32,7 +114,132 @@ public class ChessGame {
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
-        teamTurn = team;
+        if (team != teamTurn) {
+            enPassantSquare = Bitboards.NO_SQUARE;
+            teamTurn = team;
+            startHistory(0);
+        }
+        publishPosition();
+    }
+
+    /**
+     * @return the {@link CastlingRights} flags of the current position.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square the last move's double-moving pawn passed over, if the team to move has a pawn that can
+     * capture it en passant, or {@link Bitboards#NO_SQUARE} otherwise.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move.
+     */
+    public int getHalfmoveClock() {
+        return history.halfmoveClock();
+    }
+
+    /**
+     * @return the number of the current full move, which starts at 1 and goes up after each move by Black.
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the position this game's {@link #getMoveHistory() move history} starts from, in Forsyth-Edwards
+     * Notation. This is the usual starting position unless the game was set up with a different board or turn.
+     */
+    public String getStartFen() {
+        if (startFen == null && startPosition != null) {
+            startFen = Fen.write(new ChessGame(startPosition.toBoard(), startPosition.getTeamToMove(),
+                    startPosition.getCastlingRights(), startPosition.getEnPassantSquare(), startHalfmoveClock,
+                    startFullmoveNumber));
+            startPosition = null;
+        }
+        return startFen == null ? Fen.START : startFen;
+    }
+
+    /**
+     * @return the moves played since the game started or was last set up, in order.
+     */
+    public List<ChessMove> getMoveHistory() {
+        List<ChessMove> moves = new ArrayList<>(history.moveCount());
+        for (int index = 0; index < history.moveCount(); index++) {
+            moves.add(Moves.toChessMove(history.move(index)));
+        }
+        return moves;
+    }
+
+    /**
+     * Starts a new history at the current position, for a game set up directly rather than played.
+     */
+    private void startHistory(int halfmoveClock) {
+        history.reset(getZobristKey(), halfmoveClock);
+        // The snapshot publishPosition() takes next becomes the start position
+        startFen = null;
+        startPosition = null;
+        startHalfmoveClock = halfmoveClock;
+        startFullmoveNumber = fullmoveNumber;
+        startPending = true;
+    }
+
+    /**
+     * Reads a game from Forsyth-Edwards Notation (see {@link Fen#read(CharSequence)}).
+     *
+     * @param fen the FEN text, e.g. {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+     * @return a new ChessGame in the given position.
+     * @throws IllegalArgumentException if the text is not valid FEN.
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.read(fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation, which {@link #fromFen(String)} reads back.
+     */
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    /**
+     * Checks whether the current position, with the same team to move, castling rights and en passant square, has
+     * occurred before in this game. Only positions since the last capture or pawn move need to be compared, so this
+     * takes time proportional to {@link #getHalfmoveClock()}.
+     *
+     * @return true if the current position is a repetition.
+     */
+    public boolean isRepetition() {
+        return history.occurrences() > 1;
+    }
+
+    /**
+     * @return true if neither team has the pieces to checkmate: only kings remain, plus at most one knight or
+     * bishop, or any number of bishops that all stand on the same color of square.
+     */
+    public boolean hasInsufficientMaterial() {
+        long heavyPiecesAndPawns = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : TeamColor.values()) {
+            heavyPiecesAndPawns |= board.getPieceSet(color, ChessPiece.PieceType.QUEEN) |
+                    board.getPieceSet(color, ChessPiece.PieceType.ROOK) |
+                    board.getPieceSet(color, ChessPiece.PieceType.PAWN);
+            knights |= board.getPieceSet(color, ChessPiece.PieceType.KNIGHT);
+            bishops |= board.getPieceSet(color, ChessPiece.PieceType.BISHOP);
+        }
+        if (heavyPiecesAndPawns != 0) {
+            return false;
+        }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
     }
 
     public void resign(TeamColor color) {
@@ -43,8 +250,12 @@ public class ChessGame {
         return winState;
     }
 
+    /**
+     * A stalemate leaves no legal moves anyway, so it is left out here so that a board set up without one of the kings
+     * can still be played on.
+     */
     private boolean isGameOver() {
-        return getWinState() == WinState.WHITE_WIN || getWinState() == WinState.BLACK_WIN;
+        return getWinState() != WinState.IN_PROGRESS && getWinState() != WinState.STALEMATE;
     }
 
     /**
@@ -54,17 +265,60 @@ public class ChessGame {
      * @return Set of valid moves for requested piece, or null if no piece at startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        Collection<ChessMove> validMoves = new HashSet<>();
-
         ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, startPosition);
-        for (ChessMove move : potentialMoves) {
-            if (!wouldLeaveInCheck(move)) {
-                validMoves.add(move);
+        if (piece == null) {
+            return null;
+        }
+        MoveList moves = new MoveList(32);
+        generateValidMoves(Bitboards.square(startPosition), piece, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Adds every legal move of the team whose turn it is to the given list, as packed moves (see {@link Moves}).
+     *
+     * @param moves the list to add the moves to. It is not cleared first.
+     */
+    public void generateLegalMoves(MoveList moves) {
+        generateLegalMoves(teamTurn, moves);
+    }
+
+    private void generateLegalMoves(TeamColor color, MoveList moves) {
+        for (long team = board.getTeamSet(color); team != 0; team = Bitboards.withoutFirstSquare(team)) {
+            int square = Bitboards.firstSquare(team);
+            generateValidMoves(square, board.getPiece(square), moves);
+        }
+    }
+
+    private void generateValidMoves(int square, ChessPiece piece, MoveList moves) {
+        LegalMoveMasks masks = getLegalMoveMasks(piece.getTeamColor());
+        piece.generateMoves(board, square, masks.allowedTargets(square), moves);
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && castlingRights != CastlingRights.NONE) {
+            KingMovementRule.generateCastlingMoves(board, square, castlingRights, moves);
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN && enPassantSquare != Bitboards.NO_SQUARE &&
+                piece.getTeamColor() == teamTurn) {
+            int sizeBefore = moves.size();
+            PawnMovementRule.generateEnPassantMove(board, square, enPassantSquare, moves);
+            if (moves.size() > sizeBefore && !masks.allowsEnPassant(moves.get(sizeBefore))) {
+                moves.removeLast();
             }
         }
+    }
 
-        return validMoves;
+    private MoveList scratchMoves() {
+        if (scratchMoves == null) {
+            scratchMoves = new MoveList();
+        }
+        scratchMoves.clear();
+        return scratchMoves;
+    }
+
+    private LegalMoveMasks getLegalMoveMasks(TeamColor color) {
+        if (legalMoveMasks == null || !legalMoveMasks.isCurrentFor(board, color)) {
+            legalMoveMasks = new LegalMoveMasks(board, color);
+        }
+        return legalMoveMasks;
     }
 
     /**
@@ -84,7 +338,8 @@ public class ChessGame {
             throw new InvalidMoveException("Called makeMove() on the opponent's turn");
         }
 
-        if (!validMoves(startPosition).contains(move)) {
+        int packedMove = findLegalMove(move);
+        if (packedMove == -1) {
             throw new InvalidMoveException("Called makeMove() on an invalid move");
         }
 
@@ -92,13 +347,146 @@ public class ChessGame {
             throw new InvalidMoveException("Called makeMove() after the game is over");
         }
 
-        board.forceApplyMove(move);
+        applyMove(packedMove);
+        updateGameOver();
+        publishPosition();
+    }
+
+    /**
+     * Finds the packed form (see {@link Moves}) of a legal move, which also tells whether it is a capture, castling or
+     * en passant.
+     *
+     * @param move a move for the team whose turn it is.
+     * @return the packed legal move with the given move's start, end and promotion piece, or -1 if it is not legal.
+     */
+    public int findLegalMove(ChessMove move) {
+        int square = Bitboards.square(move.getStartPosition());
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null || piece.getTeamColor() != teamTurn) {
+            return -1;
+        }
+        MoveList moves = scratchMoves();
+        generateValidMoves(square, piece, moves);
+
+        int wanted = Moves.encode(move);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Moves.sameMove(moves.get(i), wanted)) {
+                return moves.get(i);
+            }
+        }
+        return -1;
+    }
 
-        ChessPiece piece = board.getPiece(move.getEndPosition());
-        piece.markAsHavingMoved();
-        promoteIfValid(move.getEndPosition(), move.getPromotionPiece());
-        changeTeamTurn();
+    /**
+     * Works out what a move wins or loses in material once both teams have made every capture on its end square that
+     * pays them, without making any moves (see {@link StaticExchange}).
+     *
+     * @param move a legal move for the team whose turn it is.
+     * @return the material the team to move gains, in centipawns, which is negative if the move loses material.
+     * @throws IllegalArgumentException if the move is not legal.
+     */
+    public int staticExchange(ChessMove move) {
+        int packedMove = findLegalMove(move);
+        if (packedMove == -1) {
+            throw new IllegalArgumentException("Called staticExchange() on an invalid move: " + move);
+        }
+        return StaticExchange.evaluate(board, packedMove);
+    }
+
+    /**
+     * Works out the win state and publishes the position after moves played with {@link #applyMove(int)}, e.g. once a
+     * recorded game has been replayed, so that it can be played on with {@link #makeMove(ChessMove)}.
+     */
+    public void refreshStatus() {
         updateGameOver();
+        publishPosition();
+    }
+
+    /**
+     * Plays a move without checking it or updating the win state, for move generation and search. It can be taken back
+     * with {@link #undoMove()}.
+     *
+     * @param move a legal packed move (see {@link Moves}) for the team whose turn it is, such as one from
+     *             {@link #generateLegalMoves(MoveList)}.
+     */
+    public void applyMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int capturedSquare = Moves.capturedSquare(move);
+        ChessPiece piece = board.getPiece(from);
+        ChessPiece capturedPiece = board.getPiece(capturedSquare);
+        undoStack().push(move, piece, capturedPiece, castlingRights, enPassantSquare, history.halfmoveClock(),
+                winState);
+
+        if (capturedSquare != to) {
+            board.setPiece(capturedSquare, null);
+        }
+        ChessPiece.PieceType promotionPiece = Moves.promotionPiece(move);
+        board.setPiece(from, null);
+        board.setPiece(to, promotionPiece == null ? piece : ChessPieces.promote(piece, promotionPiece));
+        if (Moves.hasFlag(move, Moves.CASTLING)) {
+            int rookStart = CastlingRights.rookStartSquare(to);
+            board.setPiece(CastlingRights.rookEndSquare(to), board.getPiece(rookStart));
+            board.setPiece(rookStart, null);
+        }
+
+        int rights = CastlingRights.afterMove(castlingRights, from, to);
+        if (rights != castlingRights) {
+            castlingRights = rights;
+            markCastlingPieces();
+        }
+        enPassantSquare = Bitboards.NO_SQUARE;
+        if (Moves.hasFlag(move, Moves.DOUBLE_PAWN_PUSH)) {
+            long enemyPawns = board.getPieceSet(ChessPieces.not(teamTurn), ChessPiece.PieceType.PAWN);
+            enPassantSquare = PawnMovementRule.enPassantSquareAfter(from, to, teamTurn, enemyPawns);
+        }
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        changeTeamTurn();
+        history.push(getZobristKey(), move, capturedPiece != null || piece.getPieceType() == ChessPiece.PieceType.PAWN);
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #applyMove(int)} or {@link #makeMove(ChessMove)}, restoring the
+     * board, the turn, the castling and en passant state, the position history and the win state to what they were
+     * before it.
+     *
+     * @throws IllegalStateException if there is no move to take back.
+     */
+    public void undoMove() {
+        UndoStack stack = undoStack();
+        int index = stack.pop();
+        int move = stack.move(index);
+        int to = Moves.to(move);
+
+        if (Moves.hasFlag(move, Moves.CASTLING)) {
+            int rookEnd = CastlingRights.rookEndSquare(to);
+            board.setPiece(CastlingRights.rookStartSquare(to), board.getPiece(rookEnd));
+            board.setPiece(rookEnd, null);
+        }
+        board.setPiece(to, null);
+        board.setPiece(Moves.capturedSquare(move), stack.capturedPiece(index));
+        board.setPiece(Moves.from(move), stack.movedPiece(index));
+
+        if (stack.castlingRights(index) != castlingRights) {
+            castlingRights = stack.castlingRights(index);
+            markCastlingPieces();
+        }
+        enPassantSquare = stack.enPassantSquare(index);
+        history.pop(stack.halfmoveClock(index));
+        changeTeamTurn();
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        winState = stack.winState(index);
+    }
+
+    private UndoStack undoStack() {
+        if (undoStack == null) {
+            undoStack = new UndoStack();
+        }
+        return undoStack;
     }
 
     /**
@@ -108,12 +496,12 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        if (!board.containsKing(teamColor)) {
+        long kings = board.getPieceSet(teamColor, ChessPiece.PieceType.KING);
+        if (kings == 0) {
             return false;
         }
 
-        ChessPosition kingPosition = board.getKingPosition(teamColor);
-        return isPositionUnderAttackFrom(kingPosition, ChessPieces.not(teamColor));
+        return board.isSquareAttacked(Bitboards.firstSquare(kings), ChessPieces.not(teamColor));
     }
 
     /**
@@ -123,24 +511,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        // TODO optimize?
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-
-        ChessPosition kingPosition = board.getKingPosition(teamColor);
-        if (canEscapeCheckWithPiece(kingPosition)) {
-            return false;
-        }
-
-        Collection<ChessPosition> teamPositions = board.getTeamPieces(teamColor);
-        for (ChessPosition teammatePosition : teamPositions) {
-            if (canEscapeCheckWithPiece(teammatePosition)) {
-                return false;
-            }
+        if (teamColor == teamTurn) {
+            return getStatus().isCheckmate();
         }
-
-        return true;
+        return getLegalMoveMasks(teamColor).isInCheck() && !hasValidMove(teamColor);
     }
 
     /**
@@ -150,43 +524,101 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        for (ChessPosition position : board.getTeamPieces(teamColor)) {
-            if (!validMoves(position).isEmpty()) {
-                return false;
-            }
+        if (teamColor == teamTurn) {
+            return getStatus().isStalemate();
         }
-        return true;
+        return !getLegalMoveMasks(teamColor).isInCheck() && !hasValidMove(teamColor);
     }
 
-    private boolean wouldLeaveInCheck(ChessMove move) {
-        TeamColor color = board.getPiece(move.getStartPosition()).getTeamColor();
-        ChessPiece capturedPiece = board.forceApplyMove(move);
-        boolean result = isInCheck(color);
-        board.forceRestoreFromMove(move, capturedPiece);
-        return result;
+    /**
+     * Gets the check, checkmate and stalemate status of the team whose turn it is. This is computed with a single pass
+     * over that team's moves and reused until the board or the turn changes.
+     *
+     * @return the status of the current position
+     */
+    public GameStatus getStatus() {
+        if (status == null || statusBoard != board || statusBoardVersion != board.version() ||
+                status.teamToMove() != teamTurn) {
+            MoveList moves = scratchMoves();
+            generateLegalMoves(teamTurn, moves);
+            status = new GameStatus(teamTurn, getLegalMoveMasks(teamTurn).isInCheck(), moves.size());
+            statusBoard = board;
+            statusBoardVersion = board.version();
+        }
+        return status;
     }
 
-    private boolean isPositionUnderAttackFrom(ChessPosition position, TeamColor attackColor) {
-        // TODO Implement caching?
+    private boolean hasValidMove(TeamColor teamColor) {
+        MoveList moves = scratchMoves();
+        generateLegalMoves(teamColor, moves);
+        return !moves.isEmpty();
+    }
 
-        for (ChessPosition attackPosition : board.getTeamPieces(attackColor)) {
+    /**
+     * Gets a 64-bit key identifying the current position: the pieces on the board, the team to move, the castling
+     * rights and the en passant square. Equal positions have equal keys, and unequal positions almost always have
+     * different ones.
+     *
+     * @return the Zobrist key of the current position
+     */
+    public long getZobristKey() {
+        return board.getZobristKey() ^ Zobrist.teamToMoveKey(teamTurn) ^ Zobrist.castlingKey(castlingRights) ^
+                Zobrist.enPassantKey(enPassantSquare);
+    }
 
-            ChessPiece attacker = board.getPiece(attackPosition);
-            Collection<ChessMove> attackerMoves = attacker.pieceMoves(board, attackPosition);
-            ChessMove attackMove = new ChessMove(attackPosition, position);
+    /**
+     * Gets an immutable snapshot of the current position, which any thread may read without locking. It is published
+     * when the game is created and after every {@link #makeMove(ChessMove)}, {@link #setBoard(ChessBoard)} and
+     * {@link #setTeamTurn(TeamColor)}. Moves applied with {@link #applyMove(int)}, for example during a search, and
+     * changes made directly to the board are not published.
+     *
+     * @return the position as of the last published change.
+     */
+    public Position getPosition() {
+        return position;
+    }
 
-            for (ChessMove validAttackerMove : attackerMoves) {
-                if (attackMove.equalsIgnorePromotion(validAttackerMove)) {
-                    return true;
-                }
-            }
+    void publishPosition() {
+        position = Position.of(this);
+        if (startPending) {
+            startPosition = position;
+            startPending = false;
+        }
+    }
 
+    /**
+     * Starts the position history over if it does not end with the current position, e.g. for a game read from JSON
+     * written before the history was kept.
+     */
+    void resetHistoryIfStale() {
+        if (history == null || !history.endsWith(getZobristKey())) {
+            history = new KeyHistory(getZobristKey());
+            startHistory(0);
         }
+    }
 
-        return false;
+    /**
+     * Derives the castling rights from the pieces' never-moved flags, for a game read from JSON written before the
+     * rights were kept, when play still updated the flags.
+     */
+    void deriveCastlingRights() {
+        castlingRights = CastlingRights.fromBoard(board);
+    }
+
+    /**
+     * Sets the never-moved flags of the kings and rooks to whether any castling rights still depend on them, so that
+     * {@link CastlingRights#fromBoard(ChessBoard)} gives this game's rights back for its board, e.g. when it is handed
+     * to another game. Called whenever the rights change, which only a move of or onto one of these pieces does.
+     */
+    void markCastlingPieces() {
+        for (TeamColor color : TeamColor.values()) {
+            long pieces = board.getPieceSet(color, ChessPiece.PieceType.KING) |
+                    board.getPieceSet(color, ChessPiece.PieceType.ROOK);
+            for (; pieces != 0; pieces = Bitboards.withoutFirstSquare(pieces)) {
+                int square = Bitboards.firstSquare(pieces);
+                board.getPiece(square).setHasNeverMoved((castlingRights & CastlingRights.dependingOn(square)) != 0);
+            }
+        }
     }
 
     /**
@@ -205,6 +637,11 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        castlingRights = CastlingRights.fromBoard(board);
+        markCastlingPieces();
+        enPassantSquare = Bitboards.NO_SQUARE;
+        startHistory(0);
+        publishPosition();
     }
 
     public void changeTeamTurn() {
@@ -215,43 +652,20 @@ public class ChessGame {
         if (isGameOver()) {
             return;
         }
-        if (isInCheckmate(TeamColor.WHITE)) {
-            winState = WinState.BLACK_WIN;
-        } else if (isInCheckmate(TeamColor.BLACK)) {
-            winState = WinState.WHITE_WIN;
-        } else if (isInStalemate(TeamColor.WHITE) || isInStalemate(TeamColor.BLACK)) {
+        GameStatus currentStatus = getStatus();
+        if (currentStatus.isCheckmate()) {
+            winState = (teamTurn == TeamColor.WHITE) ? WinState.BLACK_WIN : WinState.WHITE_WIN;
+        } else if (currentStatus.isStalemate()) {
             winState = WinState.STALEMATE;
+        } else if (hasInsufficientMaterial()) {
+            winState = WinState.DRAW_BY_INSUFFICIENT_MATERIAL;
+        } else if (history.halfmoveClock() >= 100) {
+            winState = WinState.DRAW_BY_FIFTY_MOVE_RULE;
+        } else if (history.occurrences() >= 3) {
+            winState = WinState.DRAW_BY_REPETITION;
         }
     }
 
-    private void promoteIfValid(ChessPosition position, ChessPiece.PieceType promotionPiece)
-            throws InvalidMoveException {
-        if (!board.hasPieceAt(position)) {
-            throw new IllegalArgumentException("Tried to promote an empty space");
-        }
-        ChessPiece piece = board.getPiece(position);
-
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && promotionPiece != null) {
-            if (ChessPieces.isValidPromotionPiece(promotionPiece)) {
-                ChessPiece newPiece = ChessPieces.promote(piece, promotionPiece);
-                board.removePiece(position);
-                board.addPiece(position, newPiece);
-            } else {
-                throw new InvalidMoveException("Tried to promote to an invalid type: " + promotionPiece);
-            }
-        }
-    }
-
-    private boolean canEscapeCheckWithPiece(ChessPosition position) {
-        ChessPiece piece = board.getPiece(position);
-        for (ChessMove potentialMove : piece.pieceMoves(board, position)) {
-            if (!wouldLeaveInCheck(potentialMove)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -0,0 +1,55 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes ChessGames with Gson's usual field-by-field adapter. Gson fills in the fields after the
+ * constructor has run, so after reading, this rebuilds the board's bitboards, Zobrist key and piece-square sums from
+ * its pieces, as none of them are written, republishes the game's position snapshot from the fields it read and
+ * starts a new position history if the JSON did not have a matching one. Before writing, it has the game work out
+ * its start FEN, which a game only does when asked.
+ * <p>
+ * JSON written before games kept their castling rights has none, and Gson would leave the constructor's
+ * {@link CastlingRights#ALL}, so the rights are then derived from the pieces' never-moved flags, which play still
+ * updated when it was written.
+ */
+final class ChessGameTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        TypeAdapter<JsonElement> treeAdapter = gson.getAdapter(JsonElement.class);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                if (value instanceof ChessGame game) {
+                    game.getStartFen();
+                }
+                delegate.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                JsonElement tree = treeAdapter.read(in);
+                T value = delegate.fromJsonTree(tree);
+                if (value instanceof ChessGame game) {
+                    game.getBoard().rebuildFromPieces();
+                    if (!tree.getAsJsonObject().has("castlingRights")) {
+                        game.deriveCastlingRights();
+                    }
+                    game.markCastlingPieces();
+                    game.resetHistoryIfStale();
+                    game.publishPosition();
+                }
+                return value;
+            }
+        };
+    }
+}
@@ -13,6 +13,13 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    private static final MovementRule KING_RULE = new KingMovementRule();
+    private static final MovementRule QUEEN_RULE = new QueenMovementRule();
+    private static final MovementRule BISHOP_RULE = new BishopMovementRule();
+    private static final MovementRule KNIGHT_RULE = new KnightMovementRule();
+    private static final MovementRule ROOK_RULE = new RookMovementRule();
+    private static final MovementRule PAWN_RULE = new PawnMovementRule();
+
     private final PieceType type;
     private final ChessGame.TeamColor color;
     private boolean hasNeverMoved;
@@ -45,6 +52,10 @@ public class ChessPiece {
         return ChessPieces.fromType(getPieceType(), getTeamColor(), hasNeverMoved());
     }
 
+    /**
+     * Clears the flag read by {@link CastlingRights#fromBoard(ChessBoard)}. A game keeps the flags of its kings and rooks
+     * in step with its castling rights itself, so this is only for setting up a board to hand to a game.
+     */
     public void markAsHavingMoved() {
         hasNeverMoved = false;
     }
@@ -53,6 +64,10 @@ public class ChessPiece {
         return hasNeverMoved;
     }
 
+    void setHasNeverMoved(boolean hasNeverMoved) {
+        this.hasNeverMoved = hasNeverMoved;
+    }
+
     /**
      * Calculates all the positions a chess piece can move to
      * Does not take into account moves that are illegal due to leaving the king in
@@ -61,13 +76,31 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        return switch (board.getPiece(myPosition).getPieceType()) {
-            case KING -> new KingMovementRule().pieceMoves(board, myPosition);
-            case QUEEN -> new QueenMovementRule().pieceMoves(board, myPosition);
-            case BISHOP -> new BishopMovementRule().pieceMoves(board, myPosition);
-            case KNIGHT -> new KnightMovementRule().pieceMoves(board, myPosition);
-            case ROOK -> new RookMovementRule().pieceMoves(board, myPosition);
-            case PAWN -> new PawnMovementRule().pieceMoves(board, myPosition);
+        return movementRule(board.getPiece(myPosition).getPieceType()).pieceMoves(board, myPosition);
+    }
+
+    /**
+     * Adds the moves this piece can make from the given square to the given list, as packed moves (see
+     * {@link Moves}). Does not take into account moves that are illegal due to leaving the king in danger, except
+     * through {@code allowedTargets}.
+     *
+     * @param board          the current ChessBoard.
+     * @param square         the square index this piece is on.
+     * @param allowedTargets the set of squares moves may end on.
+     * @param moves          the list to add the moves to.
+     */
+    public void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves) {
+        movementRule(type).generateMoves(board, square, allowedTargets, moves);
+    }
+
+    private static MovementRule movementRule(PieceType type) {
+        return switch (type) {
+            case KING -> KING_RULE;
+            case QUEEN -> QUEEN_RULE;
+            case BISHOP -> BISHOP_RULE;
+            case KNIGHT -> KNIGHT_RULE;
+            case ROOK -> ROOK_RULE;
+            case PAWN -> PAWN_RULE;
         };
     }
 
@@ -85,7 +118,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, color, hasNeverMoved);
+        return Objects.hash(type, color);
     }
 
     /**
@@ -1,13 +1,23 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
+ * The 64 positions on the board are created once and shared: prefer {@link #of(int, int)} and {@link #ofIndex(int)}
+ * to the constructor. Positions from the constructor or from JSON are still equal to the shared ones, so compare
+ * positions with {@code equals()}, not {@code ==}.
+ * <p>
  * Note: You can add to this class, but you may not alter signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int index = 0; index < 64; index++) {
+            POSITIONS[index] = new ChessPosition((index >>> 3) + 1, (index & 7) + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -16,6 +26,38 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared position at the given row and column. Callers that may be off the board should check
+     * {@link #isOnBoard(int, int)} first, or use the constructor for a position off the board.
+     *
+     * @return the position at the given (1-indexed) row and column.
+     * @throws IllegalArgumentException if the row or column is off the board.
+     */
+    public static ChessPosition of(int row, int col) {
+        if (!isOnBoard(row, col)) {
+            throw new IllegalArgumentException(String.format("Called of() off the board: row %d, column %d", row, col));
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared position with the given square index (see {@link #index()}).
+     */
+    public static ChessPosition ofIndex(int index) {
+        return POSITIONS[index];
+    }
+
+    public static boolean isOnBoard(int row, int col) {
+        return 0 < col && col < 9 && 0 < row && row < 9;
+    }
+
+    /**
+     * @return this position's square index, {@code (row - 1) * 8 + (col - 1)}: a1 is 0, h1 is 7 and h8 is 63. Only
+     * meaningful for positions on the board.
+     */
+    public int index() {
+        return (row - 1) * 8 + (col - 1);
+    }
 
     /**
      * @return which row this position is in (1 codes for the bottom row).
@@ -45,7 +87,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return index();
     }
 
     @Override
@@ -62,6 +104,6 @@ public class ChessPosition {
     }
 
     public boolean isValidPosition() {
-        return 0 < col && col < 9 && 0 < row && row < 9;
+        return isOnBoard(row, col);
     }
 }
@@ -0,0 +1,242 @@
+package chess;
+
+import chess.movementrule.AttackTables;
+
+/**
+ * Reads and writes chess positions in Forsyth-Edwards Notation (FEN), e.g. the starting position
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ */
+public final class Fen {
+    /**
+     * The usual starting position.
+     */
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private Fen() {
+    }
+
+    private static final String PIECE_SYMBOLS = "KQBNRPkqbnrp";
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    /**
+     * Reads a position from FEN. The piece placement field is required; the team to move defaults to White, the
+     * castling rights to none, the halfmove clock to 0 and the fullmove number to 1. An en passant square is kept only
+     * if a pawn of the team to move can capture there, and a pawn of the other team stands just past it, with the
+     * square it passed over and the one it started from empty.
+     *
+     * @param fen the FEN text.
+     * @return a new ChessGame in the given position.
+     * @throws IllegalArgumentException if the text is not valid FEN, including if a row of the piece placement does
+     *                                  not add up to 8 squares or a team does not have exactly one king.
+     */
+    public static ChessGame read(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int index = readPlacement(fen, board);
+
+        ChessGame.TeamColor teamTurn = ChessGame.TeamColor.WHITE;
+        index = skipSpaces(fen, index);
+        if (index < fen.length()) {
+            teamTurn = switch (fen.charAt(index)) {
+                case 'w' -> ChessGame.TeamColor.WHITE;
+                case 'b' -> ChessGame.TeamColor.BLACK;
+                default -> throw invalid(fen, "unknown team to move");
+            };
+            index++;
+        }
+
+        int castlingRights = CastlingRights.NONE;
+        index = skipSpaces(fen, index);
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            castlingRights |= switch (fen.charAt(index)) {
+                case 'K' -> CastlingRights.WHITE_KINGSIDE;
+                case 'Q' -> CastlingRights.WHITE_QUEENSIDE;
+                case 'k' -> CastlingRights.BLACK_KINGSIDE;
+                case 'q' -> CastlingRights.BLACK_QUEENSIDE;
+                case '-' -> CastlingRights.NONE;
+                default -> throw invalid(fen, "unknown castling right");
+            };
+        }
+        castlingRights &= CastlingRights.fromBoard(board);
+
+        int enPassantSquare = Bitboards.NO_SQUARE;
+        index = skipSpaces(fen, index);
+        if (index < fen.length() && fen.charAt(index) != '-') {
+            enPassantSquare = readEnPassantSquare(fen, index, board, teamTurn);
+        }
+        index = skipField(fen, index);
+
+        index = skipSpaces(fen, index);
+        int halfmoveClock = index < fen.length() ? readNumber(fen, index) : 0;
+        index = skipSpaces(fen, skipField(fen, index));
+        int fullmoveNumber = index < fen.length() ? readNumber(fen, index) : 1;
+        if (fullmoveNumber < 1) {
+            throw invalid(fen, "fullmove number must be at least 1");
+        }
+
+        return new ChessGame(board, teamTurn, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Writes the game's current position as FEN, including its castling rights, en passant square and clocks. The en
+     * passant square is only written when a pawn can capture there (see {@link ChessGame#getEnPassantSquare()}).
+     *
+     * @param game the game to write.
+     * @return the FEN text.
+     */
+    public static String write(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 8; row >= 1; row--) {
+            int emptySquares = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0) {
+                    fen.append(emptySquares);
+                    emptySquares = 0;
+                }
+                fen.append(PIECE_SYMBOLS.charAt(Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())));
+            }
+            if (emptySquares > 0) {
+                fen.append(emptySquares);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int castlingRights = game.getCastlingRights();
+        if (castlingRights == CastlingRights.NONE) {
+            fen.append('-');
+        }
+        appendIf(fen, castlingRights, CastlingRights.WHITE_KINGSIDE, 'K');
+        appendIf(fen, castlingRights, CastlingRights.WHITE_QUEENSIDE, 'Q');
+        appendIf(fen, castlingRights, CastlingRights.BLACK_KINGSIDE, 'k');
+        appendIf(fen, castlingRights, CastlingRights.BLACK_QUEENSIDE, 'q');
+
+        fen.append(' ');
+        int enPassantSquare = game.getEnPassantSquare();
+        if (enPassantSquare == Bitboards.NO_SQUARE) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + Bitboards.column(enPassantSquare) - 1)).append(Bitboards.row(enPassantSquare));
+        }
+        return fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber())
+                .toString();
+    }
+
+    private static int readPlacement(CharSequence fen, ChessBoard board) {
+        int row = 8;
+        int col = 1;
+        int index = skipSpaces(fen, 0);
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            char c = fen.charAt(index);
+            if (c == '/') {
+                requireFullRow(fen, col);
+                row--;
+                col = 1;
+            } else if ('1' <= c && c <= '8') {
+                col += c - '0';
+            } else {
+                if (row < 1 || col > 8) {
+                    throw invalid(fen, "piece placement runs off the board");
+                }
+                board.addPiece(ChessPosition.of(row, col), pieceFromSymbol(fen, c));
+                col++;
+            }
+        }
+        if (row != 1) {
+            throw invalid(fen, "piece placement must have 8 rows");
+        }
+        requireFullRow(fen, col);
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            if (Long.bitCount(board.getPieceSet(color, ChessPiece.PieceType.KING)) != 1) {
+                throw invalid(fen, "each team must have exactly one king");
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param col the column after the last square of a row.
+     */
+    private static void requireFullRow(CharSequence fen, int col) {
+        if (col != 9) {
+            throw invalid(fen, "each row of the piece placement must have 8 squares");
+        }
+    }
+
+    private static ChessPiece pieceFromSymbol(CharSequence fen, char symbol) {
+        int pieceIndex = PIECE_SYMBOLS.indexOf(symbol);
+        if (pieceIndex < 0) {
+            throw invalid(fen, "unknown piece '" + symbol + "'");
+        }
+        ChessGame.TeamColor color = pieceIndex < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new ChessPiece(color, PIECE_TYPES[pieceIndex % 6]);
+    }
+
+    private static int readEnPassantSquare(CharSequence fen, int index, ChessBoard board,
+            ChessGame.TeamColor teamTurn) {
+        if (index + 1 >= fen.length()) {
+            throw invalid(fen, "en passant square must be '-' or a square such as e3");
+        }
+        int col = fen.charAt(index) - 'a' + 1;
+        int row = fen.charAt(index + 1) - '0';
+        if (!ChessPosition.isOnBoard(row, col) || row != (teamTurn == ChessGame.TeamColor.WHITE ? 6 : 3)) {
+            throw invalid(fen, "en passant square must be '-' or a square such as e3");
+        }
+
+        // The pawn that moved two squares must stand just past the square, and the squares it left must be empty
+        int square = Bitboards.square(row, col);
+        int forward = teamTurn == ChessGame.TeamColor.WHITE ? 8 : -8;
+        long passedOver = Bitboards.bit(square) | Bitboards.bit(square + forward);
+        long movedPawn = Bitboards.bit(square - forward);
+        if ((board.getOccupancy() & passedOver) != 0 ||
+                (board.getPieceSet(ChessPieces.not(teamTurn), ChessPiece.PieceType.PAWN) & movedPawn) == 0) {
+            return Bitboards.NO_SQUARE;
+        }
+        long capturingPawns = board.getPieceSet(teamTurn, ChessPiece.PieceType.PAWN);
+        return (AttackTables.pawnAttacks(ChessPieces.not(teamTurn), square) & capturingPawns) != 0 ? square
+                : Bitboards.NO_SQUARE;
+    }
+
+    private static int readNumber(CharSequence fen, int index) {
+        int number = 0;
+        int end = skipField(fen, index);
+        for (; index < end; index++) {
+            char c = fen.charAt(index);
+            if (c < '0' || c > '9' || number > 100_000) {
+                throw invalid(fen, "clock fields must be small whole numbers");
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static void appendIf(StringBuilder fen, int castlingRights, int right, char symbol) {
+        if ((castlingRights & right) != 0) {
+            fen.append(symbol);
+        }
+    }
+
+    private static int skipField(CharSequence fen, int index) {
+        while (index < fen.length() && fen.charAt(index) != ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipSpaces(CharSequence fen, int index) {
+        while (index < fen.length() && fen.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException(String.format("Invalid FEN '%s': %s", fen, reason));
+    }
+}
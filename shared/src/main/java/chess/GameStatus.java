@@ -0,0 +1,18 @@
+package chess;
+
+/**
+ * A summary of a position from the point of view of the team whose turn it is.
+ *
+ * @param teamToMove     the team whose turn it is.
+ * @param inCheck        whether the team to move is in check.
+ * @param legalMoveCount the number of legal moves the team to move has.
+ */
+public record GameStatus(ChessGame.TeamColor teamToMove, boolean inCheck, int legalMoveCount) {
+    public boolean isCheckmate() {
+        return inCheck && legalMoveCount == 0;
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && legalMoveCount == 0;
+    }
+}
@@ -0,0 +1,179 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The Zobrist keys of the positions a game has passed through, with the current position last, the packed moves (see
+ * {@link Moves}) between them, and the halfmove clock: the number of moves since the last capture or pawn move.
+ * <p>
+ * No position before a capture or pawn move can come up again, so repetitions are only looked for among the last
+ * {@code halfmoveClock} keys, and only those are written to JSON. The moves are all written.
+ */
+@JsonAdapter(KeyHistory.Adapter.class)
+final class KeyHistory {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys = new long[DEFAULT_CAPACITY];
+    private int size;
+    private int[] moves = new int[DEFAULT_CAPACITY];
+    private int moveCount;
+    private int halfmoveClock;
+
+    KeyHistory(long currentKey) {
+        reset(currentKey, 0);
+    }
+
+    KeyHistory copy() {
+        KeyHistory copy = new KeyHistory(0);
+        copy.keys = Arrays.copyOf(keys, Math.max(size, DEFAULT_CAPACITY));
+        copy.size = size;
+        copy.moves = Arrays.copyOf(moves, Math.max(moveCount, DEFAULT_CAPACITY));
+        copy.moveCount = moveCount;
+        copy.halfmoveClock = halfmoveClock;
+        return copy;
+    }
+
+    /**
+     * Forgets every earlier position, for a game set up directly rather than played.
+     */
+    void reset(long currentKey, int halfmoveClock) {
+        keys[0] = currentKey;
+        size = 1;
+        moveCount = 0;
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Records the position after a move.
+     *
+     * @param key          the position's Zobrist key.
+     * @param move         the packed move that led to it.
+     * @param irreversible whether the move was a capture or pawn move, which resets the halfmove clock.
+     */
+    void push(long key, int move, boolean irreversible) {
+        append(key);
+        appendMove(move);
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+    }
+
+    /**
+     * Forgets the current position, for taking back the move that led to it.
+     *
+     * @param previousHalfmoveClock the halfmove clock before that move.
+     */
+    void pop(int previousHalfmoveClock) {
+        if (size == 1) {
+            throw new IllegalStateException("No earlier position to go back to");
+        }
+        size--;
+        moveCount--;
+        halfmoveClock = previousHalfmoveClock;
+    }
+
+    /**
+     * @return whether the given key is the last one recorded, which it is unless the game was changed behind the
+     * history's back.
+     */
+    boolean endsWith(long currentKey) {
+        return size > 0 && keys[size - 1] == currentKey;
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+
+    int move(int index) {
+        return moves[index];
+    }
+
+    int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Counts how many times the current position has occurred, including now. Only positions with the same team to
+     * move since the last capture or pawn move are compared, so this takes time proportional to the halfmove clock.
+     */
+    int occurrences() {
+        long current = keys[size - 1];
+        int oldest = Math.max(0, size - 1 - halfmoveClock);
+        int count = 1;
+        for (int index = size - 3; index >= oldest; index -= 2) {
+            if (keys[index] == current) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void append(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size++] = key;
+    }
+
+    private void appendMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    /**
+     * Writes the halfmove clock, the keys a repetition can still match and the moves, and reads them back.
+     */
+    static final class Adapter extends TypeAdapter<KeyHistory> {
+        @Override
+        public void write(JsonWriter out, KeyHistory history) throws IOException {
+            out.beginObject();
+            out.name("halfmoveClock").value(history.halfmoveClock);
+            out.name("keys").beginArray();
+            for (int index = Math.max(0, history.size - 1 - history.halfmoveClock); index < history.size; index++) {
+                out.value(history.keys[index]);
+            }
+            out.endArray();
+            out.name("moves").beginArray();
+            for (int index = 0; index < history.moveCount; index++) {
+                out.value(history.moves[index]);
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public KeyHistory read(JsonReader in) throws IOException {
+            KeyHistory history = new KeyHistory(0);
+            history.size = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "halfmoveClock" -> history.halfmoveClock = in.nextInt();
+                    case "keys" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            history.append(in.nextLong());
+                        }
+                        in.endArray();
+                    }
+                    case "moves" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            history.appendMove(in.nextInt());
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return history;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package chess;
+
+import chess.movementrule.AttackTables;
+
+/**
+ * The check and pin information needed to tell which of a team's moves are legal, computed once per arrangement of
+ * pieces.
+ * <p>
+ * A move that does not move the king is legal exactly when it lands in the check mask (anywhere if the king is not in
+ * check, on the checking piece or between it and the king if there is one checker, nowhere if there are two) and, if
+ * the moving piece is pinned, stays on the line through its king and itself. King moves are legal when the destination
+ * would not be attacked with the king removed from its current square.
+ */
+final class LegalMoveMasks {
+    private final ChessBoard board;
+    private final int boardVersion;
+    private final ChessGame.TeamColor color;
+    private final int kingSquare;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+
+    LegalMoveMasks(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.boardVersion = board.version();
+        this.color = color;
+
+        long kings = board.getPieceSet(color, ChessPiece.PieceType.KING);
+        if (kings == 0) {
+            kingSquare = Bitboards.NO_SQUARE;
+            checkers = 0;
+            checkMask = -1L;
+            pinned = 0;
+            return;
+        }
+
+        kingSquare = Bitboards.firstSquare(kings);
+        ChessGame.TeamColor enemy = ChessPieces.not(color);
+        checkers = board.getAttackers(kingSquare, enemy, board.getOccupancy());
+        checkMask = switch (Long.bitCount(checkers)) {
+            case 0 -> -1L;
+            case 1 -> checkers | AttackTables.between(kingSquare, Bitboards.firstSquare(checkers));
+            default -> 0;
+        };
+        pinned = findPinned(enemy);
+    }
+
+    private long findPinned(ChessGame.TeamColor enemy) {
+        long enemySet = board.getTeamSet(enemy);
+        long enemyQueens = board.getPieceSet(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, enemySet)
+                & (board.getPieceSet(enemy, ChessPiece.PieceType.ROOK) | enemyQueens))
+                | (AttackTables.bishopAttacks(kingSquare, enemySet)
+                & (board.getPieceSet(enemy, ChessPiece.PieceType.BISHOP) | enemyQueens));
+
+        long pinnedPieces = 0;
+        for (; snipers != 0; snipers = Bitboards.withoutFirstSquare(snipers)) {
+            long blockers = AttackTables.between(kingSquare, Bitboards.firstSquare(snipers)) & board.getOccupancy();
+            if (Long.bitCount(blockers) == 1) {
+                pinnedPieces |= blockers & board.getTeamSet(color);
+            }
+        }
+        return pinnedPieces;
+    }
+
+    /**
+     * @return true if these masks were computed for the given board as it is now arranged and the given team.
+     */
+    boolean isCurrentFor(ChessBoard board, ChessGame.TeamColor color) {
+        return this.board == board && this.boardVersion == board.version() && this.color == color;
+    }
+
+    boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Returns the squares the piece on the given square may legally move to, assuming it could otherwise reach them.
+     *
+     * @param square the square index of one of this team's pieces.
+     * @return the set of squares that moves from the given square may legally end on.
+     */
+    long allowedTargets(int square) {
+        if (square == kingSquare) {
+            return allowedKingTargets();
+        }
+        long allowed = checkMask;
+        if ((pinned & Bitboards.bit(square)) != 0) {
+            allowed &= AttackTables.line(kingSquare, square);
+        }
+        return allowed;
+    }
+
+    /**
+     * Checks an en passant capture, which can expose the king in a way the masks do not cover: it empties two squares
+     * on the capturing pawn's row at once.
+     *
+     * @return true if the given en passant capture would not leave the king in check.
+     */
+    boolean allowsEnPassant(int move) {
+        if (kingSquare == Bitboards.NO_SQUARE) {
+            return true;
+        }
+        long capturedBit = Bitboards.bit(Moves.capturedSquare(move));
+        long occupancy = (board.getOccupancy() & ~Bitboards.bit(Moves.from(move)) & ~capturedBit)
+                | Bitboards.bit(Moves.to(move));
+        return (board.getAttackers(kingSquare, ChessPieces.not(color), occupancy) & ~capturedBit) == 0;
+    }
+
+    private long allowedKingTargets() {
+        ChessGame.TeamColor enemy = ChessPieces.not(color);
+        long occupancyWithoutKing = board.getOccupancy() & ~Bitboards.bit(kingSquare);
+        long candidates = AttackTables.kingAttacks(kingSquare) & ~board.getTeamSet(color);
+
+        long allowed = 0;
+        for (; candidates != 0; candidates = Bitboards.withoutFirstSquare(candidates)) {
+            int target = Bitboards.firstSquare(candidates);
+            if (board.getAttackers(target, enemy, occupancyWithoutKing) == 0) {
+                allowed |= Bitboards.bit(target);
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of packed moves (see {@link Moves}) that is meant to be cleared and refilled rather than
+ * reallocated, so generating moves into it does not allocate once it has grown large enough.
+ */
+public final class MoveList {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int initialCapacity) {
+        moves = new int[initialCapacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(DEFAULT_CAPACITY, size * 2));
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the most recently added move.
+     */
+    public void removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Cannot remove from an empty MoveList");
+        }
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the moves in this list as ChessMoves, in the same order.
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Moves.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
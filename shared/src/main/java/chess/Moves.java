@@ -0,0 +1,94 @@
+package chess;
+
+/**
+ * Helpers for moves packed into an {@code int}, for move generation and search where allocating a {@link ChessMove}
+ * per move would dominate the cost.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square (see {@link Bitboards}). Bits 12-14 hold the promotion
+ * piece type's ordinal plus one, or 0 for no promotion. The bits above those are flags describing the move.
+ */
+public final class Moves {
+    /**
+     * The move captures the piece on its end square.
+     */
+    public static final int CAPTURE = 1 << 15;
+    /**
+     * The move is a pawn's first move of two squares.
+     */
+    public static final int DOUBLE_PAWN_PUSH = 1 << 16;
+    /**
+     * The move is a pawn capturing en passant. The captured pawn is on the start square's row and the end square's
+     * column (see {@link #capturedSquare(int)}).
+     */
+    public static final int EN_PASSANT = 1 << 17;
+    /**
+     * The move is a king castling: the king moves two squares and the rook moves to the square it passed over.
+     */
+    public static final int CASTLING = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private Moves() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << TO_SHIFT) | flags;
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotionPiece, int flags) {
+        return encode(from, to, flags) | ((promotionPiece.ordinal() + 1) << PROMOTION_SHIFT);
+    }
+
+    /**
+     * @return the packed form of the given move, without any flags.
+     */
+    public static int encode(ChessMove move) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        return move.getPromotionPiece() == null ? encode(from, to, 0) : encode(from, to, move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the type of piece the move promotes a pawn to, or null if it is not a promotion.
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        int promotion = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    /**
+     * @return the square of the piece the move captures, if it captures one: the end square, or for en passant the
+     * square of the pawn passed by.
+     */
+    public static int capturedSquare(int move) {
+        return hasFlag(move, EN_PASSANT) ? (from(move) & ~7) | (to(move) & 7) : to(move);
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return whether the two moves have the same start square, end square and promotion piece, ignoring flags.
+     */
+    public static boolean sameMove(int move1, int move2) {
+        int mask = (PROMOTION_MASK << PROMOTION_SHIFT) | (SQUARE_MASK << TO_SHIFT) | SQUARE_MASK;
+        return (move1 & mask) == (move2 & mask);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotionPiece(move));
+    }
+}
@@ -0,0 +1,134 @@
+package chess;
+
+/**
+ * Material and piece-square values for evaluating positions, which {@link ChessBoard} sums up as pieces come and go.
+ * Each piece has a middlegame value and an endgame value, and counts towards the game phase, which says how far the
+ * position is between the two: {@link #MAX_PHASE} with every knight, bishop, rook and queen on the board, down to 0
+ * with none.
+ * <p>
+ * The tables below are laid out as seen from White's side, with the eighth rank on top, and are mirrored for Black.
+ * Values are in centipawns, positive for White.
+ */
+public final class PieceSquareTables {
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * Indexed by {@link ChessPiece.PieceType#ordinal()}: king, queen, bishop, knight, rook, pawn.
+     */
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int[][] MIDDLEGAME_TABLES =
+            {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+    private static final int[][] ENDGAME_TABLES = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+
+    /**
+     * Value plus table entry, negated for Black, indexed by {@link Bitboards#pieceIndex} and square.
+     */
+    private static final int[][] MIDDLEGAME_SCORES = scores(MIDDLEGAME_VALUES, MIDDLEGAME_TABLES);
+    private static final int[][] ENDGAME_SCORES = scores(ENDGAME_VALUES, ENDGAME_TABLES);
+
+    private PieceSquareTables() {
+    }
+
+    static int middlegameScore(ChessPiece piece, int square) {
+        return MIDDLEGAME_SCORES[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    static int endgameScore(ChessPiece piece, int square) {
+        return ENDGAME_SCORES[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    static int phaseWeight(ChessPiece piece) {
+        return PHASE_WEIGHTS[piece.getPieceType().ordinal()];
+    }
+
+    private static int[][] scores(int[] values, int[][] tables) {
+        int[][] scores = new int[Bitboards.NUM_PIECE_SETS][64];
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int[] table = tables[type.ordinal()];
+            int[] white = scores[Bitboards.pieceIndex(ChessGame.TeamColor.WHITE, type)];
+            int[] black = scores[Bitboards.pieceIndex(ChessGame.TeamColor.BLACK, type)];
+            for (int square = 0; square < 64; square++) {
+                // Row 8 comes first in the tables, so White's square is flipped vertically and Black's is not
+                white[square] = values[type.ordinal()] + table[square ^ 56];
+                black[square] = -(values[type.ordinal()] + table[square]);
+            }
+        }
+        return scores;
+    }
+}
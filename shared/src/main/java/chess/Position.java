@@ -0,0 +1,222 @@
+package chess;
+
+import chess.movementrule.PawnMovementRule;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a chess position: where each piece is, whose turn it is, and the castling rights and en
+ * passant square.
+ * <p>
+ * Unlike {@link ChessGame} and {@link ChessBoard}, a Position never changes after it is created, so it can be handed
+ * to other threads and read without locking. {@link #apply(int)} returns the position after a move as a new snapshot,
+ * copying only a handful of longs.
+ */
+public final class Position {
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private final long[] pieceSets;
+    private final ChessGame.TeamColor teamToMove;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final long zobristKey;
+
+    private Position(long[] pieceSets, ChessGame.TeamColor teamToMove, int castlingRights, int enPassantSquare,
+            long zobristKey) {
+        this.pieceSets = pieceSets;
+        this.teamToMove = teamToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.zobristKey = zobristKey;
+    }
+
+    /**
+     * @return a snapshot of the game's current position. Later moves in the game do not affect it.
+     */
+    public static Position of(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long[] pieceSets = new long[Bitboards.NUM_PIECE_SETS];
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : PIECE_TYPES) {
+                pieceSets[Bitboards.pieceIndex(color, type)] = board.getPieceSet(color, type);
+            }
+        }
+        return new Position(pieceSets, game.getTeamTurn(), game.getCastlingRights(), game.getEnPassantSquare(),
+                game.getZobristKey());
+    }
+
+    /**
+     * Returns the position after the given move, leaving this one unchanged. The move is not checked.
+     *
+     * @param move a legal packed move (see {@link Moves}) for the team to move.
+     * @return a new snapshot with the move played and the other team to move.
+     */
+    public Position apply(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        ChessGame.TeamColor enemy = ChessPieces.not(teamToMove);
+
+        long[] newPieceSets = pieceSets.clone();
+        long key = zobristKey ^ Zobrist.teamToMoveKey(teamToMove) ^ Zobrist.castlingKey(castlingRights) ^
+                Zobrist.enPassantKey(enPassantSquare);
+
+        int capturedSquare = Moves.capturedSquare(move);
+        int captured = pieceIndexAt(Bitboards.bit(capturedSquare));
+        if (captured >= 0) {
+            newPieceSets[captured] &= ~Bitboards.bit(capturedSquare);
+            key ^= Zobrist.pieceKey(enemy, typeOf(captured), capturedSquare);
+        }
+
+        int moved = pieceIndexAt(Bitboards.bit(from));
+        ChessPiece.PieceType promotionPiece = Moves.promotionPiece(move);
+        int landed = promotionPiece == null ? moved : Bitboards.pieceIndex(teamToMove, promotionPiece);
+        newPieceSets[moved] &= ~Bitboards.bit(from);
+        newPieceSets[landed] |= Bitboards.bit(to);
+        key ^= Zobrist.pieceKey(teamToMove, typeOf(moved), from) ^ Zobrist.pieceKey(teamToMove, typeOf(landed), to);
+
+        if (Moves.hasFlag(move, Moves.CASTLING)) {
+            int rookStart = CastlingRights.rookStartSquare(to);
+            int rookEnd = CastlingRights.rookEndSquare(to);
+            newPieceSets[Bitboards.pieceIndex(teamToMove, ChessPiece.PieceType.ROOK)] ^=
+                    Bitboards.bit(rookStart) | Bitboards.bit(rookEnd);
+            key ^= Zobrist.pieceKey(teamToMove, ChessPiece.PieceType.ROOK, rookStart) ^
+                    Zobrist.pieceKey(teamToMove, ChessPiece.PieceType.ROOK, rookEnd);
+        }
+
+        int newCastlingRights = CastlingRights.afterMove(castlingRights, from, to);
+        int newEnPassantSquare = Bitboards.NO_SQUARE;
+        if (Moves.hasFlag(move, Moves.DOUBLE_PAWN_PUSH)) {
+            long enemyPawns = newPieceSets[Bitboards.pieceIndex(enemy, ChessPiece.PieceType.PAWN)];
+            newEnPassantSquare = PawnMovementRule.enPassantSquareAfter(from, to, teamToMove, enemyPawns);
+        }
+        key ^= Zobrist.teamToMoveKey(enemy) ^ Zobrist.castlingKey(newCastlingRights) ^
+                Zobrist.enPassantKey(newEnPassantSquare);
+        return new Position(newPieceSets, enemy, newCastlingRights, newEnPassantSquare, key);
+    }
+
+    public ChessGame.TeamColor getTeamToMove() {
+        return teamToMove;
+    }
+
+    /**
+     * @return the same key {@link ChessGame#getZobristKey()} gives for this position.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return the {@link CastlingRights} flags of this position.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square a pawn can be captured on en passant, or {@link Bitboards#NO_SQUARE}.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public long getPieceSet(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceSets[Bitboards.pieceIndex(color, type)];
+    }
+
+    public long getTeamSet(ChessGame.TeamColor color) {
+        long team = 0;
+        for (int index = color.ordinal() * 6; index < color.ordinal() * 6 + 6; index++) {
+            team |= pieceSets[index];
+        }
+        return team;
+    }
+
+    public long getOccupancy() {
+        return getTeamSet(ChessGame.TeamColor.WHITE) | getTeamSet(ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * @return a new ChessPiece for the piece on the given square, or null if the square is empty.
+     */
+    public ChessPiece getPiece(int square) {
+        int index = pieceIndexAt(Bitboards.bit(square));
+        return index < 0 ? null : new ChessPiece(colorOf(index), typeOf(index), couldBeUnmoved(square, index));
+    }
+
+    /**
+     * @return a new board with the pieces of this position on it. Kings and rooks are marked as never having moved
+     * only where this position's castling rights need them, so the board gives back the same rights.
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = getPiece(square);
+            if (piece != null) {
+                board.setPiece(square, piece);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return a new game in this position, which can be played independently of it.
+     */
+    public ChessGame toGame() {
+        return new ChessGame(toBoard(), teamToMove, castlingRights, enPassantSquare);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Position position = (Position) o;
+        return teamToMove == position.teamToMove && castlingRights == position.castlingRights &&
+                enPassantSquare == position.enPassantSquare && Arrays.equals(pieceSets, position.pieceSets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey);
+    }
+
+    @Override
+    public String toString() {
+        return toBoard() + teamToMove.toString() + " to move";
+    }
+
+    private int pieceIndexAt(long bit) {
+        for (int index = 0; index < pieceSets.length; index++) {
+            if ((pieceSets[index] & bit) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static ChessGame.TeamColor colorOf(int pieceIndex) {
+        return pieceIndex < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    private static ChessPiece.PieceType typeOf(int pieceIndex) {
+        return PIECE_TYPES[pieceIndex % 6];
+    }
+
+    private boolean couldBeUnmoved(int square, int pieceIndex) {
+        ChessGame.TeamColor color = colorOf(pieceIndex);
+        int homeRow = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+        return switch (typeOf(pieceIndex)) {
+            case KING -> square == Bitboards.square(homeRow, 5) &&
+                    (castlingRights & (CastlingRights.kingside(color) | CastlingRights.queenside(color))) != 0;
+            case ROOK -> (square == Bitboards.square(homeRow, 8) &&
+                    (castlingRights & CastlingRights.kingside(color)) != 0) ||
+                    (square == Bitboards.square(homeRow, 1) &&
+                            (castlingRights & CastlingRights.queenside(color)) != 0);
+            case PAWN -> Bitboards.row(square) == (color == ChessGame.TeamColor.WHITE ? 2 : 7);
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * What {@link ChessGame#undoMove()} needs to take back each applied move, kept in parallel arrays so applying a move
+ * allocates nothing once the arrays have grown to the search depth.
+ */
+final class UndoStack {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private int[] moves = new int[DEFAULT_CAPACITY];
+    private ChessPiece[] movedPieces = new ChessPiece[DEFAULT_CAPACITY];
+    private ChessPiece[] capturedPieces = new ChessPiece[DEFAULT_CAPACITY];
+    private int[] castlingRights = new int[DEFAULT_CAPACITY];
+    private int[] enPassantSquares = new int[DEFAULT_CAPACITY];
+    private int[] halfmoveClocks = new int[DEFAULT_CAPACITY];
+    private WinState[] winStates = new WinState[DEFAULT_CAPACITY];
+    private int size;
+
+    void push(int move, ChessPiece movedPiece, ChessPiece capturedPiece, int castlingRights, int enPassantSquare,
+            int halfmoveClock, WinState winState) {
+        if (size == moves.length) {
+            int capacity = size * 2;
+            moves = Arrays.copyOf(moves, capacity);
+            movedPieces = Arrays.copyOf(movedPieces, capacity);
+            capturedPieces = Arrays.copyOf(capturedPieces, capacity);
+            this.castlingRights = Arrays.copyOf(this.castlingRights, capacity);
+            enPassantSquares = Arrays.copyOf(enPassantSquares, capacity);
+            halfmoveClocks = Arrays.copyOf(halfmoveClocks, capacity);
+            winStates = Arrays.copyOf(winStates, capacity);
+        }
+        moves[size] = move;
+        movedPieces[size] = movedPiece;
+        capturedPieces[size] = capturedPiece;
+        this.castlingRights[size] = castlingRights;
+        enPassantSquares[size] = enPassantSquare;
+        halfmoveClocks[size] = halfmoveClock;
+        winStates[size] = winState;
+        size++;
+    }
+
+    /**
+     * Removes the most recent entry. Its values stay readable through the accessors below until the next push.
+     *
+     * @return the index of the removed entry.
+     */
+    int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        return --size;
+    }
+
+    int move(int index) {
+        return moves[index];
+    }
+
+    ChessPiece movedPiece(int index) {
+        return movedPieces[index];
+    }
+
+    ChessPiece capturedPiece(int index) {
+        return capturedPieces[index];
+    }
+
+    int castlingRights(int index) {
+        return castlingRights[index];
+    }
+
+    int enPassantSquare(int index) {
+        return enPassantSquares[index];
+    }
+
+    int halfmoveClock(int index) {
+        return halfmoveClocks[index];
+    }
+
+    WinState winState(int index) {
+        return winStates[index];
+    }
+}
@@ -4,5 +4,17 @@ public enum WinState {
     WHITE_WIN,
     BLACK_WIN,
     IN_PROGRESS,
-    STALEMATE
+    STALEMATE,
+    /**
+     * The same position occurred three times with the same team to move.
+     */
+    DRAW_BY_REPETITION,
+    /**
+     * Fifty moves by each team passed without a capture or pawn move.
+     */
+    DRAW_BY_FIFTY_MOVE_RULE,
+    /**
+     * Neither team has the pieces left to checkmate.
+     */
+    DRAW_BY_INSUFFICIENT_MATERIAL
 }
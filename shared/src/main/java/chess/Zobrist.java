@@ -0,0 +1,66 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the key for each piece on its square, plus
+ * keys for the team to move, the castling rights and the en passant file, so a single move only has to XOR a few keys
+ * in and out.
+ * <p>
+ * The keys come from a fixed seed so that a position has the same key in every process.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x240C4E55L;
+
+    private static final long[][] PIECE_KEYS = new long[Bitboards.NUM_PIECE_SETS][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        // No castling rights hashes to zero, so positions without castling only depend on pieces and turn
+        for (int rights = 1; rights < CASTLING_KEYS.length; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_KEYS.length; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceKey(ChessGame.TeamColor color, ChessPiece.PieceType type, int square) {
+        return PIECE_KEYS[Bitboards.pieceIndex(color, type)][square];
+    }
+
+    public static long pieceKey(ChessPiece piece, int square) {
+        return pieceKey(piece.getTeamColor(), piece.getPieceType(), square);
+    }
+
+    /**
+     * @param castlingRights a set of {@link CastlingRights} flags.
+     */
+    public static long castlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * @param enPassantSquare the square a pawn can be captured en passant on, or {@link Bitboards#NO_SQUARE}.
+     * @return the key for the square's column, or 0 if there is no en passant square.
+     */
+    public static long enPassantKey(int enPassantSquare) {
+        return enPassantSquare == Bitboards.NO_SQUARE ? 0 : EN_PASSANT_KEYS[enPassantSquare & 7];
+    }
+
+    public static long teamToMoveKey(ChessGame.TeamColor teamToMove) {
+        return (teamToMove == ChessGame.TeamColor.BLACK) ? BLACK_TO_MOVE_KEY : 0;
+    }
+}
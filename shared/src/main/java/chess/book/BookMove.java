@@ -0,0 +1,13 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * A move an {@link OpeningBook} knows for a position.
+ *
+ * @param move   the move.
+ * @param weight how well the move has done in the games the book was built from (see {@link OpeningBookBuilder}).
+ *               Moves are played in proportion to their weights.
+ */
+public record BookMove(ChessMove move, int weight) {
+}
@@ -0,0 +1,147 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Moves;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The moves played in the openings of a collection of games, built by {@link OpeningBookBuilder}, so that an engine
+ * can play the first moves of a game straight away instead of searching.
+ * <p>
+ * A book is a file of fixed-width records, one per position and move: the position's Zobrist key, the move and its
+ * weight. The records are sorted by key, and the moves of a position by weight, heaviest first. The file is
+ * memory-mapped rather than read, and looking a position up is a binary search of the records, so opening a book is
+ * quick however large it is, and a lookup reads a handful of records. Books may be shared by any number of threads.
+ * <p>
+ * Moves are checked to be legal before they are returned, so a position that merely shares another's key is never
+ * answered with an illegal move.
+ */
+public final class OpeningBook {
+    /**
+     * A book of no moves, for an engine that does not use one.
+     */
+    public static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(0));
+
+    static final int MAGIC = 0x43424B31; // "CBK1"
+    static final int HEADER_BYTES = 8;
+    // The position's key, then the packed move and its weight
+    static final int RECORD_BYTES = 16;
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 12;
+
+    private final ByteBuffer records;
+    private final int size;
+
+    /**
+     * @param records the records, sorted, which must not be changed afterwards.
+     */
+    OpeningBook(ByteBuffer records) {
+        this.records = records;
+        this.size = records.capacity() / RECORD_BYTES;
+    }
+
+    /**
+     * Maps a book file.
+     *
+     * @param file a file written by {@link OpeningBookBuilder}. A missing file opens as an empty book.
+     * @throws IOException if the file could not be mapped, or is not a book file.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return EMPTY;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a book file");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int records = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || records < 0 ||
+                    channel.size() != HEADER_BYTES + (long) records * RECORD_BYTES) {
+                throw new IOException(file + " is not a book file");
+            }
+            return new OpeningBook(buffer.slice(HEADER_BYTES, records * RECORD_BYTES));
+        }
+    }
+
+    /**
+     * @return the number of records, i.e. of different moves from all positions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the moves the book knows for a position.
+     *
+     * @return the legal moves, heaviest first, or an empty list if the position is not in the book.
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = game.getZobristKey();
+        List<BookMove> moves = new ArrayList<>();
+        for (int record = firstRecord(key); record < size && key(record) == key; record++) {
+            ChessMove move = Moves.toChessMove(records.getInt(record * RECORD_BYTES + MOVE_OFFSET));
+            if (game.findLegalMove(move) != -1) {
+                moves.add(new BookMove(move, records.getInt(record * RECORD_BYTES + WEIGHT_OFFSET)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Chooses one of the book's moves for a position at random, in proportion to their weights, so that an engine
+     * playing from the book does not play the same game every time.
+     *
+     * @return the move, or null if the position is not in the book.
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        long totalWeight = 0;
+        for (BookMove move : moves) {
+            totalWeight += move.weight();
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+        long chosen = random.nextLong(totalWeight);
+        for (BookMove move : moves) {
+            chosen -= move.weight();
+            if (chosen < 0) {
+                return move.move();
+            }
+        }
+        throw new AssertionError("The weights add up to more than their total");
+    }
+
+    /**
+     * @return the first record whose key is not less than the given key, or the number of records if there is none.
+     */
+    private int firstRecord(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(int record) {
+        return records.getLong(record * RECORD_BYTES);
+    }
+}
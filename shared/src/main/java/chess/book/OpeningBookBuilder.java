@@ -0,0 +1,213 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Moves;
+import chess.pgn.PgnFormatException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the opening moves of games into an {@link OpeningBook}.
+ * <p>
+ * Each move played in the first {@link #maxPlies()} plies of a game adds to its weight in the position it was played
+ * from: 2 if the team that played it went on to win, 1 for a draw or an unknown result, and nothing for a loss, so
+ * that moves only ever played by losers are left out. Games set up from a position other than the usual starting one
+ * are skipped.
+ * <p>
+ * Usage: {@code OpeningBookBuilder <book file> <PGN file>...}, e.g. {@code OpeningBookBuilder openings.book
+ * games.pgn}.
+ */
+public final class OpeningBookBuilder {
+    /**
+     * The number of plies of each game a builder takes moves from unless told otherwise.
+     */
+    public static final int DEFAULT_MAX_PLIES = 12;
+
+    private static final int WIN_WEIGHT = 2;
+    private static final int DRAW_WEIGHT = 1;
+
+    private final int maxPlies;
+    // Position key -> packed move -> weight
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private int records;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLIES);
+    }
+
+    /**
+     * @param maxPlies the number of plies of each game to take moves from.
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("An opening book needs at least one ply of each game");
+        }
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <book file> <PGN file>...");
+            System.exit(1);
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        long startTime = System.nanoTime();
+        int games = 0;
+        for (int i = 1; i < args.length; i++) {
+            try (Reader in = Files.newBufferedReader(Path.of(args[i])); PgnReader reader = new PgnReader(in)) {
+                while (hasNextGame(reader, args[i])) {
+                    try {
+                        if (builder.add(reader.next())) {
+                            games++;
+                        }
+                    } catch (InvalidMoveException e) {
+                        System.err.printf("%s: skipped a game: %s%n", args[i], e.getMessage());
+                    }
+                }
+            }
+        }
+        builder.write(Path.of(args[0]));
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.printf("%s: %d moves from %d games in %.3f s%n", args[0], builder.size(), games, seconds);
+    }
+
+    /**
+     * Like {@link PgnReader#hasNext()}, but skips the games that could not be read after logging them.
+     */
+    private static boolean hasNextGame(PgnReader reader, String file) {
+        while (true) {
+            try {
+                return reader.hasNext();
+            } catch (PgnFormatException e) {
+                System.err.printf("%s: skipped a game: %s%n", file, e.getMessage());
+            }
+        }
+    }
+
+    public int maxPlies() {
+        return maxPlies;
+    }
+
+    /**
+     * @return the number of records the book would have, i.e. of different moves from all positions.
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Adds a game's opening moves.
+     *
+     * @return false if the game was skipped for starting from another position.
+     * @throws InvalidMoveException if one of the moves is not legal. The moves before it are still added.
+     */
+    public boolean add(PgnGame game) throws InvalidMoveException {
+        if (game.tags().containsKey("FEN")) {
+            return false;
+        }
+        ChessGame position = game.startingGame();
+        int plies = Math.min(maxPlies, game.moves().size());
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move = game.moves().get(ply);
+            int packedMove = position.findLegalMove(move);
+            if (packedMove == -1) {
+                throw new InvalidMoveException(String.format("Move %d, %s, is not legal", ply + 1, move));
+            }
+            int weight = weight(game.result(), position.getTeamTurn());
+            if (weight > 0) {
+                addWeight(position.getZobristKey(), Moves.encode(move), weight);
+            }
+            position.applyMove(packedMove);
+        }
+        return true;
+    }
+
+    private static int weight(String result, ChessGame.TeamColor mover) {
+        return switch (result) {
+            case "1-0" -> mover == ChessGame.TeamColor.WHITE ? WIN_WEIGHT : 0;
+            case "0-1" -> mover == ChessGame.TeamColor.BLACK ? WIN_WEIGHT : 0;
+            default -> DRAW_WEIGHT;
+        };
+    }
+
+    private void addWeight(long key, int move, int weight) {
+        Map<Integer, Integer> moves = weights.computeIfAbsent(key, k -> new HashMap<>());
+        Integer previous = moves.get(move);
+        if (previous == null) {
+            records++;
+            moves.put(move, weight);
+        } else {
+            moves.put(move, (int) Math.min((long) previous + weight, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * @return a book of the moves added so far, kept in memory.
+     */
+    public OpeningBook build() {
+        ByteBuffer buffer = ByteBuffer.allocate(records * OpeningBook.RECORD_BYTES);
+        for (Record record : sortedRecords()) {
+            buffer.putLong(record.key).putInt(record.move).putInt(record.weight);
+        }
+        return new OpeningBook(buffer.flip());
+    }
+
+    /**
+     * Writes a book file of the moves added so far, to be opened with {@link OpeningBook#open(Path)}. The book is
+     * written to a temporary file next to it and then moved over it, so a server with the old book mapped keeps
+     * reading the old one.
+     */
+    public void write(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp));
+                 DataOutputStream data = new DataOutputStream(out)) {
+                data.writeInt(OpeningBook.MAGIC);
+                data.writeInt(records);
+                for (Record record : sortedRecords()) {
+                    data.writeLong(record.key);
+                    data.writeInt(record.move);
+                    data.writeInt(record.weight);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private List<Record> sortedRecords() {
+        List<Record> sorted = new ArrayList<>(records);
+        for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                sorted.add(new Record(position.getKey(), move.getKey(), move.getValue()));
+            }
+        }
+        // The book's binary search compares keys as signed longs too
+        sorted.sort(Comparator.comparingLong(Record::key)
+                .thenComparing(Comparator.comparingInt(Record::weight).reversed())
+                .thenComparingInt(Record::move));
+        return sorted;
+    }
+
+    private record Record(long key, int move, int weight) {
+    }
+}
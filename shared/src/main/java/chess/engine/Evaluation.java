@@ -0,0 +1,41 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position, in centipawns: material and piece placement, blended between middlegame and
+ * endgame values by the game phase (see {@link PieceSquareTables}).
+ * <p>
+ * The board keeps the sums up to date as pieces move, so evaluating takes constant time rather than a pass over the
+ * board. It reads nothing but the game, so any number of threads may evaluate different games at once.
+ */
+public final class Evaluation {
+    /**
+     * Rough piece values for ordering captures, indexed by {@link ChessPiece.PieceType#ordinal()}. The king's is 0,
+     * since it is never captured.
+     */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the value of the position for the team to move: positive if it is ahead.
+     */
+    public static int evaluate(ChessGame game) {
+        int score = evaluateForWhite(game.getBoard());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the value of the position on the board for White, whoever is to move.
+     */
+    public static int evaluateForWhite(ChessBoard board) {
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        return (board.getMiddlegameScore() * phase + board.getEndgameScore() * (PieceSquareTables.MAX_PHASE - phase)) /
+                PieceSquareTables.MAX_PHASE;
+    }
+}
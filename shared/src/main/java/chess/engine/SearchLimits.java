@@ -0,0 +1,64 @@
+package chess.engine;
+
+import java.time.Duration;
+
+/**
+ * How much work a search may do before it returns its best move so far. A search stops at whichever limit it reaches
+ * first; limits left at their defaults do not stop it.
+ *
+ * @param maxDepth the deepest iteration to search, in plies.
+ * @param maxNodes the number of positions to visit, counting quiescence nodes. With more than one thread, this
+ *                 limits the nodes of the thread whose move is returned.
+ * @param maxTime  the time to search for, measured from when the search starts.
+ * @param threads  the number of threads to search with: the calling thread and {@code threads - 1} helpers (see
+ *                 {@link Searcher}). This is not a limit as such, but it is chosen per search like the others.
+ */
+public record SearchLimits(int maxDepth, long maxNodes, Duration maxTime, int threads) {
+    /**
+     * No limit but {@link Searcher#MAX_DEPTH}, for searches that are stopped with {@link Searcher#stop()}.
+     */
+    public static final SearchLimits NONE = new SearchLimits(Searcher.MAX_DEPTH, Long.MAX_VALUE, null, 1);
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxDepth > Searcher.MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth must be between 1 and " + Searcher.MAX_DEPTH);
+        }
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive");
+        }
+        if (maxTime != null && (maxTime.isNegative() || maxTime.isZero())) {
+            throw new IllegalArgumentException("maxTime must be positive");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return NONE.withDepth(maxDepth);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return NONE.withNodes(maxNodes);
+    }
+
+    public static SearchLimits time(Duration maxTime) {
+        return NONE.withTime(maxTime);
+    }
+
+    public SearchLimits withDepth(int maxDepth) {
+        return new SearchLimits(maxDepth, maxNodes, maxTime, threads);
+    }
+
+    public SearchLimits withNodes(long maxNodes) {
+        return new SearchLimits(maxDepth, maxNodes, maxTime, threads);
+    }
+
+    public SearchLimits withTime(Duration maxTime) {
+        return new SearchLimits(maxDepth, maxNodes, maxTime, threads);
+    }
+
+    public SearchLimits withThreads(int threads) {
+        return new SearchLimits(maxDepth, maxNodes, maxTime, threads);
+    }
+}
@@ -0,0 +1,16 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search.
+ *
+ * @param bestMove the move to play, or null if the team to move has no legal move.
+ * @param score    the position's value for the team to move, in centipawns, or a mate score (see
+ *                 {@link Searcher#isMateScore(int)}).
+ * @param depth    the deepest iteration that was searched completely, or 0 if the search was stopped during the
+ *                 first.
+ * @param nodes    the number of positions visited.
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes) {
+}
@@ -0,0 +1,576 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.Moves;
+import chess.movementrule.StaticExchange;
+import chess.tablebase.Tablebases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds the best move in a position with a negamax alpha-beta search, deepened one ply at a time until a
+ * {@link SearchLimits} limit is reached.
+ * <p>
+ * Each iteration searches the previous iteration's best move first, and orders the other moves by the value of the
+ * piece they capture less the value of the capturing piece, then by killer moves (quiet moves that caused a cutoff
+ * at the same ply) and then by a history of quiet moves that caused cutoffs anywhere. Captures that lose material by
+ * {@link StaticExchange static exchange evaluation} come last of all. Leaves are extended with a quiescence search of
+ * captures and promotions, so that the evaluation is never taken in the middle of an exchange; it skips those that
+ * lose material.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which cuts the search off at positions already searched deeply
+ * enough, and otherwise supplies the best move found there before, which is then searched first.
+ * <p>
+ * Positions covered by the searcher's {@link Tablebases} are scored exactly from them instead of being searched. When
+ * the root position is covered, every move from it is too, so one ply is searched and the quickest mate played.
+ * <p>
+ * A search with more than one {@link SearchLimits#threads() thread} is a "Lazy SMP" search: helper searchers search
+ * the same root on other threads, half of them one ply deeper, sharing the transposition table. They return nothing,
+ * but the positions they store let the calling thread, whose move is returned, reach each depth sooner.
+ * <p>
+ * A searcher runs one search at a time and reuses its buffers between searches, so searching allocates almost
+ * nothing. {@link #stop()} may be called from any thread, and a search also stops when its thread is interrupted;
+ * either way it returns the best move found so far.
+ */
+public final class Searcher {
+    /**
+     * The deepest a search can go, in plies, including quiescence and check extensions.
+     */
+    public static final int MAX_DEPTH = 64;
+    /**
+     * The score of checkmating on the current move. Mate in {@code n} plies scores {@code MATE_SCORE - n}.
+     */
+    public static final int MATE_SCORE = 100_000;
+    /**
+     * The size of the transposition table of a searcher that does not share one.
+     */
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private static final int INFINITE = MATE_SCORE + 1;
+    // The longest mate a score can show: a tablebase mate found at the deepest ply
+    private static final int MAX_MATE_PLIES = 1000;
+    private static final int NO_MOVE = 0;
+    private static final int MAX_MOVES = 256;
+    private static final int LIMIT_CHECK_INTERVAL = 1024;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int LOSING_CAPTURE_SCORE = -CAPTURE_SCORE;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int MAX_HISTORY_SCORE = KILLER_SCORE - 1;
+
+    private final TranspositionTable table;
+    private final Executor helperExecutor;
+    private final Tablebases tablebases;
+    private final List<Searcher> helpers = new ArrayList<>();
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH + 1];
+    private final int[][] moveScores = new int[MAX_DEPTH + 1][MAX_MOVES];
+    private final int[][] killers = new int[MAX_DEPTH + 1][2];
+    private final int[][][] history = new int[2][64][64];
+
+    private ChessGame game;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean hasDeadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+    private int rootBestMove;
+    private int rootBestScore;
+
+    /**
+     * Creates a searcher with a transposition table of its own.
+     */
+    public Searcher() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * Creates a searcher that runs helper threads on the common pool.
+     *
+     * @param table the transposition table to use, which may be shared with other searchers running at the same time.
+     */
+    public Searcher(TranspositionTable table) {
+        this(table, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param table          the transposition table to use, which may be shared with other searchers running at the
+     *                       same time.
+     * @param helperExecutor runs the helper searches of searches with more than one thread. Each takes up a thread
+     *                       for the whole search, so it should have at least as many threads as the most helpers any
+     *                       search asks for.
+     */
+    public Searcher(TranspositionTable table, Executor helperExecutor) {
+        this(table, helperExecutor, Tablebases.NONE);
+    }
+
+    /**
+     * @param table          the transposition table to use, which may be shared with other searchers running at the
+     *                       same time.
+     * @param helperExecutor runs the helper searches of searches with more than one thread.
+     * @param tablebases     the endgame tables to probe, which may also be shared.
+     */
+    public Searcher(TranspositionTable table, Executor helperExecutor, Tablebases tablebases) {
+        this.table = table;
+        this.helperExecutor = helperExecutor;
+        this.tablebases = tablebases;
+        for (int ply = 0; ply <= MAX_DEPTH; ply++) {
+            moveLists[ply] = new MoveList(MAX_MOVES);
+        }
+    }
+
+    /**
+     * @return whether the score is a forced mate for one team or the other, rather than an evaluation.
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) > MATE_SCORE - MAX_MATE_PLIES;
+    }
+
+    /**
+     * Searches for the best move for the team to move.
+     *
+     * @see #search(ChessGame, SearchLimits)
+     * @return the best move found, or null if there is no legal move.
+     */
+    public ChessMove bestMove(ChessGame game, SearchLimits limits) {
+        return search(game, limits).bestMove();
+    }
+
+    /**
+     * Searches the given game until one of the limits is reached, {@link #stop()} is called, or the thread is
+     * interrupted. At least one legal move is always returned if there is one, however soon the search is stopped.
+     * Helper searches, if any, are stopped and finished before this returns.
+     *
+     * @param game   the game to search. It is copied, so it is not modified and may be played on by another thread
+     *               while the search runs.
+     * @param limits when to stop.
+     * @return the best move found, with its score and how much searching went into it, counting the nodes of all
+     * threads.
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        try {
+            table.newSearch();
+            startSearch(game.copy(), limits);
+            return deepen(limits);
+        } finally {
+            this.game = null;
+            stopRequested = false;
+        }
+    }
+
+    private SearchResult deepen(SearchLimits limits) {
+        MoveList rootMoves = moveLists[0];
+        rootMoves.clear();
+        game.generateLegalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE_SCORE : 0;
+            return new SearchResult(null, score, 0, 0);
+        }
+
+        int maxDepth = tablebases.probe(game) != Tablebases.NOT_FOUND ? 1 : limits.maxDepth();
+        List<CompletableFuture<Void>> helperSearches = startHelpers(limits.threads() - 1);
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                rootBestMove = NO_MOVE;
+                int score = search(depth, 0, -INFINITE, INFINITE, bestMove);
+                if (aborted) {
+                    // The previous best move was searched first, so any move that beat it is better still.
+                    if (rootBestMove != NO_MOVE) {
+                        bestMove = rootBestMove;
+                        bestScore = rootBestScore;
+                    }
+                    break;
+                }
+                bestMove = rootBestMove;
+                bestScore = score;
+                completedDepth = depth;
+                if (isMateScore(score) && MATE_SCORE - Math.abs(score) <= depth) {
+                    break;
+                }
+            }
+        } finally {
+            stopHelpers(helperSearches);
+        }
+
+        long totalNodes = nodes;
+        for (int i = 0; i < helperSearches.size(); i++) {
+            totalNodes += helpers.get(i).nodes;
+        }
+        return new SearchResult(Moves.toChessMove(bestMove), bestScore, completedDepth, totalNodes);
+    }
+
+    /**
+     * Stops the search running on another thread, which then returns the best move it has found so far. If no search
+     * is running, the next one stops as soon as it has a move to return, so a search can be cancelled just before it
+     * starts without a race.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Forgets a {@link #stop()} that came after the last search finished, so that it does not stop the next one, e.g.
+     * when the searcher is reused for a search the stop was not meant for.
+     */
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Starts helper searches of the current game, reusing the helper searchers of earlier searches.
+     */
+    private List<CompletableFuture<Void>> startHelpers(int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        while (helpers.size() < count) {
+            helpers.add(new Searcher(table, helperExecutor, tablebases));
+        }
+        List<CompletableFuture<Void>> helperSearches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Searcher helper = helpers.get(i);
+            ChessGame helperGame = game.copy();
+            int firstDepth = 1 + i % 2;
+            helperSearches.add(CompletableFuture.runAsync(() -> helper.searchAsHelper(helperGame, firstDepth),
+                    helperExecutor));
+        }
+        return helperSearches;
+    }
+
+    private void stopHelpers(List<CompletableFuture<Void>> helperSearches) {
+        for (int i = 0; i < helperSearches.size(); i++) {
+            helpers.get(i).stop();
+        }
+        CompletableFuture.allOf(helperSearches.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Deepens the search of the given game from the given depth until stopped, only to fill the transposition table.
+     */
+    private void searchAsHelper(ChessGame game, int firstDepth) {
+        startSearch(game, SearchLimits.NONE);
+        for (int depth = firstDepth; depth <= MAX_DEPTH && !aborted; depth++) {
+            search(depth, 0, -INFINITE, INFINITE, NO_MOVE);
+        }
+        this.game = null;
+        stopRequested = false;
+    }
+
+    private void startSearch(ChessGame game, SearchLimits limits) {
+        this.game = game;
+        nodes = 0;
+        maxNodes = limits.maxNodes();
+        hasDeadline = limits.maxTime() != null;
+        deadline = hasDeadline ? System.nanoTime() + limits.maxTime().toNanos() : 0;
+        aborted = false;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = NO_MOVE;
+            plyKillers[1] = NO_MOVE;
+        }
+        for (int[][] teamHistory : history) {
+            for (int[] fromHistory : teamHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 3;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param hashMove a move to search first, or {@link #NO_MOVE}.
+     * @return the score of the position for the team to move, or 0 if the search was aborted.
+     */
+    private int search(int depth, int ply, int alpha, int beta, int hashMove) {
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+        if (ply > 0) {
+            int value = tablebases.probe(game);
+            if (value != Tablebases.NOT_FOUND) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck && ply < MAX_DEPTH / 2) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        if (ply == MAX_DEPTH) {
+            return Evaluation.evaluate(game);
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        if (entry != TranspositionTable.NO_ENTRY) {
+            if (hashMove == NO_MOVE) {
+                hashMove = TranspositionTable.move(entry);
+            }
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                        (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        scoreMoves(ply, moves, hashMove);
+
+        int originalAlpha = alpha;
+        int bestMove = NO_MOVE;
+        int bestScore = -INFINITE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(ply, moves, i);
+            game.applyMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha, NO_MOVE);
+            } else {
+                // Principal variation search: prove the move is no better than alpha with a null window, and only
+                // search it fully if that fails.
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, NO_MOVE);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha, NO_MOVE);
+                }
+            }
+            game.undoMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                    rootBestScore = score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!isTactical(move)) {
+                            recordQuietCutoff(ply, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND :
+                bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures and promotions, or every move when in check, until the position is quiet enough to
+     * evaluate. The team to move may also "stand pat" on the evaluation instead of making any of them.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply == MAX_DEPTH) {
+            return Evaluation.evaluate(game);
+        }
+
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int bestScore = -INFINITE;
+        if (!inCheck) {
+            bestScore = Evaluation.evaluate(game);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        if (!inCheck) {
+            keepTacticalMoves(moves);
+        }
+        scoreMoves(ply, moves, NO_MOVE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(ply, moves, i);
+            if (!inCheck && moveScores[ply][i] < 0) {
+                // Only captures that lose material are scored below zero, so every move left loses material
+                break;
+            }
+            game.applyMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Converts a mate score from distance to mate from the root to distance to mate from the current position, which
+     * is the same wherever in the tree the position is reached.
+     */
+    private static int toTable(int score, int ply) {
+        return isMateScore(score) ? score + Integer.signum(score) * ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return isMateScore(score) ? score - Integer.signum(score) * ply : score;
+    }
+
+    private static int tablebaseScore(int value, int ply) {
+        if (Tablebases.isDraw(value)) {
+            return 0;
+        }
+        int mateScore = MATE_SCORE - ply - Tablebases.pliesToMate(value);
+        return Tablebases.isWin(value) ? mateScore : -mateScore;
+    }
+
+    private boolean isDraw() {
+        return game.getHalfmoveClock() >= 100 || game.isRepetition() || game.hasInsufficientMaterial();
+    }
+
+    /**
+     * Counts a node and checks the limits, checking the clock and the stop flag only every so often.
+     *
+     * @return whether the search must stop.
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= maxNodes) {
+            aborted = true;
+        } else if (nodes % LIMIT_CHECK_INTERVAL == 0) {
+            aborted = stopRequested || Thread.currentThread().isInterrupted() ||
+                    (hasDeadline && System.nanoTime() - deadline >= 0);
+        }
+        return aborted;
+    }
+
+    private static boolean isTactical(int move) {
+        return Moves.hasFlag(move, Moves.CAPTURE) || Moves.promotionPiece(move) != null;
+    }
+
+    private static void keepTacticalMoves(MoveList moves) {
+        // MoveList only removes from the end, so the list is compacted by swapping each kept move forward.
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (isTactical(moves.get(i))) {
+                swap(moves, kept++, i);
+            }
+        }
+        while (moves.size() > kept) {
+            moves.removeLast();
+        }
+    }
+
+    private static void swap(MoveList moves, int i, int j) {
+        if (i != j) {
+            int move = moves.get(i);
+            moves.set(i, moves.get(j));
+            moves.set(j, move);
+        }
+    }
+
+    private void scoreMoves(int ply, MoveList moves, int hashMove) {
+        ChessBoard board = game.getBoard();
+        int team = game.getTeamTurn().ordinal();
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Moves.from(move);
+            int to = Moves.to(move);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (isTactical(move)) {
+                // Most valuable victim, least valuable attacker
+                int victim = Moves.hasFlag(move, Moves.CAPTURE) ?
+                        Evaluation.PIECE_VALUES[board.getPiece(Moves.capturedSquare(move)).getPieceType().ordinal()] :
+                        0;
+                if (Moves.promotionPiece(move) != null) {
+                    victim += Evaluation.PIECE_VALUES[Moves.promotionPiece(move).ordinal()];
+                }
+                int attacker = Evaluation.PIECE_VALUES[board.getPiece(from).getPieceType().ordinal()];
+                int base = StaticExchange.losesMaterial(board, move) ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE;
+                score = base + victim * 16 - attacker / 16;
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[team][from][to];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the highest scoring of the moves from {@code index} on to {@code index}. Sorting lazily like this does
+     * no work for the moves never reached after a cutoff.
+     */
+    private int nextMove(int ply, MoveList moves, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            swap(moves, index, best);
+            int score = scores[index];
+            scores[index] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(index);
+    }
+
+    private void recordQuietCutoff(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[game.getTeamTurn().ordinal()][Moves.from(move)];
+        int to = Moves.to(move);
+        fromHistory[to] = Math.min(MAX_HISTORY_SCORE, fromHistory[to] + depth * depth);
+    }
+}
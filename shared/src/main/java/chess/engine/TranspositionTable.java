@@ -0,0 +1,160 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results keyed by Zobrist key (see {@link chess.ChessGame#getZobristKey()}),
+ * which any number of searches may share without locking.
+ * <p>
+ * The table is a single {@code long[]} of two-entry buckets. Each entry is two longs: the key XORed with the data, and
+ * the data itself, packed as below. Threads read and write entries without synchronizing, so an entry may be torn
+ * between two writers; a torn entry no longer XORs back to its key and is treated as missing, which is the only
+ * safety a cache like this needs. Probing returns the packed data as a {@code long} rather than an object, so it
+ * allocates nothing.
+ * <p>
+ * The first entry of a bucket keeps the deepest result from the current search and is only replaced by one at least
+ * as deep, or once the search that wrote it is over. Everything else goes into the second entry, which always takes
+ * the newest result.
+ * <p>
+ * Packed data: bits 0-18 hold the best move (see {@link chess.Moves}), bits 19-20 the bound, bits 21-27 the depth,
+ * bits 28-35 the generation of the search that stored it and bits 36-63 the score.
+ */
+public final class TranspositionTable {
+    /**
+     * Returned by {@link #probe(long)} when the table has no entry for the key.
+     */
+    public static final long NO_ENTRY = 0;
+    /**
+     * The score is the position's exact value.
+     */
+    public static final int EXACT = 1;
+    /**
+     * The search failed high: the position is worth at least the score.
+     */
+    public static final int LOWER_BOUND = 2;
+    /**
+     * The search failed low: the position is worth at most the score.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * The largest budget, which keeps the table within the maximum array length.
+     */
+    public static final int MAX_MEGABYTES = 4096;
+
+    private static final int BUCKET_LONGS = 4;
+    private static final int BYTES_PER_BUCKET = BUCKET_LONGS * Long.BYTES;
+
+    private static final int MOVE_MASK = (1 << 19) - 1;
+    private static final int BOUND_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 21;
+    private static final int MAX_DEPTH = 0x7F;
+    private static final int GENERATION_SHIFT = 28;
+    private static final int GENERATION_MASK = 0xFF;
+    private static final int SCORE_SHIFT = 36;
+
+    private final long[] table;
+    private final long bucketMask;
+    private volatile int generation;
+
+    /**
+     * @param megabytes the memory budget. The table uses the largest power of two number of buckets that fits.
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("megabytes must be between 1 and " + MAX_MEGABYTES);
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_BUCKET);
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return the number of entries the table can hold.
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Marks the entries stored so far as belonging to an earlier search, so that the current search's results can
+     * replace them however deep they are.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Forgets every entry.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * @param key a position's Zobrist key.
+     * @return the packed data stored for the position, to be read with {@link #move(long)}, {@link #score(long)},
+     * {@link #depth(long)} and {@link #bound(long)}, or {@link #NO_ENTRY}.
+     */
+    public long probe(long key) {
+        int index = bucketIndex(key);
+        for (int entry = index; entry < index + BUCKET_LONGS; entry += 2) {
+            long data = table[entry + 1];
+            if ((table[entry] ^ data) == key && data != NO_ENTRY) {
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     *
+     * @param key   the position's Zobrist key.
+     * @param move  the best move found, or 0 for none.
+     * @param score the score, which must fit in 28 bits.
+     * @param depth the depth searched, in plies.
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int currentGeneration = generation;
+        long data = ((long) score << SCORE_SHIFT) | ((long) currentGeneration << GENERATION_SHIFT) |
+                ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT) |
+                (move & MOVE_MASK);
+
+        int index = bucketIndex(key);
+        long preferred = table[index + 1];
+        boolean samePosition = (table[index] ^ preferred) == key;
+        int entry = index + 2;
+        if (samePosition || preferred == NO_ENTRY || depth >= depth(preferred) ||
+                generation(preferred) != currentGeneration) {
+            entry = index;
+        }
+        table[entry] = key ^ data;
+        table[entry + 1] = data;
+    }
+
+    public static int move(long entry) {
+        return (int) entry & MOVE_MASK;
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private int bucketIndex(long key) {
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+}
@@ -0,0 +1,197 @@
+package chess.movementrule;
+
+import chess.Bitboards;
+import chess.ChessGame;
+
+/**
+ * Precomputed attack sets, indexed by square (see {@link Bitboards}).
+ * <p>
+ * Knight, king and pawn attacks are looked up directly. Rook and bishop attacks depend on which squares between the
+ * slider and the board edge are occupied, so each square has a mask of those "relevant" squares and a block of table
+ * entries, one for each subset of the mask. {@code Long.compress()} (PEXT on hardware that has it) packs the relevant
+ * occupied squares into a dense index into that block.
+ */
+public final class AttackTables {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{2, -1}, {2, 1}, {1, -2}, {1, 2}, {-1, -2}, {-1, 2}, {-2, -1},
+            {-2, 1}};
+    private static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {1, -1}, {1, 0}, {1, 1}, {0, -1},
+            {0, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_OFFSETS);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = leaperAttacks(square, new int[][]{{1, -1},
+                    {1, 1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = leaperAttacks(square, new int[][]{{-1, -1},
+                    {-1, 1}});
+        }
+        ROOK_TABLE = buildSliderTable(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildSliderTable(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_OFFSETS);
+        for (int square = 0; square < 64; square++) {
+            fillLines(square, ROOK_DIRECTIONS);
+            fillLines(square, BISHOP_DIRECTIONS);
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the given square attacks diagonally.
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @param square    the rook's square.
+     * @param occupancy the set of occupied squares.
+     * @return the squares a rook on the given square attacks, including the first blocker in each direction.
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) Long.compress(occupancy, ROOK_MASKS[square])];
+    }
+
+    /**
+     * @param square    the bishop's square.
+     * @param occupancy the set of occupied squares.
+     * @return the squares a bishop on the given square attacks, including the first blocker in each direction.
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) Long.compress(occupancy, BISHOP_MASKS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * @return the squares strictly between the two given squares if they share a rank, file or diagonal, or an empty
+     * set otherwise.
+     */
+    public static long between(int square1, int square2) {
+        return BETWEEN[square1][square2];
+    }
+
+    /**
+     * @return every square on the rank, file or diagonal through both given squares (edge to edge, including both
+     * squares), or an empty set if they do not share one.
+     */
+    public static long line(int square1, int square2) {
+        return LINE[square1][square2];
+    }
+
+    private static void fillLines(int square, int[][] directions) {
+        for (int[] direction : directions) {
+            long fullLine = Bitboards.bit(square) | slidingAttacks(square, 0, new int[][]{direction})
+                    | slidingAttacks(square, 0, new int[][]{{-direction[0], -direction[1]}});
+            long passed = 0;
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (isOnBoard(row, col)) {
+                int other = Bitboards.square(row, col);
+                BETWEEN[square][other] = passed;
+                LINE[square][other] = fullLine;
+                passed |= Bitboards.bit(other);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+    }
+
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            attacks |= bitIfOnBoard(Bitboards.row(square) + offset[0], Bitboards.column(square) + offset[1]);
+        }
+        return attacks;
+    }
+
+    private static long[] buildSliderTable(int[][] directions, long[] masks, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantOccupancyMask(square, directions);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            int numSubsets = 1 << Long.bitCount(masks[square]);
+            for (int index = 0; index < numSubsets; index++) {
+                long occupancy = Long.expand(index, masks[square]);
+                table[offsets[square] + index] = slidingAttacks(square, occupancy, directions);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the squares whose occupancy can change a slider's attacks: every square along each ray except the one on
+     * the edge of the board, since there is nothing beyond it for a piece there to block.
+     */
+    private static long relevantOccupancyMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (isOnBoard(row + direction[0], col + direction[1])) {
+                mask |= bitIfOnBoard(row, col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (isOnBoard(row, col)) {
+                long bit = Bitboards.bit(Bitboards.square(row, col));
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(int row, int col) {
+        return 0 < row && row < 9 && 0 < col && col < 9;
+    }
+
+    private static long bitIfOnBoard(int row, int col) {
+        return isOnBoard(row, col) ? Bitboards.bit(Bitboards.square(row, col)) : 0;
+    }
+}
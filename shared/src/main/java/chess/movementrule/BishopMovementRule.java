@@ -1,36 +1,22 @@
 package chess.movementrule;
 
 import chess.ChessBoard;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.LinkedList;
+import chess.MoveList;
 
 public class BishopMovementRule extends MovementRule {
 
     /**
-     * Calculates all the positions this chess piece can move to. Does not take into account moves that are illegal due
-     * to leaving the king in danger.
+     * Adds the moves this Bishop can make. Does not take into account moves that are illegal due to leaving the king
+     * in danger, except through {@code allowedTargets}.
      *
-     * @param board      the current ChessBoard.
-     * @param myPosition this Bishop's current position.
-     * @return a Collection of valid moves.
+     * @param board          the current ChessBoard.
+     * @param square         this Bishop's square index.
+     * @param allowedTargets the set of squares moves may end on.
+     * @param moves          the list to add the moves to.
      */
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new LinkedList<>();
-
-        RelativeChessMove moveUpLeft = pos -> shift(pos, 1, -1);
-        RelativeChessMove moveUpRight = pos -> shift(pos, 1, 1);
-        RelativeChessMove moveDownLeft = pos -> shift(pos, -1, -1);
-        RelativeChessMove moveDownRight = pos -> shift(pos, -1, 1);
-
-        moves.addAll(getMovesFromRepeatedRelativeMove(board, myPosition, moveUpLeft));
-        moves.addAll(getMovesFromRepeatedRelativeMove(board, myPosition, moveUpRight));
-        moves.addAll(getMovesFromRepeatedRelativeMove(board, myPosition, moveDownLeft));
-        moves.addAll(getMovesFromRepeatedRelativeMove(board, myPosition, moveDownRight));
-
-        return moves;
+    public void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves) {
+        long attacks = AttackTables.bishopAttacks(square, board.getOccupancy());
+        addMovesToTargets(board, square, attacks & allowedTargets, moves);
     }
 }
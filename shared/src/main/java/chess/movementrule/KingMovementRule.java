@@ -1,47 +1,74 @@
 package chess.movementrule;
 
+import chess.Bitboards;
+import chess.CastlingRights;
 import chess.ChessBoard;
 import chess.ChessGame;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.LinkedList;
+import chess.ChessPiece;
+import chess.ChessPieces;
+import chess.MoveList;
+import chess.Moves;
 
 public class KingMovementRule extends MovementRule {
 
     /**
-     * Calculates all the positions this chess piece can move to. Does not take into account moves that are illegal due
-     * to leaving the king in danger.
+     * Adds the moves this King can make. Does not take into account moves that are illegal due to leaving the king
+     * in danger, except through {@code allowedTargets}. Castling depends on the game's castling rights rather than the
+     * board, so it is added separately by {@link #generateCastlingMoves}.
      *
-     * @param board      the current ChessBoard.
-     * @param myPosition this King's current position.
-     * @return a Collection of valid moves.
+     * @param board          the current ChessBoard.
+     * @param square         this King's square index.
+     * @param allowedTargets the set of squares moves may end on.
+     * @param moves          the list to add the moves to.
      */
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new LinkedList<>();
-        ChessGame.TeamColor myColor = board.getPiece(myPosition).getTeamColor();
-        for (ChessPosition endPosition : getPotentialEndPositions(myPosition)) {
-            if (isValidEmptySpace(board, endPosition) || isValidCapturingSpace(board, myColor, endPosition)) {
-                moves.add(new ChessMove(myPosition, endPosition));
-            }
+    public void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves) {
+        addMovesToTargets(board, square, AttackTables.kingAttacks(square) & allowedTargets, moves);
+    }
+
+    /**
+     * Adds the castling moves the King on the given square can legally make. A team may castle on a side when it still
+     * has the right to, the squares between its king and rook are empty, and the king is not in check and does not
+     * pass over or land on an attacked square.
+     *
+     * @param board          the current ChessBoard.
+     * @param square         the King's square index.
+     * @param castlingRights the game's {@link CastlingRights} flags.
+     * @param moves          the list to add the moves to.
+     */
+    public static void generateCastlingMoves(ChessBoard board, int square, int castlingRights, MoveList moves) {
+        ChessGame.TeamColor color = board.getPiece(square).getTeamColor();
+        int homeRow = (color == ChessGame.TeamColor.WHITE) ? 1 : 8;
+        if (square != Bitboards.square(homeRow, 5)) {
+            return;
         }
 
-        return moves;
+        if ((castlingRights & CastlingRights.kingside(color)) != 0) {
+            addCastlingMove(board, square, Bitboards.square(homeRow, 7), color, moves);
+        }
+        if ((castlingRights & CastlingRights.queenside(color)) != 0) {
+            addCastlingMove(board, square, Bitboards.square(homeRow, 3), color, moves);
+        }
     }
 
-    private Collection<ChessPosition> getPotentialEndPositions(ChessPosition position) {
-        Collection<ChessPosition> positions = new LinkedList<>();
-        positions.add(shift(position, -1, -1));
-        positions.add(shift(position, -1, 0));
-        positions.add(shift(position, -1, 1));
-        positions.add(shift(position, 1, -1));
-        positions.add(shift(position, 1, 0));
-        positions.add(shift(position, 1, 1));
-        positions.add(shift(position, 0, -1));
-        positions.add(shift(position, 0, 1));
-        return positions;
-    }
+    private static void addCastlingMove(ChessBoard board, int square, int target, ChessGame.TeamColor color,
+            MoveList moves) {
+        int rookSquare = CastlingRights.rookStartSquare(target);
+        if ((board.getPieceSet(color, ChessPiece.PieceType.ROOK) & Bitboards.bit(rookSquare)) == 0) {
+            return;
+        }
+        if ((AttackTables.between(square, rookSquare) & board.getOccupancy()) != 0) {
+            return;
+        }
 
+        ChessGame.TeamColor enemy = ChessPieces.not(color);
+        long occupancyWithoutKing = board.getOccupancy() & ~Bitboards.bit(square);
+        long kingPath = AttackTables.between(square, target) | Bitboards.bit(square) | Bitboards.bit(target);
+        for (; kingPath != 0; kingPath = Bitboards.withoutFirstSquare(kingPath)) {
+            if (board.getAttackers(Bitboards.firstSquare(kingPath), enemy, occupancyWithoutKing) != 0) {
+                return;
+            }
+        }
+        moves.add(Moves.encode(square, target, Moves.CASTLING));
+    }
 }
@@ -1,49 +1,21 @@
 package chess.movementrule;
 
 import chess.ChessBoard;
-import chess.ChessGame;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.LinkedList;
+import chess.MoveList;
 
 public class KnightMovementRule extends MovementRule {
 
     /**
-     * Calculates all the positions this chess piece can move to. Does not take into account moves that are illegal due
-     * to leaving the king in danger.
+     * Adds the moves this Knight can make. Does not take into account moves that are illegal due to leaving the king
+     * in danger, except through {@code allowedTargets}.
      *
-     * @param board      the current ChessBoard.
-     * @param myPosition this Knight's current position.
-     * @return a Collection of valid moves.
+     * @param board          the current ChessBoard.
+     * @param square         this Knight's square index.
+     * @param allowedTargets the set of squares moves may end on.
+     * @param moves          the list to add the moves to.
      */
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new LinkedList<>();
-        ChessGame.TeamColor color = board.getPiece(myPosition).getTeamColor();
-        for (ChessPosition endPosition : getPotentialEndPositions(myPosition)) {
-            if (isValidEmptySpace(board, endPosition) || isValidCapturingSpace(board, color, endPosition)) {
-                moves.add(new ChessMove(myPosition, endPosition));
-            }
-        }
-
-        return moves;
-    }
-
-    private Collection<ChessPosition> getPotentialEndPositions(ChessPosition position) {
-        Collection<ChessPosition> positions = new LinkedList<>();
-        positions.add(shift(position, 2, -1));
-        positions.add(shift(position, 2, 1));
-
-        positions.add(shift(position, 1, -2));
-        positions.add(shift(position, 1, 2));
-
-        positions.add(shift(position, -1, -2));
-        positions.add(shift(position, -1, 2));
-
-        positions.add(shift(position, -2, -1));
-        positions.add(shift(position, -2, 1));
-        return positions;
+    public void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves) {
+        addMovesToTargets(board, square, AttackTables.knightAttacks(square) & allowedTargets, moves);
     }
 }
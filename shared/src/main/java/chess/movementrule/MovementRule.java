@@ -3,85 +3,52 @@ package chess.movementrule;
 import chess.*;
 
 import java.util.Collection;
-import java.util.LinkedList;
 
 public abstract class MovementRule {
 
     /**
-     * Returns a version of the given ChessPosition shifted by the given amounts. Positive values shift up and right
-     * relative to the white player.
+     * Adds the moves the piece on the given square can make to the given list, as packed moves (see {@link Moves}).
+     * Does not take into account moves that are illegal due to leaving the king in danger, except through
+     * {@code allowedTargets}.
      *
-     * @param position the starting ChessPosition.
-     * @param deltaRow the amount to shift the row.
-     * @param deltaCol the amount to shift the column.
-     * @return a shifted ChessPosition.
+     * @param board          the current ChessBoard.
+     * @param square         the square index of the moving piece.
+     * @param allowedTargets the set of squares moves may end on. Moves to any other square are left out.
+     * @param moves          the list to add the moves to.
      */
-    protected static ChessPosition shift(ChessPosition position, int deltaRow, int deltaCol) {
-        return new ChessPosition(position.getRow() + deltaRow, position.getColumn() + deltaCol);
-    }
-
-    public abstract Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition);
+    public abstract void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves);
 
     /**
-     * Returns a version of the given ChessPosition shifted by the given amounts towards the opposing side. Positive
-     * values shift up and right relative to the player who owns the piece.
+     * Calculates all the positions the piece at the given position can move to. Does not take into account moves that
+     * are illegal due to leaving the king in danger.
      *
-     * @param position the starting ChessPosition.
-     * @param color    the color of the player who owns the piece.
-     * @param deltaRow the amount to shift the row.
-     * @param deltaCol the amount to shift the column.
-     * @return a shifted ChessPosition.
+     * @param board      the current ChessBoard.
+     * @param myPosition the moving piece's current position.
+     * @return a Collection of valid moves.
      */
-    protected ChessPosition shiftRelative(ChessPosition position, ChessGame.TeamColor color, int deltaRow,
-            int deltaCol) {
-        if (color == ChessGame.TeamColor.WHITE) {
-            return shift(position, deltaRow, deltaCol);
-        } else {
-            return shift(position, -deltaRow, -deltaCol);
-        }
+    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        MoveList moves = new MoveList();
+        generateMoves(board, Bitboards.square(myPosition), -1L, moves);
+        return moves.toChessMoves();
     }
 
     /**
-     * Returns a Collection of all ChessMoves obtained by repeatedly applying the given RelativeChessMove to the given
-     * starting ChessPosition any number of times until an invalid move is made. Application stops when applying the
-     * RelativeChessMove again would land either outside the board, on an occupied space, or back on the start position
-     * (the start position is not included in the Collection). If the final move is a capture (one that ends on a space
-     * occupied by an enemy piece), it is included in the Collection, but counts as an end condition and the
-     * relativeMove is not applied again.
+     * Adds a move from the given square to each square in the given set that is not occupied by the moving piece's own
+     * team, flagging the ones that capture.
      *
-     * @param board         the ChessBoard.
-     * @param startPosition the starting ChessPosition.
-     * @param relativeMove  the RelativeChessMove to apply to the startPosition.
-     * @return a Collection of ChessMoves made by repeatedly applying relativeMove.
+     * @param board   the ChessBoard.
+     * @param square  the square index of the moving piece.
+     * @param targets the set of squares the moving piece attacks and is allowed to move to.
+     * @param moves   the list to add the moves to.
      */
-    protected Collection<ChessMove> getMovesFromRepeatedRelativeMove(ChessBoard board, ChessPosition startPosition,
-            RelativeChessMove relativeMove) {
-        Collection<ChessMove> moves = new LinkedList<>();
-
-        ChessPosition currentEndPosition = relativeMove.apply(startPosition);
-
-        while (isValidEmptySpace(board, currentEndPosition) && !currentEndPosition.equals(startPosition)) {
-            moves.add(new ChessMove(startPosition, currentEndPosition));
-            currentEndPosition = relativeMove.apply(currentEndPosition);
-        }
-
-        ChessPiece previousOccupant = board.getPiece(currentEndPosition);
-        ChessGame.TeamColor movingPieceColor = board.getPiece(startPosition).getTeamColor();
-        if (previousOccupant != null && previousOccupant.getTeamColor() != movingPieceColor) {
-            moves.add(new ChessMove(startPosition, currentEndPosition));
+    protected static void addMovesToTargets(ChessBoard board, int square, long targets, MoveList moves) {
+        ChessGame.TeamColor color = board.getPiece(square).getTeamColor();
+        long enemies = board.getTeamSet(ChessPieces.not(color));
+        targets &= ~board.getTeamSet(color);
+        for (; targets != 0; targets = Bitboards.withoutFirstSquare(targets)) {
+            int target = Bitboards.firstSquare(targets);
+            int flags = (enemies & Bitboards.bit(target)) != 0 ? Moves.CAPTURE : 0;
+            moves.add(Moves.encode(square, target, flags));
         }
-
-        return moves;
-    }
-
-    protected boolean isValidEmptySpace(ChessBoard board, ChessPosition position) {
-        return position.isValidPosition() && board.getPiece(position) == null;
-    }
-
-    protected boolean isValidCapturingSpace(ChessBoard board, ChessGame.TeamColor movingPieceColor,
-            ChessPosition position) {
-        return position.isValidPosition()
-                && board.getPiece(position) != null
-                && board.getPiece(position).getTeamColor() != movingPieceColor;
     }
 }
@@ -2,95 +2,104 @@ package chess.movementrule;
 
 import chess.*;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
 public class PawnMovementRule extends MovementRule {
 
-    // TODO en passant
-    //  ??? 3-valued variable (left, right, none) that the Board can set
-    //  when this pawn becomes capable of attacking? Make sure it
-    //  resets it afterward!
+    private static final ChessPiece.PieceType[] PROMOTION_PIECES = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT};
 
     /**
-     * Calculates all the positions this chess piece can move to. Does not take into account moves that are illegal due
-     * to leaving the king in danger.
+     * Adds the moves this Pawn can make. Does not take into account moves that are illegal due to leaving the king in
+     * danger, except through {@code allowedTargets}. En passant depends on the move before, which the board does not
+     * know, so it is added separately by {@link #generateEnPassantMove}.
      *
-     * @param board         the current ChessBoard.
-     * @param startPosition this Pawn's current position.
-     * @return a Collection of valid moves.
+     * @param board          the current ChessBoard.
+     * @param square         this Pawn's square index.
+     * @param allowedTargets the set of squares moves may end on.
+     * @param moves          the list to add the moves to.
      */
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition startPosition) {
-        Collection<ChessPosition> endPositions = new LinkedList<>();
-
-        addForwardEndPositionsIfValid(endPositions, board, startPosition);
-        addDiagonalAttackEndPositionsIfValid(endPositions, board, startPosition, 1);
-        addDiagonalAttackEndPositionsIfValid(endPositions, board, startPosition, -1);
+    public void generateMoves(ChessBoard board, int square, long allowedTargets, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        ChessGame.TeamColor color = piece.getTeamColor();
 
-        return createMovesFromEndPositions(endPositions, startPosition, board);
+        long captures = AttackTables.pawnAttacks(color, square) & board.getTeamSet(ChessPieces.not(color));
+        addMovesToTargets(square, captures & allowedTargets, Moves.CAPTURE, color, moves);
+        addMovesToTargets(square, forwardTargets(board, piece, square) & allowedTargets, 0, color, moves);
     }
 
-    private Collection<ChessMove> createMovesFromEndPositions(Collection<ChessPosition> endPositions,
-            ChessPosition startPosition, ChessBoard board) {
-        Collection<ChessMove> moves = new LinkedList<>();
-        for (ChessPosition endPosition : endPositions) {
-            ChessGame.TeamColor color = board.getPiece(startPosition).getTeamColor();
-            if (canPromote(endPosition, color)) {
-                addPromotionMovesFromMove(moves, color, startPosition, endPosition);
-            } else {
-                moves.add(new ChessMove(startPosition, endPosition));
-            }
+    /**
+     * Adds the en passant capture the Pawn on the given square can make, if any. Whether it would leave the king in
+     * check is not taken into account.
+     *
+     * @param board           the current ChessBoard.
+     * @param square          the Pawn's square index.
+     * @param enPassantSquare the square a pawn passed over with a double move on the last move, or
+     *                        {@link Bitboards#NO_SQUARE}.
+     * @param moves           the list to add the move to.
+     */
+    public static void generateEnPassantMove(ChessBoard board, int square, int enPassantSquare, MoveList moves) {
+        if (enPassantSquare == Bitboards.NO_SQUARE) {
+            return;
+        }
+        ChessGame.TeamColor color = board.getPiece(square).getTeamColor();
+        if ((AttackTables.pawnAttacks(color, square) & Bitboards.bit(enPassantSquare)) != 0) {
+            moves.add(Moves.encode(square, enPassantSquare, Moves.CAPTURE | Moves.EN_PASSANT));
         }
-        return moves;
     }
 
-    private boolean canPromote(ChessPosition endPosition, ChessGame.TeamColor color) {
-        return endPosition.getRow() == 8 && color == ChessGame.TeamColor.WHITE ||
-                endPosition.getRow() == 1 && color == ChessGame.TeamColor.BLACK;
+    /**
+     * Finds the en passant target a double pawn move creates. It is only recorded when an enemy pawn is in place to
+     * capture there, so that positions differing only by an unusable target are treated as the same.
+     *
+     * @param from       the double-moving pawn's start square.
+     * @param to         the double-moving pawn's end square.
+     * @param color      the double-moving pawn's team.
+     * @param enemyPawns the set of squares holding the other team's pawns.
+     * @return the square the pawn passed over, or {@link Bitboards#NO_SQUARE} if no enemy pawn can capture there.
+     */
+    public static int enPassantSquareAfter(int from, int to, ChessGame.TeamColor color, long enemyPawns) {
+        int passed = (from + to) / 2;
+        return (AttackTables.pawnAttacks(color, passed) & enemyPawns) != 0 ? passed : Bitboards.NO_SQUARE;
     }
 
-    private void addPromotionMovesFromMove(Collection<ChessMove> moves, ChessGame.TeamColor color,
-            ChessPosition startPosition, ChessPosition endPosition) {
-        if (endPosition.getRow() == 8 && color == ChessGame.TeamColor.WHITE ||
-                endPosition.getRow() == 1 && color == ChessGame.TeamColor.BLACK) {
-            moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.QUEEN));
-            moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.BISHOP));
-            moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.ROOK));
-            moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.KNIGHT));
+    private void addMovesToTargets(int square, long targets, int flags, ChessGame.TeamColor color, MoveList moves) {
+        for (; targets != 0; targets = Bitboards.withoutFirstSquare(targets)) {
+            int target = Bitboards.firstSquare(targets);
+            if (canPromote(target, color)) {
+                for (ChessPiece.PieceType promotionPiece : PROMOTION_PIECES) {
+                    moves.add(Moves.encode(square, target, promotionPiece, flags));
+                }
+            } else if (Math.abs(target - square) == 16) {
+                moves.add(Moves.encode(square, target, flags | Moves.DOUBLE_PAWN_PUSH));
+            } else {
+                moves.add(Moves.encode(square, target, flags));
+            }
         }
     }
 
-    private void addForwardEndPositionsIfValid(Collection<ChessPosition> endPositions, ChessBoard board,
-            ChessPosition myPosition) {
-        ChessPiece piece = board.getPiece(myPosition);
-
-        ChessPosition oneStepPosition = shiftRelative(myPosition, piece.getTeamColor(), 1, 0);
-        if (isValidEmptySpace(board, oneStepPosition)) {
-            endPositions.add(oneStepPosition);
-
-            ChessPosition twoStepPosition = shiftRelative(myPosition, piece.getTeamColor(), 2, 0);
-            if (piece.hasNeverMoved() && isOnStartRow(myPosition, piece.getTeamColor()) &&
-                    isValidEmptySpace(board, twoStepPosition)) {
-                endPositions.add(twoStepPosition);
-            }
-        }
+    private boolean canPromote(int target, ChessGame.TeamColor color) {
+        return Bitboards.row(target) == 8 && color == ChessGame.TeamColor.WHITE ||
+                Bitboards.row(target) == 1 && color == ChessGame.TeamColor.BLACK;
     }
 
-    private void addDiagonalAttackEndPositionsIfValid(Collection<ChessPosition> endPositions, ChessBoard board,
-            ChessPosition startPosition, int direction) {
-        int deltaCol = (direction > 0) ? 1 : -1;
-        ChessGame.TeamColor color = board.getPiece(startPosition).getTeamColor();
-        ChessPosition endPosition = shiftRelative(startPosition, color, 1, deltaCol);
+    private long forwardTargets(ChessBoard board, ChessPiece piece, int square) {
+        int step = (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? 8 : -8;
+        int oneStepSquare = square + step;
+        long empty = ~board.getOccupancy();
+        if (oneStepSquare < 0 || oneStepSquare >= 64 || (empty & Bitboards.bit(oneStepSquare)) == 0) {
+            return 0;
+        }
 
-        if (isValidCapturingSpace(board, color, endPosition)) {
-            endPositions.add(endPosition);
+        long targets = Bitboards.bit(oneStepSquare);
+        if (isOnStartRow(square, piece.getTeamColor())) {
+            targets |= empty & Bitboards.bit(oneStepSquare + step);
         }
+        return targets;
     }
 
-    private boolean isOnStartRow(ChessPosition position, ChessGame.TeamColor color) {
+    private boolean isOnStartRow(int square, ChessGame.TeamColor color) {
         int startRow = (color == ChessGame.TeamColor.WHITE) ? 2 : 7;
-        return position.getRow() == startRow;
+        return Bitboards.row(square) == startRow;
     }
 
 }
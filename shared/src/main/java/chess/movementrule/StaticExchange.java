@@ -0,0 +1,152 @@
+package chess.movementrule;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPieces;
+import chess.Moves;
+
+/**
+ * Static exchange evaluation: what a move wins or loses in material once both teams have made every capture on its
+ * end square that pays them, worked out from the board's attack sets without making any moves.
+ * <p>
+ * Each team recaptures with its least valuable attacker first, and may stop capturing whenever it is ahead, so the
+ * result is the minimax of the sequence. Sliders lined up behind an attacker join in once it has captured. A king only
+ * captures if the other team has nothing left to take it with. Pins and checks elsewhere on the board are ignored, as
+ * is usual, so the result is an estimate for ordering and pruning captures rather than a proof.
+ */
+public final class StaticExchange {
+    // By piece type ordinal. Knights and bishops are equal, as an exchange of one for the other is usually even, and
+    // a king is never captured.
+    private static final int[] PIECE_VALUES = {0, 900, 300, 300, 500, 100};
+
+    private static final int PAWN_VALUE = PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+    private static final int QUEEN_VALUE = PIECE_VALUES[ChessPiece.PieceType.QUEEN.ordinal()];
+    // Attackers are tried from least to most valuable
+    private static final ChessPiece.PieceType[] ATTACKER_ORDER = {ChessPiece.PieceType.PAWN,
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING};
+    private static final long PROMOTION_ROWS = 0xFF000000000000FFL;
+
+    private StaticExchange() {
+    }
+
+    /**
+     * @return the value of a piece of the given type in an exchange, in centipawns.
+     */
+    public static int value(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Evaluates the exchange a move starts. Allocates nothing, so it is cheap enough to call for every capture in a
+     * search.
+     *
+     * @param board the board before the move.
+     * @param move  a packed move (see {@link Moves}) with its capture and en passant flags set, as move generation
+     *              sets them.
+     * @return the material the moving team gains, in centipawns, which is negative if the move loses material.
+     */
+    public static int evaluate(ChessBoard board, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        long occupancy = board.getOccupancy() & ~Bitboards.bit(from);
+
+        int balance = 0;
+        if (Moves.hasFlag(move, Moves.CAPTURE)) {
+            int capturedSquare = Moves.capturedSquare(move);
+            balance = value(board.getPiece(capturedSquare).getPieceType());
+            occupancy &= ~Bitboards.bit(capturedSquare);
+        }
+        int onSquare = value(board.getPiece(from).getPieceType());
+        ChessPiece.PieceType promotion = Moves.promotionPiece(move);
+        if (promotion != null) {
+            balance += value(promotion) - PAWN_VALUE;
+            onSquare = value(promotion);
+        }
+
+        // The result lies in [lowest, highest]: the moving team can stop after any of its captures, so the result is at
+        // least the balance then, and the other team likewise keeps it at most the balance after each of its own. The
+        // other team can decline to recapture at all.
+        int lowest = Integer.MIN_VALUE;
+        int highest = balance;
+        ChessGame.TeamColor mover = board.getPiece(from).getTeamColor();
+        ChessGame.TeamColor side = ChessPieces.not(mover);
+        long attackers = attackersOf(board, to, occupancy);
+        while (lowest != highest) {
+            long sideAttackers = attackers & board.getTeamSet(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            ChessPiece.PieceType type = leastValuableType(board, side, sideAttackers);
+            int square = Bitboards.firstSquare(sideAttackers & board.getPieceSet(side, type));
+            occupancy &= ~Bitboards.bit(square);
+            attackers = addXRays(board, to, occupancy, attackers) & occupancy;
+            if (type == ChessPiece.PieceType.KING && (attackers & board.getTeamSet(ChessPieces.not(side))) != 0) {
+                break;
+            }
+
+            int gain = onSquare;
+            onSquare = value(type);
+            if (type == ChessPiece.PieceType.PAWN && (Bitboards.bit(to) & PROMOTION_ROWS) != 0) {
+                gain += QUEEN_VALUE - PAWN_VALUE;
+                onSquare = QUEEN_VALUE;
+            }
+            if (side == mover) {
+                balance += gain;
+                highest = Math.min(highest, Math.max(balance, lowest));
+            } else {
+                balance -= gain;
+                lowest = Math.max(lowest, Math.min(balance, highest));
+            }
+            side = ChessPieces.not(side);
+        }
+        return Math.clamp(balance, lowest, highest);
+    }
+
+    /**
+     * @return whether the exchange a move starts loses material (see {@link #evaluate(ChessBoard, int)}), skipping
+     * the evaluation when the piece captured is worth at least as much as the piece capturing it.
+     */
+    public static boolean losesMaterial(ChessBoard board, int move) {
+        if (Moves.promotionPiece(move) == null) {
+            int attacker = value(board.getPiece(Moves.from(move)).getPieceType());
+            if (Moves.hasFlag(move, Moves.CAPTURE) &&
+                    value(board.getPiece(Moves.capturedSquare(move)).getPieceType()) >= attacker) {
+                return false;
+            }
+        }
+        return evaluate(board, move) < 0;
+    }
+
+    private static long attackersOf(ChessBoard board, int square, long occupancy) {
+        return (board.getAttackers(square, ChessGame.TeamColor.WHITE, occupancy) |
+                board.getAttackers(square, ChessGame.TeamColor.BLACK, occupancy)) & occupancy;
+    }
+
+    /**
+     * Adds the sliders of either team that attack the square through the given occupancy, which uncovers any that
+     * were lined up behind a piece that has just captured.
+     */
+    private static long addXRays(ChessBoard board, int square, long occupancy, long attackers) {
+        long queens = board.getPieceSet(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN) |
+                board.getPieceSet(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        long diagonalSliders = queens | board.getPieceSet(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP) |
+                board.getPieceSet(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        long straightSliders = queens | board.getPieceSet(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK) |
+                board.getPieceSet(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        return attackers | (AttackTables.bishopAttacks(square, occupancy) & diagonalSliders) |
+                (AttackTables.rookAttacks(square, occupancy) & straightSliders);
+    }
+
+    private static ChessPiece.PieceType leastValuableType(ChessBoard board, ChessGame.TeamColor side,
+                                                         long sideAttackers) {
+        for (ChessPiece.PieceType type : ATTACKER_ORDER) {
+            if ((sideAttackers & board.getPieceSet(side, type)) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("An attacker is not on the board");
+    }
+}
@@ -0,0 +1,117 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.Moves;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts perft nodes on a {@link ForkJoinPool}. The tree is split into one task per move until the remaining depth is
+ * small enough to count sequentially with {@link Perft#perft(ChessGame, int)}, which leaves plenty of tasks for idle
+ * workers to steal even when the subtrees below the root are very uneven in size.
+ * <p>
+ * {@link ChessGame} and its board are mutable and not thread-safe, and even looking at legal moves fills their caches,
+ * so every task works on its own copy of the game and no two tasks ever touch the same one.
+ */
+public final class ParallelPerft {
+    /**
+     * Tasks with at most this many plies left are counted sequentially rather than split further.
+     */
+    static final int SEQUENTIAL_DEPTH = 3;
+
+    private ParallelPerft() {
+    }
+
+    /**
+     * Counts perft nodes on the common pool.
+     *
+     * @see #perft(ChessGame, int, ForkJoinPool)
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts the positions reachable from the given game in exactly the given number of moves.
+     *
+     * @param game  the game to start from. It is copied before any work starts and is not modified.
+     * @param depth the number of moves (plies) to look ahead.
+     * @param pool  the pool to run on.
+     * @return the number of leaf nodes at the given depth, the same as {@link Perft#perft(ChessGame, int)}.
+     * @throws IllegalArgumentException if the depth is negative.
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+        }
+        return pool.invoke(new PerftTask(game.copy(), depth));
+    }
+
+    /**
+     * Splits the perft count by the first move, computing the counts below the moves in parallel.
+     *
+     * @param game  the game to start from. It is copied before any work starts and is not modified.
+     * @param depth the number of moves (plies) to look ahead, including the first move.
+     * @param pool  the pool to run on.
+     * @return the perft count below each legal first move, in generation order.
+     * @throws IllegalArgumentException if the depth is less than 1, as there is then no first move.
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth, ForkJoinPool pool) {
+        Perft.requireDivisible(depth);
+        ChessGame root = game.copy();
+        Map<ChessMove, PerftTask> tasks = new LinkedHashMap<>();
+        MoveList moves = Perft.legalMoves(root);
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.put(Moves.toChessMove(moves.get(i)), new PerftTask(Perft.afterMove(root, moves.get(i)), depth - 1));
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected Map<ChessMove, Long> compute() {
+                invokeAll(tasks.values());
+                Map<ChessMove, Long> counts = new LinkedHashMap<>();
+                tasks.forEach((move, task) -> counts.put(move, task.join()));
+                return counts;
+            }
+        });
+    }
+
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+
+        /**
+         * @param game a game owned by this task alone.
+         */
+        PerftTask(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return Perft.perft(game, depth);
+            }
+
+            MoveList moves = Perft.legalMoves(game);
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                subtasks.add(new PerftTask(Perft.afterMove(game, moves.get(i)), depth - 1));
+            }
+            invokeAll(subtasks);
+
+            long nodes = 0;
+            for (PerftTask subtask : subtasks) {
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+}
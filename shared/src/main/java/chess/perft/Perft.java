@@ -0,0 +1,148 @@
+package chess.perft;
+
+import chess.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"). The counts for well-known positions are
+ * published, so comparing against them checks move generation, and timing the count measures its speed.
+ * <p>
+ * Usage: {@code Perft <depth> [--divide] [--threads <n>] [FEN]}. Without a FEN, the count starts from the default
+ * starting board. {@code --divide} also prints the count below each legal move from the starting position.
+ * {@code --threads} counts on that many cores with {@link ParallelPerft}.
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: Perft <depth> [--divide] [--threads <n>] [FEN]");
+            System.exit(1);
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = false;
+        int threads = 1;
+        StringBuilder fen = new StringBuilder();
+        for (int i = 1; i < args.length; i++) {
+            if ("--divide".equals(args[i])) {
+                divide = true;
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                fen.append(args[i]).append(' ');
+            }
+        }
+        ChessGame game = fen.isEmpty() ? new ChessGame() : Fen.read(fen);
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        long startTime = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            Map<ChessMove, Long> counts = pool != null ? ParallelPerft.divide(game, depth, pool) : divide(game, depth);
+            for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+                System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = pool != null ? ParallelPerft.perft(game, depth, pool) : perft(game, depth);
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        System.out.printf("Depth %d: %d nodes in %.3f s (%.0f nodes/s) on %d thread(s)%n", depth, nodes, seconds,
+                nodes / seconds, threads);
+    }
+
+    /**
+     * Counts the positions reachable from the given game in exactly the given number of moves.
+     *
+     * @param game  the game to start from. Moves are applied to it and taken back, leaving it as it was.
+     * @param depth the number of moves (plies) to look ahead.
+     * @return the number of leaf nodes at the given depth.
+     * @throws IllegalArgumentException if the depth is negative.
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+        }
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(game, depth, newMoveLists(depth));
+    }
+
+    /**
+     * Splits the perft count by the first move, for tracking down which move a wrong count comes from.
+     *
+     * @param game  the game to start from. Moves are applied to it and taken back, leaving it as it was.
+     * @param depth the number of moves (plies) to look ahead, including the first move.
+     * @return the perft count below each legal first move, in generation order.
+     * @throws IllegalArgumentException if the depth is less than 1, as there is then no first move.
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        requireDivisible(depth);
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            counts.put(Moves.toChessMove(moves.get(i)), perft(game, depth - 1));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    static void requireDivisible(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide depth must be at least 1: " + depth);
+        }
+    }
+
+    /**
+     * @param moveLists one reusable list per remaining depth, so the count allocates nothing per node.
+     */
+    private static long perft(ChessGame game, int depth, MoveList[] moveLists) {
+        MoveList moves = moveLists[depth];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            nodes += perft(game, depth - 1, moveLists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    private static MoveList[] newMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    static MoveList legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        return moves;
+    }
+
+    static ChessGame afterMove(ChessGame game, int move) {
+        ChessGame child = game.copy();
+        child.applyMove(move);
+        return child;
+    }
+}
@@ -0,0 +1,14 @@
+package chess.pgn;
+
+/**
+ * Indicates PGN text that could not be read, with the line it was found on.
+ */
+public class PgnFormatException extends RuntimeException {
+    public PgnFormatException(String message, int line) {
+        super(String.format("PGN line %d: %s", line, message));
+    }
+
+    public PgnFormatException(String message, int line, Throwable cause) {
+        super(String.format("PGN line %d: %s", line, message), cause);
+    }
+}
@@ -0,0 +1,82 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.WinState;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tag pairs, the moves played and the result.
+ *
+ * @param tags   the tag pairs in the order they were read or are to be written, e.g. {@code White -> "Carlsen"}.
+ * @param moves  the moves played from the starting position, which is the {@code FEN} tag if there is one.
+ * @param result {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *} for a game in progress or of unknown result.
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result) {
+    public PgnGame {
+        tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        moves = List.copyOf(moves);
+    }
+
+    /**
+     * Describes a played game, with its start position as a {@code FEN} tag if it is not the usual one.
+     *
+     * @param game the game.
+     * @param tags tags to add, e.g. the players' names.
+     * @return the PGN game.
+     */
+    public static PgnGame of(ChessGame game, Map<String, String> tags) {
+        Map<String, String> allTags = new LinkedHashMap<>(tags);
+        String result = result(game.getWinState());
+        allTags.put("Result", result);
+        if (!Fen.START.equals(game.getStartFen())) {
+            allTags.put("SetUp", "1");
+            allTags.put("FEN", game.getStartFen());
+        }
+        return new PgnGame(allTags, game.getMoveHistory(), result);
+    }
+
+    /**
+     * @return the game's starting position, from the {@code FEN} tag if there is one.
+     */
+    public ChessGame startingGame() {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+    }
+
+    /**
+     * Plays the moves from the starting position. Like the players, it goes on past a repetition or fifty moves
+     * without a capture or pawn move, which only end the game when claimed, so only the last position decides the
+     * win state.
+     *
+     * @return the game after the last move.
+     * @throws InvalidMoveException if one of the moves is not legal.
+     */
+    public ChessGame replay() throws InvalidMoveException {
+        ChessGame game = startingGame();
+        for (int ply = 0; ply < moves.size(); ply++) {
+            int move = game.findLegalMove(moves.get(ply));
+            if (move == -1) {
+                throw new InvalidMoveException(String.format("Move %d, %s, is not legal", ply + 1, moves.get(ply)));
+            }
+            game.applyMove(move);
+        }
+        game.refreshStatus();
+        return game;
+    }
+
+    private static String result(WinState winState) {
+        return switch (winState) {
+            case WHITE_WIN -> "1-0";
+            case BLACK_WIN -> "0-1";
+            case IN_PROGRESS -> "*";
+            case STALEMATE, DRAW_BY_REPETITION, DRAW_BY_FIFTY_MOVE_RULE, DRAW_BY_INSUFFICIENT_MATERIAL -> "1/2-1/2";
+        };
+    }
+}
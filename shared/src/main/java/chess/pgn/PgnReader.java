@@ -0,0 +1,291 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Moves;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the games of a PGN (Portable Game Notation) file one at a time, so that files of any size can be read in the
+ * memory one game takes.
+ * <p>
+ * Each game's moves are checked by replaying them from its starting position, which is the {@code FEN} tag if there is
+ * one. Comments, variations and numeric annotation glyphs are skipped.
+ * <p>
+ * A game that is not valid PGN or has an illegal move is reported with a {@link PgnFormatException} once the rest of it
+ * has been skipped, up to its result or the next line starting with a tag, so that reading can go on with the next
+ * game.
+ */
+public class PgnReader implements Iterator<PgnGame>, Closeable {
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder token = new StringBuilder();
+    private int position;
+    private int limit;
+    private int line = 1;
+    private boolean atLineStart = true;
+    private PgnGame next;
+    private boolean finished;
+
+    /**
+     * @param in the PGN text. It is read in blocks, so it does not need to be buffered.
+     */
+    public PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @throws UncheckedIOException if the text could not be read.
+     * @throws PgnFormatException   if the next game is not valid PGN or has an illegal move. The game is skipped, so
+     *                              calling this again goes on with the game after it.
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readGame();
+            } catch (PgnFormatException e) {
+                skipToNextGame();
+                throw e;
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    /**
+     * @throws UncheckedIOException if the text could not be read.
+     * @throws PgnFormatException   if the next game is not valid PGN or has an illegal move. The game is skipped, so
+     *                              calling this again returns the game after it.
+     */
+    @Override
+    public PgnGame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PgnGame game = next;
+        next = null;
+        return game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private PgnGame readGame() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<ChessMove> moves = new ArrayList<>();
+        ChessGame game = null;
+        boolean inMovetext = false;
+
+        while (true) {
+            int c = skipWhitespaceAndComments();
+            if (c == EOF) {
+                return tags.isEmpty() && !inMovetext ? null : new PgnGame(tags, moves, "*");
+            } else if (c == '[') {
+                if (inMovetext) {
+                    // The next game's tags, after a game with no result
+                    return new PgnGame(tags, moves, "*");
+                }
+                readTag(tags);
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '.') {
+                read();
+            } else if (c == '$') {
+                read();
+                readSymbol();
+            } else if (c == '*') {
+                read();
+                return new PgnGame(tags, moves, "*");
+            } else if (isSymbolChar(c)) {
+                inMovetext = true;
+                String symbol = readSymbol();
+                if (isResult(symbol)) {
+                    return new PgnGame(tags, moves, symbol);
+                }
+                if (isMoveNumber(symbol)) {
+                    continue;
+                }
+                if (game == null) {
+                    game = startingGame(tags);
+                }
+                int move;
+                try {
+                    move = San.parse(game, symbol);
+                } catch (IllegalArgumentException e) {
+                    throw new PgnFormatException(e.getMessage(), line, e);
+                }
+                moves.add(Moves.toChessMove(move));
+                game.applyMove(move);
+            } else {
+                read();
+                throw new PgnFormatException("unexpected '" + (char) c + "'", line);
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of a bad game: up to and including its result, or up to a tag at the start of a line, which
+     * begins the next game.
+     */
+    private void skipToNextGame() {
+        while (true) {
+            int c = peek();
+            if (c == EOF || (c == '[' && atLineStart)) {
+                return;
+            } else if (c == '*') {
+                read();
+                return;
+            } else if (isSymbolChar(c)) {
+                String symbol = readSymbol();
+                if (isResult(symbol)) {
+                    return;
+                }
+            } else {
+                read();
+            }
+        }
+    }
+
+    private ChessGame startingGame(Map<String, String> tags) {
+        String fen = tags.get("FEN");
+        try {
+            return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new PgnFormatException(e.getMessage(), line, e);
+        }
+    }
+
+    private void readTag(Map<String, String> tags) {
+        read();
+        skipWhitespace();
+        String name = readSymbol();
+        skipWhitespace();
+        if (read() != '"') {
+            throw new PgnFormatException("tag value must be a string", line);
+        }
+        token.setLength(0);
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == EOF || c == '\n') {
+                throw new PgnFormatException("unterminated tag value", line);
+            }
+            token.append((char) (c == '\\' ? read() : c));
+        }
+        skipWhitespace();
+        if (read() != ']') {
+            throw new PgnFormatException("tag must end with ']'", line);
+        }
+        tags.put(name, token.toString());
+    }
+
+    private void skipVariation() {
+        int depth = 0;
+        do {
+            int c = skipWhitespaceAndComments();
+            if (c == EOF) {
+                throw new PgnFormatException("unterminated variation", line);
+            }
+            read();
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    private String readSymbol() {
+        token.setLength(0);
+        while (isSymbolChar(peek())) {
+            token.append((char) read());
+        }
+        return token.toString();
+    }
+
+    private int skipWhitespaceAndComments() {
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == '{') {
+                while (c != '}') {
+                    c = read();
+                    if (c == EOF) {
+                        throw new PgnFormatException("unterminated comment", line);
+                    }
+                }
+            } else if (c == ';' || (c == '%' && atLineStart)) {
+                while (c != '\n' && c != EOF) {
+                    c = read();
+                }
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (Character.isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private int peek() {
+        if (position == limit) {
+            fill();
+        }
+        return position == limit ? EOF : buffer[position];
+    }
+
+    private int read() {
+        int c = peek();
+        if (c != EOF) {
+            position++;
+            atLineStart = c == '\n';
+            if (atLineStart) {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    private void fill() {
+        try {
+            int count = in.read(buffer);
+            position = 0;
+            limit = Math.max(count, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isSymbolChar(int c) {
+        return c != EOF && (Character.isLetterOrDigit(c) || "_+#=:-/!?".indexOf(c) >= 0);
+    }
+
+    private static boolean isResult(String symbol) {
+        return symbol.equals("1-0") || symbol.equals("0-1") || symbol.equals("1/2-1/2");
+    }
+
+    private static boolean isMoveNumber(String symbol) {
+        for (int index = 0; index < symbol.length(); index++) {
+            if (!Character.isDigit(symbol.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
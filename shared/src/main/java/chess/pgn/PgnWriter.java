@@ -0,0 +1,116 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games as PGN (Portable Game Notation), one at a time, so that any number of games can be written without
+ * holding them all in memory.
+ * <p>
+ * The seven standard tags (Event, Site, Date, Round, White, Black and Result) are always written first, with
+ * {@code ?} for the ones a game does not have, followed by the game's other tags. Movetext lines are kept to 80
+ * characters.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    private static final String[][] SEVEN_TAG_ROSTER = {{"Event", "?"}, {"Site", "?"}, {"Date", "????.??.??"},
+            {"Round", "?"}, {"White", "?"}, {"Black", "?"}, {"Result", "*"}};
+    private static final int MAX_LINE_LENGTH = 80;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(MAX_LINE_LENGTH);
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one game, followed by a blank line.
+     *
+     * @param game the game to write.
+     * @throws IOException              if the text could not be written.
+     * @throws IllegalArgumentException if one of the game's moves is not legal.
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.tags();
+        for (String[] tag : SEVEN_TAG_ROSTER) {
+            String value = tag[0].equals("Result") ? game.result() : tags.getOrDefault(tag[0], tag[1]);
+            writeTag(tag[0], value);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isInSevenTagRoster(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        ChessGame chessGame = game.startingGame();
+        line.setLength(0);
+        boolean first = true;
+        for (ChessMove move : game.moves()) {
+            if (chessGame.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                appendWord(chessGame.getFullmoveNumber() + ".");
+            } else if (first) {
+                appendWord(chessGame.getFullmoveNumber() + "...");
+            }
+            first = false;
+
+            int packedMove = findLegalMove(chessGame, move);
+            appendWord(San.toSan(chessGame, packedMove));
+            chessGame.applyMove(packedMove);
+        }
+        appendWord(game.result());
+        out.append(line).write("\n\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    private void appendWord(String word) throws IOException {
+        if (!line.isEmpty() && line.length() + 1 + word.length() > MAX_LINE_LENGTH) {
+            out.append(line).write('\n');
+            line.setLength(0);
+        }
+        if (!line.isEmpty()) {
+            line.append(' ');
+        }
+        line.append(word);
+    }
+
+    private static int findLegalMove(ChessGame game, ChessMove move) {
+        int packedMove = game.findLegalMove(move);
+        if (packedMove == -1) {
+            throw new IllegalArgumentException("Cannot write illegal move " + move + " in position " + game.toFen());
+        }
+        return packedMove;
+    }
+
+    private static boolean isInSevenTagRoster(String name) {
+        for (String[] tag : SEVEN_TAG_ROSTER) {
+            if (tag[0].equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package chess.pgn;
+
+import chess.*;
+
+/**
+ * Converts between packed moves (see {@link Moves}) and Standard Algebraic Notation (SAN), e.g. {@code Nf3},
+ * {@code exd5}, {@code O-O} or {@code e8=Q#}. Both directions need the position the move is played from.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "KQBNRP";
+
+    private San() {
+    }
+
+    /**
+     * Writes a legal move in SAN, with a {@code +} or {@code #} suffix if it gives check or checkmate. The game is
+     * left as it was.
+     *
+     * @param game the game the move is to be played in.
+     * @param move a legal packed move for the team to move.
+     * @return the move in SAN.
+     */
+    public static String toSan(ChessGame game, int move) {
+        ChessBoard board = game.getBoard();
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+
+        StringBuilder san = new StringBuilder(8);
+        if (Moves.hasFlag(move, Moves.CASTLING)) {
+            san.append(Bitboards.column(to) == 7 ? "O-O" : "O-O-O");
+        } else if (type == ChessPiece.PieceType.PAWN) {
+            if (Moves.hasFlag(move, Moves.CAPTURE)) {
+                san.append(fileLetter(from)).append('x');
+            }
+            appendSquare(san, to);
+            ChessPiece.PieceType promotionPiece = Moves.promotionPiece(move);
+            if (promotionPiece != null) {
+                san.append('=').append(PIECE_LETTERS.charAt(promotionPiece.ordinal()));
+            }
+        } else {
+            san.append(PIECE_LETTERS.charAt(type.ordinal()));
+            appendDisambiguation(san, game, move, type);
+            if (Moves.hasFlag(move, Moves.CAPTURE)) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+        }
+
+        game.applyMove(move);
+        GameStatus status = game.getStatus();
+        if (status.isCheckmate()) {
+            san.append('#');
+        } else if (status.inCheck()) {
+            san.append('+');
+        }
+        game.undoMove();
+        return san.toString();
+    }
+
+    /**
+     * Reads a move in SAN. Check, checkmate and annotation suffixes ({@code +}, {@code #}, {@code !}, {@code ?}) are
+     * ignored, as are capture marks, and castling may be written with zeros.
+     *
+     * @param game the game the move is to be played in.
+     * @param san  the move in SAN.
+     * @return the packed legal move the text stands for.
+     * @throws IllegalArgumentException if the text is not SAN, or does not stand for exactly one legal move.
+     */
+    public static int parse(ChessGame game, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+
+        if (isCastling(san, end)) {
+            boolean kingside = end == 3;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (Moves.hasFlag(move, Moves.CASTLING) && (Bitboards.column(Moves.to(move)) == 7) == kingside) {
+                    return move;
+                }
+            }
+            throw invalid(san, "castling is not legal here");
+        }
+
+        ChessPiece.PieceType promotionPiece = null;
+        if (end >= 2 && PIECE_LETTERS.indexOf(san.charAt(end - 1)) > 0 && san.charAt(end - 1) != 'P') {
+            promotionPiece = ChessPiece.PieceType.values()[PIECE_LETTERS.indexOf(san.charAt(end - 1))];
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        if (end < 2) {
+            throw invalid(san, "no target square");
+        }
+        int to = readSquare(san, end - 2);
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (Character.isUpperCase(san.charAt(0))) {
+            int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+            if (letter < 0) {
+                throw invalid(san, "unknown piece letter");
+            }
+            type = ChessPiece.PieceType.values()[letter];
+            start = 1;
+        }
+        int fromFile = 0;
+        int fromRank = 0;
+        for (int index = start; index < end - 2; index++) {
+            char c = san.charAt(index);
+            if ('a' <= c && c <= 'h') {
+                fromFile = c - 'a' + 1;
+            } else if ('1' <= c && c <= '8') {
+                fromRank = c - '0';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw invalid(san, "unexpected '" + c + "'");
+            }
+        }
+
+        int found = -1;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Moves.from(move);
+            if (Moves.to(move) == to && Moves.promotionPiece(move) == promotionPiece &&
+                    !Moves.hasFlag(move, Moves.CASTLING) &&
+                    game.getBoard().getPiece(from).getPieceType() == type &&
+                    (fromFile == 0 || Bitboards.column(from) == fromFile) &&
+                    (fromRank == 0 || Bitboards.row(from) == fromRank)) {
+                if (found != -1) {
+                    throw invalid(san, "ambiguous move");
+                }
+                found = move;
+            }
+        }
+        if (found == -1) {
+            throw invalid(san, "no such legal move");
+        }
+        return found;
+    }
+
+    private static void appendDisambiguation(StringBuilder san, ChessGame game, int move, ChessPiece.PieceType type) {
+        int from = Moves.from(move);
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int other = Moves.from(moves.get(i));
+            if (other != from && Moves.to(moves.get(i)) == Moves.to(move) &&
+                    game.getBoard().getPiece(other).getPieceType() == type) {
+                ambiguous = true;
+                sameFile |= Bitboards.column(other) == Bitboards.column(from);
+                sameRank |= Bitboards.row(other) == Bitboards.row(from);
+            }
+        }
+        if (ambiguous && (!sameFile || sameRank)) {
+            san.append(fileLetter(from));
+        }
+        if (sameFile) {
+            san.append(Bitboards.row(from));
+        }
+    }
+
+    private static boolean isCastling(CharSequence san, int end) {
+        if (end != 3 && end != 5) {
+            return false;
+        }
+        for (int index = 0; index < end; index++) {
+            char c = san.charAt(index);
+            if (index % 2 == 1 ? c != '-' : c != 'O' && c != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readSquare(CharSequence san, int index) {
+        int col = san.charAt(index) - 'a' + 1;
+        int row = san.charAt(index + 1) - '0';
+        if (!ChessPosition.isOnBoard(row, col)) {
+            throw invalid(san, "bad target square");
+        }
+        return Bitboards.square(row, col);
+    }
+
+    private static char fileLetter(int square) {
+        return (char) ('a' + Bitboards.column(square) - 1);
+    }
+
+    private static void appendSquare(StringBuilder san, int square) {
+        san.append(fileLetter(square)).append(Bitboards.row(square));
+    }
+
+    private static IllegalArgumentException invalid(CharSequence san, String reason) {
+        return new IllegalArgumentException(String.format("Invalid SAN '%s': %s", san, reason));
+    }
+}
@@ -0,0 +1,387 @@
+package chess.tablebase;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPieces;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The pieces of an endgame, written as a signature such as {@code KRKP}: White's pieces, starting with its king,
+ * then Black's. Each side's other pieces are in {@link ChessPiece.PieceType} order, so {@code KBNK} rather than
+ * {@code KNBK}.
+ * <p>
+ * A position with this material is numbered for its table by giving each piece a slot: White's king first, then
+ * Black's king, then White's other pieces and then Black's, in signature order. The index packs the team to move, the
+ * white king's square and every other piece's square, after reflecting the board so that the white king is on the
+ * a-d files and, without pawns, on or below the a1-d4 diagonal. A reflected position plays out just like the
+ * original, so this keeps the tables an eighth of the size without pawns and half with them.
+ */
+public final class Material {
+    /**
+     * The most pieces, kings included, a table can have.
+     */
+    public static final int MAX_PIECES = 5;
+
+    private static final String PIECE_LETTERS = "KQBNRP";
+    // Strength decides which team a table puts as White; ties are broken by the signature
+    private static final int[] STRENGTHS = {0, 9, 3, 3, 5, 1};
+
+    // Indexed by reflection and square; see reflect()
+    private static final int[][] REFLECTED_SQUARES = new int[8][64];
+    private static final int[] PAWN_REGION = new int[64];
+    private static final int[] PAWNLESS_REGION = new int[64];
+    private static final int PAWN_REGION_SIZE;
+    private static final int PAWNLESS_REGION_SIZE;
+
+    static {
+        int pawnSquares = 0;
+        int pawnlessSquares = 0;
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+            PAWN_REGION[square] = col <= 3 ? pawnSquares++ : -1;
+            PAWNLESS_REGION[square] = col <= 3 && row <= col ? pawnlessSquares++ : -1;
+            for (int reflection = 0; reflection < 8; reflection++) {
+                int reflectedRow = (reflection & 2) != 0 ? 7 - row : row;
+                int reflectedCol = (reflection & 1) != 0 ? 7 - col : col;
+                REFLECTED_SQUARES[reflection][square] = (reflection & 4) != 0 ? reflectedCol * 8 + reflectedRow :
+                        reflectedRow * 8 + reflectedCol;
+            }
+        }
+        PAWN_REGION_SIZE = pawnSquares;
+        PAWNLESS_REGION_SIZE = pawnlessSquares;
+    }
+
+    private final String signature;
+    private final ChessGame.TeamColor[] colors;
+    private final ChessPiece.PieceType[] types;
+    private final boolean hasPawns;
+    private final int[] region;
+    private final int regionSize;
+
+    private Material(ChessGame.TeamColor[] colors, ChessPiece.PieceType[] types) {
+        this.colors = colors;
+        this.types = types;
+        StringBuilder builder = new StringBuilder();
+        boolean pawns = false;
+        for (int slot : signatureOrder()) {
+            builder.append(PIECE_LETTERS.charAt(types[slot].ordinal()));
+            pawns |= types[slot] == ChessPiece.PieceType.PAWN;
+        }
+        this.signature = builder.toString();
+        this.hasPawns = pawns;
+        this.region = pawns ? PAWN_REGION : PAWNLESS_REGION;
+        this.regionSize = pawns ? PAWN_REGION_SIZE : PAWNLESS_REGION_SIZE;
+    }
+
+    /**
+     * @param signature e.g. {@code KQK} or {@code KRKP}.
+     * @throws IllegalArgumentException if the signature is not two kings with at most {@link #MAX_PIECES} pieces in
+     *                                  all.
+     */
+    public static Material parse(String signature) {
+        if (signature.length() < 2 || signature.charAt(0) != 'K' || signature.indexOf('K', 1) < 0) {
+            throw new IllegalArgumentException("Material signature must name each team's king first: " + signature);
+        }
+        int blackKing = signature.indexOf('K', 1);
+        List<ChessPiece.PieceType> white = parseTeam(signature, 1, blackKing);
+        List<ChessPiece.PieceType> black = parseTeam(signature, blackKing + 1, signature.length());
+        if (white.size() + black.size() + 2 > MAX_PIECES) {
+            throw new IllegalArgumentException("Tables have at most " + MAX_PIECES + " pieces: " + signature);
+        }
+        return of(white, black);
+    }
+
+    /**
+     * @return the material on a board, or null if it has more than {@link #MAX_PIECES} pieces or not one king each.
+     */
+    public static Material of(ChessBoard board) {
+        if (Long.bitCount(board.getOccupancy()) > MAX_PIECES) {
+            return null;
+        }
+        List<List<ChessPiece.PieceType>> teams = new ArrayList<>();
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            if (Long.bitCount(board.getPieceSet(color, ChessPiece.PieceType.KING)) != 1) {
+                return null;
+            }
+            List<ChessPiece.PieceType> pieces = new ArrayList<>();
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                if (type != ChessPiece.PieceType.KING) {
+                    for (int i = Long.bitCount(board.getPieceSet(color, type)); i > 0; i--) {
+                        pieces.add(type);
+                    }
+                }
+            }
+            teams.add(pieces);
+        }
+        return of(teams.get(0), teams.get(1));
+    }
+
+    private static List<ChessPiece.PieceType> parseTeam(String signature, int start, int end) {
+        List<ChessPiece.PieceType> pieces = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            int type = PIECE_LETTERS.indexOf(signature.charAt(i));
+            if (type <= 0) {
+                throw new IllegalArgumentException("Unknown piece '" + signature.charAt(i) + "' in " + signature);
+            }
+            pieces.add(ChessPiece.PieceType.values()[type]);
+        }
+        return pieces;
+    }
+
+    private static Material of(List<ChessPiece.PieceType> white, List<ChessPiece.PieceType> black) {
+        List<ChessPiece.PieceType> sortedWhite = white.stream().sorted().toList();
+        List<ChessPiece.PieceType> sortedBlack = black.stream().sorted().toList();
+        int count = 2 + white.size() + black.size();
+        ChessGame.TeamColor[] colors = new ChessGame.TeamColor[count];
+        ChessPiece.PieceType[] types = new ChessPiece.PieceType[count];
+        colors[0] = ChessGame.TeamColor.WHITE;
+        types[0] = ChessPiece.PieceType.KING;
+        colors[1] = ChessGame.TeamColor.BLACK;
+        types[1] = ChessPiece.PieceType.KING;
+        int slot = 2;
+        for (ChessPiece.PieceType type : sortedWhite) {
+            colors[slot] = ChessGame.TeamColor.WHITE;
+            types[slot++] = type;
+        }
+        for (ChessPiece.PieceType type : sortedBlack) {
+            colors[slot] = ChessGame.TeamColor.BLACK;
+            types[slot++] = type;
+        }
+        return new Material(colors, types);
+    }
+
+    /**
+     * @return the slots in signature order: White's king and pieces, then Black's.
+     */
+    private int[] signatureOrder() {
+        int[] order = new int[colors.length];
+        int next = 0;
+        order[next++] = 0;
+        for (int slot = 2; slot < colors.length; slot++) {
+            if (colors[slot] == ChessGame.TeamColor.WHITE) {
+                order[next++] = slot;
+            }
+        }
+        order[next++] = 1;
+        for (int slot = 2; slot < colors.length; slot++) {
+            if (colors[slot] == ChessGame.TeamColor.BLACK) {
+                order[next++] = slot;
+            }
+        }
+        return order;
+    }
+
+    public String signature() {
+        return signature;
+    }
+
+    public int pieceCount() {
+        return colors.length;
+    }
+
+    public ChessGame.TeamColor color(int slot) {
+        return colors[slot];
+    }
+
+    public ChessPiece.PieceType type(int slot) {
+        return types[slot];
+    }
+
+    public boolean hasPawns() {
+        return hasPawns;
+    }
+
+    /**
+     * @return whether this is the way round tables are kept: White is at least as strong as Black. A table for the
+     * other way round is the {@link #mirror()}'s table with the board turned over.
+     */
+    public boolean isCanonical() {
+        int whiteStrength = strength(ChessGame.TeamColor.WHITE);
+        int blackStrength = strength(ChessGame.TeamColor.BLACK);
+        if (whiteStrength != blackStrength) {
+            return whiteStrength > blackStrength;
+        }
+        int blackKing = signature.indexOf('K', 1);
+        return signature.substring(0, blackKing).compareTo(signature.substring(blackKing)) <= 0;
+    }
+
+    /**
+     * @return the same pieces with the teams swapped.
+     */
+    public Material mirror() {
+        ChessGame.TeamColor[] mirroredColors = new ChessGame.TeamColor[colors.length];
+        for (int slot = 0; slot < colors.length; slot++) {
+            mirroredColors[slot] = ChessPieces.not(colors[slot]);
+        }
+        return of(mirroredColors, types);
+    }
+
+    /**
+     * @return the material after the piece in the given slot is captured.
+     */
+    public Material withoutSlot(int slot) {
+        ChessGame.TeamColor[] newColors = new ChessGame.TeamColor[colors.length - 1];
+        ChessPiece.PieceType[] newTypes = new ChessPiece.PieceType[colors.length - 1];
+        for (int i = 0, j = 0; i < colors.length; i++) {
+            if (i != slot) {
+                newColors[j] = colors[i];
+                newTypes[j++] = types[i];
+            }
+        }
+        return of(newColors, newTypes);
+    }
+
+    /**
+     * @return the material after the piece in the given slot becomes the given type, as a pawn does on promotion.
+     */
+    public Material withType(int slot, ChessPiece.PieceType type) {
+        ChessPiece.PieceType[] newTypes = types.clone();
+        newTypes[slot] = type;
+        return of(colors, newTypes);
+    }
+
+    /**
+     * @return the material of the given pieces, in any order, which must include one king of each team.
+     */
+    static Material of(ChessGame.TeamColor[] colors, ChessPiece.PieceType[] types) {
+        List<ChessPiece.PieceType> white = new ArrayList<>();
+        List<ChessPiece.PieceType> black = new ArrayList<>();
+        for (int slot = 0; slot < colors.length; slot++) {
+            if (types[slot] != ChessPiece.PieceType.KING) {
+                (colors[slot] == ChessGame.TeamColor.WHITE ? white : black).add(types[slot]);
+            }
+        }
+        return of(white, black);
+    }
+
+    private int strength(ChessGame.TeamColor color) {
+        int strength = 0;
+        for (int slot = 0; slot < colors.length; slot++) {
+            if (colors[slot] == color) {
+                strength += STRENGTHS[types[slot].ordinal()];
+            }
+        }
+        return strength;
+    }
+
+    /**
+     * @return a number that is the same for every material with the same pieces, for looking tables up without
+     * allocating: four bits per piece type and team counting its pieces.
+     */
+    long key() {
+        long key = 0;
+        for (int slot = 0; slot < colors.length; slot++) {
+            key += 1L << (4 * Bitboards.pieceIndex(colors[slot], types[slot]));
+        }
+        return key;
+    }
+
+    /**
+     * @return the number of entries in the table: one for each index.
+     */
+    long tableSize() {
+        long size = 2L * regionSize;
+        for (int slot = 1; slot < colors.length; slot++) {
+            size *= 64;
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of reflections (see {@link #reflect(int, int)}) that may be used: all eight without pawns,
+     * and only the identity and mirroring the files with them, which keep the pawns moving the same way.
+     */
+    int reflections() {
+        return hasPawns ? 2 : 8;
+    }
+
+    /**
+     * @return whether the index covers positions with the white king on the given square.
+     */
+    boolean inRegion(int whiteKingSquare) {
+        return region[whiteKingSquare] >= 0;
+    }
+
+    /**
+     * @param reflection bit 0 mirrors the files, bit 1 the rows and bit 2 the a1-h8 diagonal, applied in that order.
+     */
+    static int reflect(int reflection, int square) {
+        return REFLECTED_SQUARES[reflection][square];
+    }
+
+    /**
+     * Starts an index: the white king's square must already be reflected into the region, and each other piece's
+     * square is then added in slot order with {@link #addSquare(long, int)}.
+     * <p>
+     * A white king on the a1-d4 diagonal stays in the region when the board is also reflected in the diagonal, so a
+     * position can be reflected into the region in two ways. Its index is the lower of the two, which leaves the
+     * other one unused, so that each position and all its reflections have the one index.
+     */
+    long startIndex(boolean whiteToMove, int reflectedWhiteKingSquare) {
+        return (whiteToMove ? 0 : regionSize) + region[reflectedWhiteKingSquare];
+    }
+
+    static long addSquare(long index, int reflectedSquare) {
+        return index * 64 + reflectedSquare;
+    }
+
+    /**
+     * @param squares each slot's square.
+     * @return the position's index, after reflecting it into the region.
+     */
+    int index(int[] squares, boolean whiteToMove) {
+        long lowest = Long.MAX_VALUE;
+        for (int reflection = 0; reflection < reflections(); reflection++) {
+            int whiteKing = reflect(reflection, squares[0]);
+            if (inRegion(whiteKing)) {
+                long index = startIndex(whiteToMove, whiteKing);
+                for (int slot = 1; slot < squares.length; slot++) {
+                    index = addSquare(index, reflect(reflection, squares[slot]));
+                }
+                lowest = Math.min(lowest, index);
+            }
+        }
+        return (int) lowest;
+    }
+
+    /**
+     * The reverse of {@link #index(int[], boolean)}.
+     *
+     * @param squares filled with each slot's square.
+     * @return whether White is to move.
+     */
+    boolean decode(int index, int[] squares) {
+        for (int slot = colors.length - 1; slot > 0; slot--) {
+            squares[slot] = index & 63;
+            index >>>= 6;
+        }
+        boolean whiteToMove = index < regionSize;
+        int regionIndex = whiteToMove ? index : index - regionSize;
+        for (int square = 0; ; square++) {
+            if (region[square] == regionIndex) {
+                squares[0] = square;
+                return whiteToMove;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Material material && signature.equals(material.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return signature.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return signature;
+    }
+}
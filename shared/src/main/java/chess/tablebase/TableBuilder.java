@@ -0,0 +1,543 @@
+package chess.tablebase;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPieces;
+import chess.movementrule.AttackTables;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Solves every position of one material by retrograde analysis, working back from the checkmates.
+ * <p>
+ * First each legal position's moves are generated once. Checkmates and stalemates are decided there, and so are
+ * moves that capture or promote, which leave the table: their results are read from the smaller tables, which must
+ * already be in the {@link Tablebases} given. Then positions are settled in order of plies to mate. Once every
+ * position lost in {@code n} plies is known, each position that can move into one is won in {@code n + 1}; once every
+ * position won in {@code n} plies is known, each position that can move into one is lost if all its other moves are
+ * known to lose too. The moves into a position are found by "unmoving" its pieces, so only positions next to newly
+ * settled ones are looked at. Whatever is left unsettled at the end is a draw.
+ * <p>
+ * Positions are numbered as described in {@link Material}, and kept as the byte values described in
+ * {@link Tablebases}. En passant is not modelled, so there are no tables with pawns on both teams.
+ */
+final class TableBuilder {
+    private static final int[] PAWN_PUSH = {8, -8};
+    private static final int[] PAWN_START_ROW = {2, 7};
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    private final Material material;
+    private final int pieceCount;
+    private final int size;
+    private final byte[] values;
+    private final BitSet legal;
+    private final IntList[] byPliesToMate = new IntList[Tablebases.MAX_PLIES_TO_MATE + 1];
+    // Indexed by captured slot + 1, promoted slot + 1 and promotion type + 1, with 0 for none
+    private final Conversion[][][] conversions;
+
+    private final int[] squares;
+    private final int[] slotAt = new int[64];
+
+    // Summary of the moves seen by the last call to evaluate()
+    private int moves;
+    private int movesInTable;
+    private int quickestWin;
+    private int slowestLoss;
+    private boolean allLose;
+
+    /**
+     * @param tablebases must have the table of every material this one can capture or promote into.
+     * @throws IllegalArgumentException if the material is not {@link Material#isCanonical() canonical}, has pawns
+     *                                  on both teams, or a smaller table it needs is missing.
+     */
+    TableBuilder(Material material, Tablebases tablebases) {
+        if (!material.isCanonical()) {
+            throw new IllegalArgumentException(material + " is kept as " + material.mirror());
+        }
+        checkSupported(material);
+        this.material = material;
+        this.pieceCount = material.pieceCount();
+        this.size = (int) material.tableSize();
+        this.values = new byte[size];
+        this.legal = new BitSet(size);
+        this.squares = new int[pieceCount];
+        this.conversions = new Conversion[pieceCount + 1][pieceCount + 1][PROMOTION_TYPES.length + 1];
+        for (int captured = -1; captured < pieceCount; captured++) {
+            for (int promoted = -1; promoted < pieceCount; promoted++) {
+                for (int promotion = -1; promotion < PROMOTION_TYPES.length; promotion++) {
+                    if (isConversion(material, captured, promoted, promotion)) {
+                        conversions[captured + 1][promoted + 1][promotion + 1] =
+                                new Conversion(material, captured, promoted, promotion, tablebases);
+                    }
+                }
+            }
+        }
+        Arrays.fill(slotAt, -1);
+    }
+
+    /**
+     * @return the materials, each the way round it is kept, of the tables needed to build this material's: those it
+     * can capture or promote into, other than bare kings.
+     */
+    static Set<Material> dependencies(Material material) {
+        Set<Material> dependencies = new LinkedHashSet<>();
+        for (int captured = -1; captured < material.pieceCount(); captured++) {
+            for (int promoted = -1; promoted < material.pieceCount(); promoted++) {
+                for (int promotion = -1; promotion < PROMOTION_TYPES.length; promotion++) {
+                    if (isConversion(material, captured, promoted, promotion)) {
+                        Material target = conversionTarget(material, captured, promoted, promotion);
+                        if (target.pieceCount() > 2) {
+                            dependencies.add(target.isCanonical() ? target : target.mirror());
+                        }
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * @param captured  the slot of the piece captured, or -1.
+     * @param promoted  the slot of the pawn promoted, or -1.
+     * @param promotion the index in {@link #PROMOTION_TYPES} of the piece promoted to, or -1.
+     * @return whether a move could capture and promote like this.
+     */
+    private static boolean isConversion(Material material, int captured, int promoted, int promotion) {
+        if (captured < 0 && promoted < 0) {
+            return false;
+        }
+        if (captured >= 0 && material.type(captured) == ChessPiece.PieceType.KING) {
+            return false;
+        }
+        if (promoted < 0) {
+            return promotion < 0;
+        }
+        return promotion >= 0 && material.type(promoted) == ChessPiece.PieceType.PAWN &&
+                (captured < 0 || material.color(captured) != material.color(promoted));
+    }
+
+    private static Material conversionTarget(Material material, int captured, int promoted, int promotion) {
+        int count = material.pieceCount() - (captured >= 0 ? 1 : 0);
+        ChessGame.TeamColor[] colors = new ChessGame.TeamColor[count];
+        ChessPiece.PieceType[] types = new ChessPiece.PieceType[count];
+        for (int slot = 0, piece = 0; slot < material.pieceCount(); slot++) {
+            if (slot != captured) {
+                colors[piece] = material.color(slot);
+                types[piece++] = slot == promoted ? PROMOTION_TYPES[promotion] : material.type(slot);
+            }
+        }
+        return Material.of(colors, types);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the material has pawns on both teams.
+     */
+    static void checkSupported(Material material) {
+        if (hasPawns(material, ChessGame.TeamColor.WHITE) && hasPawns(material, ChessGame.TeamColor.BLACK)) {
+            throw new IllegalArgumentException("Tables cannot have pawns on both teams: " + material);
+        }
+    }
+
+    private static boolean hasPawns(Material material, ChessGame.TeamColor color) {
+        for (int slot = 0; slot < material.pieceCount(); slot++) {
+            if (material.color(slot) == color && material.type(slot) == ChessPiece.PieceType.PAWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solves every position.
+     *
+     * @return the table's values by index.
+     * @throws IllegalStateException if a mate is too long for a table to hold.
+     */
+    byte[] build() {
+        for (int i = 0; i < byPliesToMate.length; i++) {
+            byPliesToMate[i] = new IntList();
+        }
+        for (int index = 0; index < size; index++) {
+            boolean whiteToMove = material.decode(index, squares);
+            if (isLegal(whiteToMove) && material.index(squares, whiteToMove) == index) {
+                legal.set(index);
+            }
+        }
+        for (int index = legal.nextSetBit(0); index >= 0; index = legal.nextSetBit(index + 1)) {
+            boolean whiteToMove = material.decode(index, squares);
+            int value = evaluate(whiteToMove, -1);
+            if (value == Tablebases.ILLEGAL && movesInTable == 0) {
+                // Every move leaves the table, and none of them wins or loses
+                value = Tablebases.DRAW;
+            }
+            if (value != Tablebases.ILLEGAL) {
+                settle(index, value);
+            }
+        }
+
+        for (int plies = 0; plies <= Tablebases.MAX_PLIES_TO_MATE; plies++) {
+            IntList settled = byPliesToMate[plies];
+            for (int i = 0; i < settled.size(); i++) {
+                int index = settled.get(i);
+                // A win found by a conversion may since have been bettered by a quicker one
+                if (Tablebases.pliesToMate(value(index)) == plies) {
+                    settlePredecessors(index, plies);
+                }
+            }
+            byPliesToMate[plies] = null;
+        }
+
+        for (int index = legal.nextSetBit(0); index >= 0; index = legal.nextSetBit(index + 1)) {
+            if (values[index] == Tablebases.ILLEGAL) {
+                values[index] = Tablebases.DRAW;
+            }
+        }
+        return values;
+    }
+
+    private int value(int index) {
+        return values[index] & 0xFF;
+    }
+
+    /**
+     * Records a position's value, and for a win or loss, queues the position to settle its predecessors.
+     */
+    private void settle(int index, int value) {
+        values[index] = (byte) value;
+        if (value != Tablebases.DRAW) {
+            byPliesToMate[Tablebases.pliesToMate(value)].add(index);
+        }
+    }
+
+    /**
+     * Settles the positions that can move into the given one, which is won or lost in the given number of plies.
+     */
+    private void settlePredecessors(int index, int plies) {
+        boolean whiteToMove = material.decode(index, squares);
+        boolean lost = (plies & 1) == 0;
+
+        // The team that moved into this position is the one not to move in it
+        ChessGame.TeamColor mover = whiteToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupancy = occupancy();
+        for (int slot = 0; slot < pieceCount; slot++) {
+            if (material.color(slot) != mover) {
+                continue;
+            }
+            int to = squares[slot];
+            for (long froms = unmoves(slot, to, occupancy); froms != 0; froms = Bitboards.withoutFirstSquare(froms)) {
+                squares[slot] = Bitboards.firstSquare(froms);
+                int predecessor = material.index(squares, !whiteToMove);
+                if (legal.get(predecessor)) {
+                    int value = value(predecessor);
+                    if (lost) {
+                        int winValue = checkedMateValue(plies + 1);
+                        if (value == Tablebases.ILLEGAL || (Tablebases.isWin(value) && value > winValue)) {
+                            settle(predecessor, winValue);
+                        }
+                    } else if (value == Tablebases.ILLEGAL) {
+                        int predecessorValue = evaluate(!whiteToMove, plies);
+                        if (Tablebases.isLoss(predecessorValue)) {
+                            settle(predecessor, predecessorValue);
+                        }
+                    }
+                }
+                squares[slot] = to;
+            }
+        }
+    }
+
+    /**
+     * @return the squares a piece on the given square could have come from without capturing or promoting. Squares
+     * a pawn could not stand on are left to the legality check.
+     */
+    private long unmoves(int slot, int square, long occupancy) {
+        ChessGame.TeamColor color = material.color(slot);
+        ChessPiece.PieceType type = material.type(slot);
+        if (type != ChessPiece.PieceType.PAWN) {
+            return attacks(color, type, square, occupancy) & ~occupancy;
+        }
+        int push = PAWN_PUSH[color.ordinal()];
+        int from = square - push;
+        long froms = 0;
+        if ((Bitboards.bit(from) & occupancy) == 0) {
+            froms |= Bitboards.bit(from);
+            int doublePushRow = PAWN_START_ROW[color.ordinal()] + 2 * Integer.signum(push);
+            if (Bitboards.row(square) == doublePushRow && (Bitboards.bit(from - push) & occupancy) == 0) {
+                froms |= Bitboards.bit(from - push);
+            }
+        }
+        return froms;
+    }
+
+    /**
+     * Generates the moves of the position in {@link #squares} and looks up where each one leads.
+     *
+     * @param settledPlies the most plies to mate of the wins in this table already known to be quickest, or -1 if
+     *                     none are.
+     * @return the position's value, if it is checkmate or stalemate, wins, or loses by every move; otherwise
+     * {@link Tablebases#ILLEGAL}. {@link #movesInTable} is left as the number of moves that stay in the table.
+     */
+    private int evaluate(boolean whiteToMove, int settledPlies) {
+        ChessGame.TeamColor color = whiteToMove ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        long occupancy = occupancy();
+        long own = teamOccupancy(color);
+        placePieces();
+
+        moves = 0;
+        movesInTable = 0;
+        quickestWin = Integer.MAX_VALUE;
+        slowestLoss = -1;
+        allLose = true;
+        for (int slot = 0; slot < pieceCount; slot++) {
+            if (material.color(slot) != color) {
+                continue;
+            }
+            int from = squares[slot];
+            ChessPiece.PieceType type = material.type(slot);
+            long targets = type == ChessPiece.PieceType.PAWN ? pawnTargets(color, from, occupancy) :
+                    attacks(color, type, from, occupancy) & ~own;
+            for (; targets != 0; targets = Bitboards.withoutFirstSquare(targets)) {
+                int to = Bitboards.firstSquare(targets);
+                int captured = slotAt[to];
+                squares[slot] = to;
+                if (captured >= 0) {
+                    squares[captured] = Bitboards.NO_SQUARE;
+                }
+                long newOccupancy = (occupancy & ~Bitboards.bit(from)) | Bitboards.bit(to);
+                if (!isAttacked(squares[kingSlot(color)], ChessPieces.not(color), newOccupancy)) {
+                    boolean promotes = type == ChessPiece.PieceType.PAWN && (to < 8 || to >= 56);
+                    if (promotes) {
+                        for (int promotion = 0; promotion < PROMOTION_TYPES.length; promotion++) {
+                            addMove(conversions[captured + 1][slot + 1][promotion + 1].value(squares, !whiteToMove),
+                                    true);
+                        }
+                    } else if (captured >= 0) {
+                        addMove(conversions[captured + 1][0][0].value(squares, !whiteToMove), true);
+                    } else {
+                        int value = value(material.index(squares, !whiteToMove));
+                        addMove(value, Tablebases.pliesToMate(value) <= settledPlies);
+                        movesInTable++;
+                    }
+                }
+                squares[slot] = from;
+                if (captured >= 0) {
+                    squares[captured] = to;
+                }
+            }
+        }
+        clearPieces();
+
+        if (moves == 0) {
+            boolean inCheck = isAttacked(squares[kingSlot(color)], ChessPieces.not(color), occupancy);
+            return inCheck ? Tablebases.MATE_OFFSET : Tablebases.DRAW;
+        }
+        if (quickestWin != Integer.MAX_VALUE) {
+            return checkedMateValue(quickestWin);
+        }
+        if (allLose) {
+            return checkedMateValue(slowestLoss);
+        }
+        return Tablebases.ILLEGAL;
+    }
+
+    /**
+     * Counts a move into a position with the given value for the opponent.
+     *
+     * @param settled whether the value is known to be final. A loss always is, since it is only ever recorded once
+     *                every move from the position has been seen to lose.
+     */
+    private void addMove(int value, boolean settled) {
+        moves++;
+        if (Tablebases.isLoss(value)) {
+            quickestWin = Math.min(quickestWin, Tablebases.pliesToMate(value) + 1);
+        } else if (Tablebases.isWin(value) && settled) {
+            slowestLoss = Math.max(slowestLoss, Tablebases.pliesToMate(value) + 1);
+        } else {
+            allLose = false;
+        }
+    }
+
+    private int checkedMateValue(int plies) {
+        if (plies > Tablebases.MAX_PLIES_TO_MATE) {
+            throw new IllegalStateException("Mate in " + plies + " plies is too long for a " + material + " table");
+        }
+        return Tablebases.MATE_OFFSET + plies;
+    }
+
+    /**
+     * @return whether the position in {@link #squares} could arise in a game: no two pieces share a square, no pawn
+     * is on the first or last row, and the team that just moved is not in check.
+     */
+    private boolean isLegal(boolean whiteToMove) {
+        long occupancy = 0;
+        for (int slot = 0; slot < pieceCount; slot++) {
+            long bit = Bitboards.bit(squares[slot]);
+            if ((occupancy & bit) != 0) {
+                return false;
+            }
+            if (material.type(slot) == ChessPiece.PieceType.PAWN && (squares[slot] < 8 || squares[slot] >= 56)) {
+                return false;
+            }
+            occupancy |= bit;
+        }
+        ChessGame.TeamColor moved = whiteToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return !isAttacked(squares[kingSlot(moved)], ChessPieces.not(moved), occupancy);
+    }
+
+    private static int kingSlot(ChessGame.TeamColor color) {
+        return color.ordinal();
+    }
+
+    /**
+     * @return whether a piece of the given team on a square still in {@link #squares} attacks the given square.
+     */
+    private boolean isAttacked(int square, ChessGame.TeamColor byColor, long occupancy) {
+        for (int slot = 0; slot < pieceCount; slot++) {
+            if (material.color(slot) == byColor && squares[slot] != Bitboards.NO_SQUARE &&
+                    (attacks(byColor, material.type(slot), squares[slot], occupancy) & Bitboards.bit(square)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long attacks(ChessGame.TeamColor color, ChessPiece.PieceType type, int square, long occupancy) {
+        return switch (type) {
+            case KING -> AttackTables.kingAttacks(square);
+            case QUEEN -> AttackTables.queenAttacks(square, occupancy);
+            case BISHOP -> AttackTables.bishopAttacks(square, occupancy);
+            case KNIGHT -> AttackTables.knightAttacks(square);
+            case ROOK -> AttackTables.rookAttacks(square, occupancy);
+            case PAWN -> AttackTables.pawnAttacks(color, square);
+        };
+    }
+
+    private long pawnTargets(ChessGame.TeamColor color, int from, long occupancy) {
+        int push = PAWN_PUSH[color.ordinal()];
+        long targets = AttackTables.pawnAttacks(color, from) & teamOccupancy(ChessPieces.not(color));
+        int to = from + push;
+        if ((Bitboards.bit(to) & occupancy) == 0) {
+            targets |= Bitboards.bit(to);
+            if (Bitboards.row(from) == PAWN_START_ROW[color.ordinal()] && (Bitboards.bit(to + push) & occupancy) == 0) {
+                targets |= Bitboards.bit(to + push);
+            }
+        }
+        return targets;
+    }
+
+    private long occupancy() {
+        long occupancy = 0;
+        for (int square : squares) {
+            occupancy |= Bitboards.bit(square);
+        }
+        return occupancy;
+    }
+
+    private long teamOccupancy(ChessGame.TeamColor color) {
+        long occupancy = 0;
+        for (int slot = 0; slot < pieceCount; slot++) {
+            if (material.color(slot) == color) {
+                occupancy |= Bitboards.bit(squares[slot]);
+            }
+        }
+        return occupancy;
+    }
+
+    private void placePieces() {
+        for (int slot = 0; slot < pieceCount; slot++) {
+            slotAt[squares[slot]] = slot;
+        }
+    }
+
+    private void clearPieces() {
+        for (int square : squares) {
+            slotAt[square] = -1;
+        }
+    }
+
+    /**
+     * A way of leaving the table, by a capture, a promotion or both, and the table it leads to.
+     */
+    private static final class Conversion {
+        private final Tablebases.Table table;
+        private final boolean flip;
+        // Each slot's slot in the table it leads to, or -1 for the captured piece
+        private final int[] targetSlots;
+        private final int[] targetSquares;
+
+        Conversion(Material material, int captured, int promoted, int promotion, Tablebases tablebases) {
+            Material target = conversionTarget(material, captured, promoted, promotion);
+            this.flip = !target.isCanonical();
+            if (flip) {
+                target = target.mirror();
+            }
+            this.table = target.pieceCount() > 2 ? tablebases.find(target.key()) : null;
+            if (table == null && target.pieceCount() > 2) {
+                throw new IllegalArgumentException("Building " + material + " needs the " + target + " table");
+            }
+
+            // Pieces of the same team and type are interchangeable, so each goes to the next free slot for them
+            this.targetSlots = new int[material.pieceCount()];
+            this.targetSquares = new int[target.pieceCount()];
+            boolean[] used = new boolean[target.pieceCount()];
+            for (int slot = 0; slot < material.pieceCount(); slot++) {
+                targetSlots[slot] = -1;
+                if (slot == captured) {
+                    continue;
+                }
+                ChessGame.TeamColor color = flip ? ChessPieces.not(material.color(slot)) : material.color(slot);
+                ChessPiece.PieceType type = slot == promoted ? PROMOTION_TYPES[promotion] : material.type(slot);
+                for (int targetSlot = 0; targetSlots[slot] < 0; targetSlot++) {
+                    if (!used[targetSlot] && target.color(targetSlot) == color && target.type(targetSlot) == type) {
+                        used[targetSlot] = true;
+                        targetSlots[slot] = targetSlot;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param squares each slot's square after the move, with the captured piece's ignored.
+         */
+        int value(int[] squares, boolean whiteToMove) {
+            if (table == null) {
+                // Bare kings
+                return Tablebases.DRAW;
+            }
+            for (int slot = 0; slot < squares.length; slot++) {
+                if (targetSlots[slot] >= 0) {
+                    targetSquares[targetSlots[slot]] = flip ? squares[slot] ^ 56 : squares[slot];
+                }
+            }
+            return table.value(table.material.index(targetSquares, whiteToMove != flip));
+        }
+    }
+
+    /**
+     * A growable list of indices.
+     */
+    private static final class IntList {
+        private int[] elements = new int[16];
+        private int size;
+
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+
+        int get(int index) {
+            return elements[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
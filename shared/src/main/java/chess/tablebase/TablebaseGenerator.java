@@ -0,0 +1,105 @@
+package chess.tablebase;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates endgame tables by retrograde analysis (see {@link TableBuilder}), entirely locally.
+ * <p>
+ * Usage: {@code TablebaseGenerator <directory> <material>...}, e.g. {@code TablebaseGenerator tablebases KQK KRK KPK
+ * KRKP}. The tables of any smaller material the given ones capture or promote into are generated too, and tables
+ * already in the directory are reused. Three-piece tables take well under a second each; four-piece tables take
+ * tens of seconds and up to 17 MB each. Five-piece tables are supported, but take hundreds of megabytes of memory
+ * and disk each and hours to generate.
+ */
+public final class TablebaseGenerator {
+    private final Tablebases tablebases;
+    private final Path directory;
+
+    /**
+     * Creates a generator that keeps the tables it generates in memory only.
+     *
+     * @param tablebases the tables already generated, to which new ones are added.
+     */
+    public TablebaseGenerator(Tablebases tablebases) {
+        this(tablebases, null);
+    }
+
+    /**
+     * @param tablebases the tables already generated, to which new ones are added.
+     * @param directory  where each new table is written, and then mapped from, or null to keep them in memory.
+     * @throws IllegalArgumentException if the tables are {@link Tablebases#NONE}, which no tables can be added to.
+     */
+    public TablebaseGenerator(Tablebases tablebases, Path directory) {
+        if (tablebases == Tablebases.NONE) {
+            throw new IllegalArgumentException("Tablebases.NONE cannot have tables added; use a new Tablebases()");
+        }
+        this.tablebases = tablebases;
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TablebaseGenerator <directory> <material>...");
+            System.exit(1);
+        }
+
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(Tablebases.open(directory), directory);
+        for (int i = 1; i < args.length; i++) {
+            long startTime = System.nanoTime();
+            List<Material> generated = generator.generate(Material.parse(args[i]));
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf("%s: generated %s in %.3f s%n", args[i], generated, seconds);
+        }
+    }
+
+    /**
+     * Generates a material's table, after the tables it needs, unless the set already has them.
+     *
+     * @param material the material, either way round.
+     * @return the materials of the tables generated, in the order they were generated.
+     * @throws IOException              if a table could not be written.
+     * @throws IllegalArgumentException if the material has pawns on both teams, which tables do not cover.
+     */
+    public List<Material> generate(Material material) throws IOException {
+        TableBuilder.checkSupported(material);
+        List<Material> generated = new ArrayList<>();
+        generate(material.isCanonical() ? material : material.mirror(), generated);
+        return generated;
+    }
+
+    private void generate(Material material, List<Material> generated) throws IOException {
+        if (tablebases.contains(material)) {
+            return;
+        }
+        for (Material dependency : TableBuilder.dependencies(material)) {
+            generate(dependency, generated);
+        }
+
+        byte[] values = new TableBuilder(material, tablebases).build();
+        if (directory == null) {
+            tablebases.add(material, ByteBuffer.wrap(values));
+        } else {
+            Path file = directory.resolve(material.signature() + Tablebases.FILE_SUFFIX);
+            write(file, values);
+            tablebases.add(material, Tablebases.map(file, material));
+        }
+        generated.add(material);
+    }
+
+    private static void write(Path file, byte[] values) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file); DataOutputStream data = new DataOutputStream(out)) {
+            data.writeInt(Tablebases.MAGIC);
+            data.writeInt(values.length);
+            data.write(values);
+        }
+    }
+}
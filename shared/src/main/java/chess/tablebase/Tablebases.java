@@ -0,0 +1,271 @@
+package chess.tablebase;
+
+import chess.Bitboards;
+import chess.CastlingRights;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPieces;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Endgame tables built by {@link TablebaseGenerator}, which give the exact result of every position with a few
+ * pieces: whether the team to move wins, draws or loses, and if it is not a draw, in how many plies the loser is
+ * checkmated with best play.
+ * <p>
+ * Each table is a file of one byte per position, named for its material (e.g. {@code KRK.ctb}), which is
+ * memory-mapped rather than read, so that opening a directory of tables is quick and only the parts of them that are
+ * probed are ever loaded. Probing computes the position's index from its piece squares and reads one byte, so it
+ * costs the same for every table and allocates nothing. Tables may be shared by any number of threads.
+ * <p>
+ * The tables ignore the fifty-move rule, and only cover positions without castling or en passant rights.
+ */
+public final class Tablebases {
+    /**
+     * Returned by {@link #probe(ChessGame)} when no table covers the position.
+     */
+    public static final int NOT_FOUND = -1;
+    /**
+     * The extension of table files.
+     */
+    public static final String FILE_SUFFIX = ".ctb";
+    /**
+     * A set of no tables, for a searcher that does not probe any. It is shared, so no tables can be added to it.
+     */
+    public static final Tablebases NONE = new Tablebases();
+
+    // Stored values: 0 for positions that cannot arise, 1 for a draw, and otherwise 2 plus the plies to mate, which
+    // is odd when the team to move gives the mate and even when it is mated.
+    static final int ILLEGAL = 0;
+    static final int DRAW = 1;
+    static final int MATE_OFFSET = 2;
+    static final int MAX_PLIES_TO_MATE = 255 - MATE_OFFSET;
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int HEADER_BYTES = 8;
+
+    private volatile Table[] tables = new Table[0];
+    private volatile int maxPieces;
+
+    /**
+     * Creates an empty set, to which {@link TablebaseGenerator} adds the tables it generates.
+     */
+    public Tablebases() {
+    }
+
+    /**
+     * Maps every table file in a directory.
+     *
+     * @param directory a directory of files written by {@link TablebaseGenerator}. A missing directory opens as an
+     *                  empty set.
+     * @throws IOException if a table could not be mapped, or is not a table file.
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        if (!Files.isDirectory(directory)) {
+            return tablebases;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Material material = Material.parse(name.substring(0, name.length() - FILE_SUFFIX.length()));
+                tablebases.add(material, map(file, material));
+            }
+        }
+        return tablebases;
+    }
+
+    static ByteBuffer map(Path file, Material material) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + material.tableSize()) {
+                throw new IOException(file + " is not the size of a " + material + " table");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != material.tableSize()) {
+                throw new IOException(file + " is not a table file");
+            }
+            return buffer.slice(HEADER_BYTES, (int) material.tableSize());
+        }
+    }
+
+    /**
+     * @return the most pieces, kings included, of any table in the set, or 0 if it is empty.
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return whether the set has a table for the material, either way round.
+     */
+    public boolean contains(Material material) {
+        return find(material.key()) != null || find(material.mirror().key()) != null;
+    }
+
+    /**
+     * Looks a position up.
+     *
+     * @return the position's value for the team to move, to be read with {@link #isWin(int)}, {@link #isLoss(int)},
+     * {@link #isDraw(int)} and {@link #pliesToMate(int)}, or {@link #NOT_FOUND} if no table covers it.
+     */
+    public int probe(ChessGame game) {
+        if (game.getCastlingRights() != CastlingRights.NONE || game.getEnPassantSquare() != Bitboards.NO_SQUARE) {
+            return NOT_FOUND;
+        }
+        ChessBoard board = game.getBoard();
+        if (Long.bitCount(board.getOccupancy()) > maxPieces) {
+            return NOT_FOUND;
+        }
+        long key = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                key += (long) Long.bitCount(board.getPieceSet(color, type)) << (4 * Bitboards.pieceIndex(color, type));
+            }
+        }
+
+        // A table keeps its material one way round; a position with the teams the other way is turned over.
+        Table table = find(key);
+        boolean flip = false;
+        if (table == null) {
+            table = findMirrored(key);
+            flip = true;
+            if (table == null) {
+                return NOT_FOUND;
+            }
+        }
+        int value = table.value(index(table.material, board, game.getTeamTurn() == ChessGame.TeamColor.WHITE, flip));
+        return value == ILLEGAL ? NOT_FOUND : value;
+    }
+
+    /**
+     * Computes a board's index straight from its piece sets, without filling in an array of slot squares.
+     */
+    private static int index(Material material, ChessBoard board, boolean whiteToMove, boolean flip) {
+        int flipSquares = flip ? 56 : 0;
+        ChessGame.TeamColor white = flip ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int whiteKing = Bitboards.firstSquare(board.getPieceSet(white, ChessPiece.PieceType.KING)) ^ flipSquares;
+        long lowest = Long.MAX_VALUE;
+        for (int reflection = 0; reflection < material.reflections(); reflection++) {
+            int reflectedKing = Material.reflect(reflection, whiteKing);
+            if (!material.inRegion(reflectedKing)) {
+                continue;
+            }
+            long index = material.startIndex(whiteToMove != flip, reflectedKing);
+
+            // Slots of the same team and type are next to each other, so each takes the next square of its set
+            long remaining = 0;
+            int previousPiece = -1;
+            for (int slot = 1; slot < material.pieceCount(); slot++) {
+                ChessGame.TeamColor color = flip ? ChessPieces.not(material.color(slot)) : material.color(slot);
+                int piece = Bitboards.pieceIndex(color, material.type(slot));
+                if (piece != previousPiece) {
+                    remaining = board.getPieceSet(color, material.type(slot));
+                    previousPiece = piece;
+                }
+                int square = Bitboards.firstSquare(remaining) ^ flipSquares;
+                remaining = Bitboards.withoutFirstSquare(remaining);
+                index = Material.addSquare(index, Material.reflect(reflection, square));
+            }
+            lowest = Math.min(lowest, index);
+        }
+        return (int) lowest;
+    }
+
+    /**
+     * @return whether the team to move wins.
+     */
+    public static boolean isWin(int value) {
+        return value >= MATE_OFFSET && (value & 1) == 1;
+    }
+
+    /**
+     * @return whether the team to move loses.
+     */
+    public static boolean isLoss(int value) {
+        return value >= MATE_OFFSET && (value & 1) == 0;
+    }
+
+    public static boolean isDraw(int value) {
+        return value == DRAW;
+    }
+
+    /**
+     * @return for a win or a loss, the number of plies until the loser is checkmated, which is 0 when the team to
+     * move already is.
+     */
+    public static int pliesToMate(int value) {
+        return value - MATE_OFFSET;
+    }
+
+    /**
+     * Adds a table, replacing any table already in the set for the same material.
+     *
+     * @param values the table's values by index, which must not be changed afterwards.
+     * @throws UnsupportedOperationException if this is {@link #NONE}.
+     */
+    synchronized void add(Material material, ByteBuffer values) {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("Tables cannot be added to Tablebases.NONE");
+        }
+        Table table = new Table(material, values);
+        Table[] newTables = Arrays.copyOf(tables, tables.length + 1);
+        newTables[tables.length] = table;
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i].key == table.key) {
+                newTables = tables.clone();
+                newTables[i] = table;
+                break;
+            }
+        }
+        tables = newTables;
+        maxPieces = Math.max(maxPieces, material.pieceCount());
+    }
+
+    /**
+     * @return the table with exactly the given material key, or null.
+     */
+    Table find(long key) {
+        for (Table table : tables) {
+            if (table.key == key) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private Table findMirrored(long key) {
+        for (Table table : tables) {
+            if (table.mirroredKey == key) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    static final class Table {
+        final Material material;
+        private final long key;
+        private final long mirroredKey;
+        private final ByteBuffer values;
+
+        Table(Material material, ByteBuffer values) {
+            this.material = material;
+            this.key = material.key();
+            this.mirroredKey = material.mirror().key();
+            this.values = values;
+        }
+
+        int value(int index) {
+            return values.get(index) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package http;
+
+/**
+ * A record representing an HTTP request to the AnalyzeGameService.
+ *
+ * @param gameID the ID of the finished game to analyze
+ */
+public record AnalyzeGameRequest(int gameID) {
+}
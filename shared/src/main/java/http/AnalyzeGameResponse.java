@@ -0,0 +1,12 @@
+package http;
+
+import java.util.ArrayList;
+
+/**
+ * A record representing an HTTP response to an AnalyzeGameService request.
+ *
+ * @param moves   the analysis of each move of the game in order, or null if the analysis is still running
+ * @param message the response message
+ */
+public record AnalyzeGameResponse(ArrayList<MoveAnalysis> moves, String message) {
+}
@@ -3,8 +3,12 @@ package http;
 /**
  * A record representing an HTTP request to the JoinGameService.
  *
- * @param playerColor the requested team color of the joining player, or null to join as a spectator
- * @param gameID      the ID of the game to join
+ * @param playerColor     the requested team color of the joining player, or null to join as a spectator
+ * @param gameID          the ID of the game to join
+ * @param againstComputer whether to seat the computer opponent as the other color
  */
-public record JoinGameRequest(String playerColor, int gameID) {
+public record JoinGameRequest(String playerColor, int gameID, boolean againstComputer) {
+    public JoinGameRequest(String playerColor, int gameID) {
+        this(playerColor, gameID, false);
+    }
 }
@@ -0,0 +1,15 @@
+package http;
+
+import chess.ChessMove;
+
+/**
+ * The engine's verdict on one move of an analyzed game.
+ *
+ * @param move       the move played
+ * @param evaluation the position's value after the move, in centipawns from white's point of view, or a mate score
+ *                   (see {@link chess.engine.Searcher#isMateScore(int)})
+ * @param bestMove   the move the engine would have played instead, or the move played if it agrees
+ * @param blunder    whether the move threw away at least two pawns' worth of value, or a forced mate
+ */
+public record MoveAnalysis(ChessMove move, int evaluation, ChessMove bestMove, boolean blunder) {
+}
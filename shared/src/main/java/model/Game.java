@@ -9,6 +9,11 @@ import java.util.Objects;
  * A model object representing the core data of a chess game.
  */
 public class Game {
+    /**
+     * The username that stands for the computer opponent. When it is a player's turn under this name, the server
+     * plays the move.
+     */
+    public static final String COMPUTER_USERNAME = "Computer";
 
     private final int gameID;
     private final ArrayList<String> spectators;
@@ -64,6 +69,14 @@ public class Game {
         this.blackUsername = blackUsername;
     }
 
+    /**
+     * @return whether the player whose turn it is is the computer opponent.
+     */
+    public boolean isComputerToMove() {
+        String username = chessGame.getTeamTurn() == ChessGame.TeamColor.WHITE ? whiteUsername : blackUsername;
+        return COMPUTER_USERNAME.equals(username);
+    }
+
     public String gameName() {
         return gameName;
     }
@@ -0,0 +1,133 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class ChessBoardTest {
+    @Test
+    void bitboardsMatchPiecesOnResetBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(0x000000000000FFFFL, board.getTeamSet(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0xFFFF000000000000L, board.getTeamSet(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0x000000000000FF00L,
+                board.getPieceSet(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertBitboardsMatchPieces(board);
+    }
+
+    @Test
+    void bitboardsFollowAddRemoveAndMoves() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        ChessMove move = new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3));
+        ChessPiece captured = board.forceApplyMove(move);
+        Assertions.assertNull(captured);
+        assertBitboardsMatchPieces(board);
+
+        board.forceRestoreFromMove(move, captured);
+        assertBitboardsMatchPieces(board);
+
+        board.removePiece(new ChessPosition(7, 4));
+        board.addPiece(new ChessPosition(5, 4), new ChessPiece(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.QUEEN));
+        assertBitboardsMatchPieces(board);
+
+        board.clearBoard();
+        Assertions.assertEquals(0, board.getOccupancy());
+    }
+
+    @Test
+    void kingLookupAndTeamIteration() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new ChessPosition(8, 5), board.getKingPosition(ChessGame.TeamColor.BLACK));
+
+        Set<ChessPosition> blackPieces = new HashSet<>(board.getTeamPieces(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(16, blackPieces.size());
+        Assertions.assertTrue(blackPieces.contains(new ChessPosition(7, 1)));
+
+        board.removePiece(new ChessPosition(8, 5));
+        Assertions.assertFalse(board.containsKing(ChessGame.TeamColor.BLACK));
+        Assertions.assertThrows(InvalidBoardException.class,
+                () -> board.getKingPosition(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void zobristKeyDependsOnlyOnPiecePlacement() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        long startKey = board.getZobristKey();
+
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5));
+        ChessPiece captured = board.forceApplyMove(move);
+        Assertions.assertNotEquals(startKey, board.getZobristKey());
+        board.forceRestoreFromMove(move, captured);
+        Assertions.assertEquals(startKey, board.getZobristKey());
+
+        ChessBoard rebuilt = new ChessBoard();
+        for (int square = 63; square >= 0; square--) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                rebuilt.addPiece(Bitboards.position(square), piece.copy());
+            }
+        }
+        Assertions.assertEquals(board, rebuilt);
+        Assertions.assertEquals(board.getZobristKey(), rebuilt.getZobristKey());
+        Assertions.assertEquals(board.hashCode(), rebuilt.hashCode());
+
+        board.clearBoard();
+        Assertions.assertEquals(0, board.getZobristKey());
+    }
+
+    @Test
+    void squareAttacksMatchGeneratedCaptures() {
+        Random random = new Random(240);
+        ChessPiece.PieceType[] types = ChessPiece.PieceType.values();
+        for (int trial = 0; trial < 200; trial++) {
+            ChessBoard board = new ChessBoard();
+            for (int i = 0; i < 16; i++) {
+                ChessPosition position = new ChessPosition(random.nextInt(8) + 1, random.nextInt(8) + 1);
+                if (!board.hasPieceAt(position)) {
+                    ChessGame.TeamColor color = ChessGame.TeamColor.values()[random.nextInt(2)];
+                    board.addPiece(position, new ChessPiece(color, types[random.nextInt(types.length)]));
+                }
+            }
+
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                Set<ChessPosition> captured = new HashSet<>();
+                for (ChessPosition attacker : board.getTeamPieces(ChessPieces.not(color))) {
+                    for (ChessMove move : board.getPiece(attacker).pieceMoves(board, attacker)) {
+                        captured.add(move.getEndPosition());
+                    }
+                }
+                for (ChessPosition target : board.getTeamPieces(color)) {
+                    Assertions.assertEquals(captured.contains(target),
+                            board.isSquareAttacked(target, ChessPieces.not(color)), board + " at " + target);
+                }
+            }
+        }
+    }
+
+    private void assertBitboardsMatchPieces(ChessBoard board) {
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(Bitboards.position(square));
+            long bit = Bitboards.bit(square);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                boolean onTeam = piece != null && piece.getTeamColor() == color;
+                Assertions.assertEquals(onTeam, (board.getTeamSet(color) & bit) != 0);
+                for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                    boolean isPiece = onTeam && piece.getPieceType() == type;
+                    Assertions.assertEquals(isPiece, (board.getPieceSet(color, type) & bit) != 0);
+                }
+            }
+        }
+    }
+}
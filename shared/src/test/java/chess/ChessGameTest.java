@@ -0,0 +1,390 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class ChessGameTest {
+    @Test
+    void validMovesMatchMakeUnmakeFilterInRandomGames() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int gameNum = 0; gameNum < 40; gameNum++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120 && game.getWinState() == WinState.IN_PROGRESS; ply++) {
+                List<ChessMove> teamMoves = new ArrayList<>();
+                for (ChessPosition position : game.getBoard().getTeamPieces(game.getTeamTurn())) {
+                    Set<ChessMove> expected = movesNotLeavingKingInCheck(game.getBoard(), position);
+                    Set<ChessMove> actual = new HashSet<>(game.validMoves(position));
+                    teamMoves.addAll(actual);
+                    actual.removeIf(move -> isCastlingOrEnPassant(game.getBoard(), move));
+                    Assertions.assertEquals(expected, actual, game.getBoard() + " from " + position);
+                }
+                if (teamMoves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(teamMoves.get(random.nextInt(teamMoves.size())));
+            }
+        }
+    }
+
+    @Test
+    void statusIsCachedUntilTheNextMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameStatus status = game.getStatus();
+        Assertions.assertEquals(new GameStatus(ChessGame.TeamColor.WHITE, false, 20), status);
+        Assertions.assertSame(status, game.getStatus());
+
+        // Fool's mate
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6)));
+        Assertions.assertNotSame(status, game.getStatus());
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7)));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8)));
+
+        Assertions.assertEquals(new GameStatus(ChessGame.TeamColor.WHITE, true, 0), game.getStatus());
+        Assertions.assertTrue(game.getStatus().isCheckmate());
+        Assertions.assertEquals(WinState.BLACK_WIN, game.getWinState());
+    }
+
+    @Test
+    void zobristKeyCoversTurnAndCastlingRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long startKey = game.getZobristKey();
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6)));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6)));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7)));
+        long keyWithBlackToMove = game.getZobristKey();
+        Assertions.assertNotEquals(startKey, keyWithBlackToMove);
+
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7)));
+        Assertions.assertEquals(startKey, game.getZobristKey());
+
+
+        ChessBoard movedRookBoard = new ChessBoard();
+        movedRookBoard.resetBoard();
+        movedRookBoard.removePiece(new ChessPosition(1, 8));
+        movedRookBoard.addPiece(new ChessPosition(1, 8),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK, false));
+        ChessGame movedRookGame = new ChessGame();
+        movedRookGame.setBoard(movedRookBoard);
+        Assertions.assertEquals(startKey ^ Zobrist.castlingKey(CastlingRights.ALL) ^
+                        Zobrist.castlingKey(CastlingRights.ALL & ~CastlingRights.WHITE_KINGSIDE),
+                movedRookGame.getZobristKey());
+    }
+
+    @Test
+    void undoMoveRestoresAppliedMoves() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int gameNum = 0; gameNum < 20; gameNum++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100 && game.getWinState() == WinState.IN_PROGRESS; ply++) {
+                MoveList moves = new MoveList();
+                game.generateLegalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+
+                ChessBoard before = game.getBoard().copy();
+                long keyBefore = game.getZobristKey();
+                int rights = game.getCastlingRights();
+                int enPassantSquare = game.getEnPassantSquare();
+                for (int i = 0; i < moves.size(); i++) {
+                    game.applyMove(moves.get(i));
+                    Assertions.assertNotEquals(keyBefore, game.getZobristKey());
+                    game.undoMove();
+                    Assertions.assertEquals(before, game.getBoard());
+                    Assertions.assertEquals(keyBefore, game.getZobristKey());
+                }
+                Assertions.assertEquals(rights, game.getCastlingRights());
+                Assertions.assertEquals(enPassantSquare, game.getEnPassantSquare());
+
+                game.makeMove(Moves.toChessMove(moves.get(random.nextInt(moves.size()))));
+            }
+        }
+    }
+
+    @Test
+    void undoMoveAfterCheckmateRestoresWinState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6)));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7)));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8)));
+        Assertions.assertEquals(WinState.BLACK_WIN, game.getWinState());
+
+        game.undoMove();
+        Assertions.assertEquals(WinState.IN_PROGRESS, game.getWinState());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertThrows(IllegalStateException.class, () -> new ChessGame().undoMove());
+    }
+
+    @Test
+    void castlingMovesTheRookAndUndoRestoresRights() {
+        ChessGame game = Fen.read("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long startKey = game.getZobristKey();
+        Set<ChessMove> kingMoves = new HashSet<>(game.validMoves(new ChessPosition(1, 5)));
+        Assertions.assertTrue(kingMoves.contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7))));
+        Assertions.assertTrue(kingMoves.contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3))));
+
+        game.applyMove(Moves.encode(Bitboards.square(1, 5), Bitboards.square(1, 3), Moves.CASTLING));
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getPiece(Bitboards.square(1, 4))
+                .getPieceType());
+        Assertions.assertNull(game.getBoard().getPiece(Bitboards.square(1, 1)));
+        Assertions.assertEquals(CastlingRights.BLACK_KINGSIDE | CastlingRights.BLACK_QUEENSIDE,
+                game.getCastlingRights());
+
+        game.undoMove();
+        Assertions.assertEquals(Fen.read("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").getBoard(), game.getBoard());
+        Assertions.assertEquals(CastlingRights.ALL, game.getCastlingRights());
+        Assertions.assertEquals(startKey, game.getZobristKey());
+    }
+
+    @Test
+    void enPassantSquareIsOnlyKeptWhenAPawnCanCapture() throws InvalidMoveException {
+        ChessGame game = Fen.read("4k3/3p4/8/4P3/8/8/8/4K3 b - - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4)));
+        Assertions.assertEquals(Bitboards.square(6, 4), game.getEnPassantSquare());
+        Assertions.assertEquals(Fen.read("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1").getZobristKey(), game.getZobristKey());
+
+        game.makeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4)));
+        Assertions.assertNull(game.getBoard().getPiece(Bitboards.square(5, 4)));
+        Assertions.assertEquals(Bitboards.NO_SQUARE, game.getEnPassantSquare());
+
+        Assertions.assertEquals(Fen.read("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1").getZobristKey(),
+                Fen.read("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 1").getZobristKey());
+    }
+
+    @Test
+    void threefoldRepetitionEndsTheGameAndSurvivesJson() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6)),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6)),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7)),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7))};
+        for (ChessMove move : shuffle) {
+            played.makeMove(move);
+        }
+        Assertions.assertTrue(played.isRepetition());
+        Assertions.assertEquals(4, played.getHalfmoveClock());
+
+        Gson gson = new Gson();
+        ChessGame game = gson.fromJson(gson.toJson(played), ChessGame.class);
+        for (int i = 0; i < shuffle.length - 1; i++) {
+            game.makeMove(shuffle[i]);
+            Assertions.assertEquals(WinState.IN_PROGRESS, game.getWinState());
+        }
+        game.makeMove(shuffle[shuffle.length - 1]);
+        Assertions.assertEquals(WinState.DRAW_BY_REPETITION, game.getWinState());
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(shuffle[0]));
+
+        game.undoMove();
+        Assertions.assertEquals(WinState.IN_PROGRESS, game.getWinState());
+        Assertions.assertEquals(7, game.getHalfmoveClock());
+    }
+
+    @Test
+    void jsonRebuildsTheBitboardsAndKey() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        played.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        played.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4)));
+
+        Gson gson = new Gson();
+        String json = gson.toJson(played);
+        Assertions.assertFalse(json.contains("pieceSets"), json);
+        Assertions.assertFalse(json.contains("zobristKey"), json);
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(played.getZobristKey(), game.getZobristKey());
+        Assertions.assertEquals(new HashSet<>(played.validMoves(new ChessPosition(4, 5))),
+                new HashSet<>(game.validMoves(new ChessPosition(4, 5))));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4)));
+        Assertions.assertEquals(WinState.IN_PROGRESS, game.getWinState());
+    }
+
+    @Test
+    void jsonWithoutCastlingRightsDerivesThemFromThePieces() {
+        Gson gson = new Gson();
+        JsonObject json = gson.toJsonTree(new ChessGame()).getAsJsonObject();
+        json.remove("castlingRights");
+        JsonArray firstRow = json.getAsJsonObject("board").getAsJsonArray("pieces").get(0).getAsJsonArray();
+        firstRow.get(7).getAsJsonObject().addProperty("hasNeverMoved", false);
+
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(CastlingRights.ALL & ~CastlingRights.WHITE_KINGSIDE, game.getCastlingRights());
+        Assertions.assertEquals(Fen.read("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w Qkq - 0 1").getZobristKey(),
+                game.getZobristKey());
+    }
+
+    @Test
+    void setBoardKeepsTheRightsLostInPlay() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        ChessMove[] moves = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6)),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6)),
+                new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 7)),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7)),
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(1, 8))};
+        for (ChessMove move : moves) {
+            played.makeMove(move);
+        }
+        int rights = CastlingRights.ALL & ~CastlingRights.WHITE_KINGSIDE;
+        Assertions.assertEquals(rights, played.getCastlingRights());
+
+        ChessGame game = new ChessGame();
+        game.setBoard(played.getBoard().copy());
+        Assertions.assertEquals(rights, game.getCastlingRights());
+
+        played.undoMove();
+        played.undoMove();
+        played.undoMove();
+        game.setBoard(played.getBoard().copy());
+        Assertions.assertEquals(CastlingRights.ALL, game.getCastlingRights());
+    }
+
+    @Test
+    void pawnMovesAndCapturesResetTheHalfmoveClock() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3)));
+        Assertions.assertEquals(1, game.getHalfmoveClock());
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4)));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(new ChessMove(new ChessPosition(3, 3), new ChessPosition(5, 4)));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertFalse(game.isRepetition());
+    }
+
+    @Test
+    void insufficientMaterialIsADraw() throws InvalidMoveException {
+        Assertions.assertTrue(Fen.read("4k3/8/8/8/8/8/8/4K3 w - - 0 1").hasInsufficientMaterial());
+        Assertions.assertTrue(Fen.read("4k3/8/8/8/8/8/8/4KN2 w - - 0 1").hasInsufficientMaterial());
+        Assertions.assertTrue(Fen.read("2b1k3/8/8/8/8/8/8/4KB2 w - - 0 1").hasInsufficientMaterial());
+        Assertions.assertFalse(Fen.read("1b2k3/8/8/8/8/8/8/4KB2 w - - 0 1").hasInsufficientMaterial());
+        Assertions.assertFalse(Fen.read("4k3/8/8/8/8/8/8/3NKN2 w - - 0 1").hasInsufficientMaterial());
+        Assertions.assertFalse(Fen.read("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").hasInsufficientMaterial());
+
+        ChessGame game = Fen.read("4k3/8/8/8/8/8/4r3/4K3 w - - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5)));
+        Assertions.assertEquals(WinState.DRAW_BY_INSUFFICIENT_MATERIAL, game.getWinState());
+    }
+
+    @Test
+    void fenRoundTripsPlayedGames() {
+        Random random = new Random(240);
+        for (int gameNum = 0; gameNum < 20; gameNum++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                ChessGame read = ChessGame.fromFen(game.toFen());
+                Assertions.assertEquals(game.toFen(), read.toFen());
+                Assertions.assertEquals(game.getBoard(), read.getBoard());
+                Assertions.assertEquals(game.getZobristKey(), read.getZobristKey());
+                Assertions.assertEquals(game.getHalfmoveClock(), read.getHalfmoveClock());
+
+                MoveList moves = new MoveList();
+                game.generateLegalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.applyMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void fenWritesClocksAndSpecialMoveState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", game.toFen());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6)));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5)));
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", game.toFen());
+
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Assertions.assertEquals(kiwipete, ChessGame.fromFen(kiwipete).toFen());
+        Assertions.assertEquals("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1",
+                ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1").toFen());
+        Assertions.assertEquals("4k3/8/8/3p4/8/8/8/4K3 w - - 12 40",
+                ChessGame.fromFen("4k3/8/8/3p4/8/8/8/4K3 w - d6 12 40").toFen());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - x 1"));
+    }
+
+    @Test
+    void fenDropsEnPassantSquaresNoPawnPassedOver() {
+        Assertions.assertEquals("4k3/8/8/8/3p4/8/8/4K3 b - - 0 1",
+                ChessGame.fromFen("4k3/8/8/8/3p4/8/8/4K3 b - e3 0 1").toFen(), "no pawn past the square");
+        Assertions.assertEquals("4k3/8/8/8/3pP3/4N3/8/4K3 b - - 0 1",
+                ChessGame.fromFen("4k3/8/8/8/3pP3/4N3/8/4K3 b - e3 0 1").toFen(), "the square is not empty");
+        Assertions.assertEquals("4k3/8/8/8/3pP3/8/4N3/4K3 b - - 0 1",
+                ChessGame.fromFen("4k3/8/8/8/3pP3/8/4N3/4K3 b - e3 0 1").toFen(), "the start square is not empty");
+        Assertions.assertEquals("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1",
+                ChessGame.fromFen("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1").toFen());
+    }
+
+    @Test
+    void startFenIsTheSetUpPosition() throws InvalidMoveException {
+        String fen = "4k3/8/8/8/3pP3/8/8/4K3 b - e3 3 20";
+        ChessGame game = ChessGame.fromFen(fen);
+        game.makeMove(new ChessMove(new ChessPosition(4, 4), new ChessPosition(3, 5)));
+        Assertions.assertEquals(fen, game.getStartFen());
+
+        Gson gson = new Gson();
+        ChessGame read = gson.fromJson(gson.toJson(ChessGame.fromFen(fen)), ChessGame.class);
+        Assertions.assertEquals(fen, read.getStartFen());
+        Assertions.assertEquals(Fen.START, gson.fromJson(gson.toJson(new ChessGame()), ChessGame.class).getStartFen());
+
+        ChessGame setUp = new ChessGame();
+        setUp.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1", setUp.getStartFen());
+        Assertions.assertEquals(setUp.getStartFen(), setUp.copy().getStartFen());
+    }
+
+    @Test
+    void fenRejectsMalformedPlacements() {
+        for (String fen : new String[]{
+                "4k3/7/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K3/8 w - - 0 1",
+                "4k3/8/8/8/8/8/4K3 w - - 0 1",
+                "8/8/8/8/8/8/8/8 w - - 0 1",
+                "8/8/8/8/8/8/8/R7 w - - 0 1",
+                "4k3/8/8/8/8/8/8/3KK3 w - - 0 1"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    private boolean isCastlingOrEnPassant(ChessBoard board, ChessMove move) {
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        int columnChange = Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn());
+        return switch (piece.getPieceType()) {
+            case KING -> columnChange == 2;
+            case PAWN -> columnChange == 1 && !board.hasPieceAt(move.getEndPosition());
+            default -> false;
+        };
+    }
+
+    private Set<ChessMove> movesNotLeavingKingInCheck(ChessBoard board, ChessPosition position) {
+        ChessGame.TeamColor color = board.getPiece(position).getTeamColor();
+        ChessGame scratch = new ChessGame();
+        scratch.setBoard(board);
+
+        Set<ChessMove> moves = new HashSet<>();
+        for (ChessMove move : board.getPiece(position).pieceMoves(board, position)) {
+            ChessPiece captured = board.forceApplyMove(move);
+            if (!scratch.isInCheck(color)) {
+                moves.add(move);
+            }
+            board.forceRestoreFromMove(move, captured);
+        }
+        return moves;
+    }
+}
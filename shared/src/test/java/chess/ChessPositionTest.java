@@ -0,0 +1,32 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChessPositionTest {
+    @Test
+    void sharedPositionsMatchConstructedOnes() {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                Assertions.assertSame(position, ChessPosition.of(row, col));
+                Assertions.assertSame(position, ChessPosition.ofIndex(position.index()));
+                Assertions.assertEquals(new ChessPosition(row, col), position);
+                Assertions.assertEquals(new ChessPosition(row, col).hashCode(), position.hashCode());
+                Assertions.assertEquals(Bitboards.square(row, col), position.index());
+            }
+        }
+    }
+
+    @Test
+    void offBoardPositionsAreOnlyConstructed() {
+        Assertions.assertFalse(ChessPosition.isOnBoard(0, 4));
+        Assertions.assertFalse(ChessPosition.isOnBoard(9, 9));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessPosition.of(9, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessPosition.of(4, 0));
+
+        ChessPosition offBoard = new ChessPosition(9, 1);
+        Assertions.assertFalse(offBoard.isValidPosition());
+        Assertions.assertNotEquals(ChessPosition.of(1, 1), offBoard);
+    }
+}
@@ -0,0 +1,35 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KeyHistoryTest {
+    @Test
+    void occurrencesOnlyLookBackToTheLastIrreversibleMove() {
+        KeyHistory history = new KeyHistory(1);
+        history.push(2, 0, false);
+        history.push(1, 0, false);
+        Assertions.assertEquals(2, history.occurrences());
+
+        history.push(2, 0, true);
+        history.push(1, 0, false);
+        Assertions.assertEquals(1, history.occurrences());
+        Assertions.assertEquals(1, history.halfmoveClock());
+
+        history.pop(0);
+        history.pop(2);
+        Assertions.assertEquals(2, history.occurrences());
+        Assertions.assertEquals(2, history.halfmoveClock());
+    }
+
+    @Test
+    void halfmoveClockCountsPastTheStartOfTheHistory() {
+        KeyHistory history = new KeyHistory(0);
+        for (int ply = 1; ply <= 100; ply++) {
+            history.push(ply, 0, false);
+        }
+        Assertions.assertEquals(100, history.halfmoveClock());
+        Assertions.assertEquals(1, history.occurrences());
+        Assertions.assertThrows(IllegalStateException.class, () -> new KeyHistory(0).pop(0));
+    }
+}
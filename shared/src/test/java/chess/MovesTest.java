@@ -0,0 +1,40 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MovesTest {
+    @Test
+    void packedMovesRoundTrip() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1),
+                ChessPiece.PieceType.KNIGHT);
+        int packed = Moves.encode(promotion) | Moves.CAPTURE;
+
+        Assertions.assertEquals(Bitboards.square(7, 2), Moves.from(packed));
+        Assertions.assertEquals(Bitboards.square(8, 1), Moves.to(packed));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, Moves.promotionPiece(packed));
+        Assertions.assertTrue(Moves.hasFlag(packed, Moves.CAPTURE));
+        Assertions.assertFalse(Moves.hasFlag(packed, Moves.DOUBLE_PAWN_PUSH));
+        Assertions.assertEquals(promotion, Moves.toChessMove(packed));
+        Assertions.assertTrue(Moves.sameMove(packed, Moves.encode(promotion)));
+
+        int corner = Moves.encode(63, 0, 0);
+        Assertions.assertEquals(new ChessMove(new ChessPosition(8, 8), new ChessPosition(1, 1)),
+                Moves.toChessMove(corner));
+        Assertions.assertNull(Moves.promotionPiece(corner));
+    }
+
+    @Test
+    void moveListGrowsAndIsReusable() {
+        MoveList moves = new MoveList(2);
+        for (int i = 0; i < 100; i++) {
+            moves.add(Moves.encode(i % 64, (i + 1) % 64, 0));
+        }
+        Assertions.assertEquals(100, moves.size());
+        Assertions.assertEquals(Moves.encode(35, 36, 0), moves.get(99));
+
+        moves.clear();
+        Assertions.assertTrue(moves.isEmpty());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> moves.get(0));
+    }
+}
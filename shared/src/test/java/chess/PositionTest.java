@@ -0,0 +1,96 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+class PositionTest {
+    @Test
+    void applyMatchesPlayingTheGame() {
+        Random random = new Random(240);
+        for (int gameNum = 0; gameNum < 20; gameNum++) {
+            ChessGame game = new ChessGame();
+            Position position = game.getPosition();
+            for (int ply = 0; ply < 100; ply++) {
+                MoveList moves = new MoveList();
+                game.generateLegalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                int move = moves.get(random.nextInt(moves.size()));
+                Position before = position;
+
+                position = position.apply(move);
+                game.applyMove(move);
+
+                Assertions.assertEquals(Position.of(game), position);
+                Assertions.assertEquals(game.getZobristKey(), position.getZobristKey());
+                Assertions.assertEquals(game.getBoard(), position.toBoard());
+                Assertions.assertEquals(game.getCastlingRights(), position.getCastlingRights());
+                Assertions.assertEquals(game.getEnPassantSquare(), position.getEnPassantSquare());
+                Assertions.assertNotEquals(before, position);
+            }
+        }
+    }
+
+    @Test
+    void snapshotsDoNotChangeWithTheGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Position start = game.getPosition();
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, start.getTeamToMove());
+        Assertions.assertNotNull(start.getPiece(Bitboards.square(2, 5)));
+
+        Position afterMove = game.getPosition();
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, afterMove.getTeamToMove());
+        Assertions.assertNull(afterMove.getPiece(Bitboards.square(2, 5)));
+        Assertions.assertNotNull(afterMove.getPiece(Bitboards.square(4, 5)));
+
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        game.applyMove(moves.get(0));
+        Assertions.assertSame(afterMove, game.getPosition());
+        game.undoMove();
+    }
+
+    @Test
+    void gamesReadFromJsonPublishTheirPosition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4)));
+
+        Gson gson = new Gson();
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game.getPosition(), read.getPosition());
+        Assertions.assertEquals(game.getZobristKey(), read.getPosition().getZobristKey());
+    }
+
+    @Test
+    void readerThreadOnlySeesWholePositions() throws InterruptedException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                Position position = game.getPosition();
+                long whiteKings = position.getPieceSet(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+                if (position.toGame().getZobristKey() != position.getZobristKey() || Long.bitCount(whiteKings) != 1) {
+                    failure.set("Inconsistent snapshot:" + position);
+                }
+            }
+        });
+        reader.start();
+
+        Random random = new Random(240);
+        for (int ply = 0; ply < 200 && game.getWinState() == WinState.IN_PROGRESS; ply++) {
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(moves);
+            game.makeMove(Moves.toChessMove(moves.get(random.nextInt(moves.size()))));
+        }
+        reader.interrupt();
+        reader.join();
+        Assertions.assertNull(failure.get());
+    }
+}
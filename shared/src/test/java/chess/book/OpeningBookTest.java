@@ -0,0 +1,152 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+class OpeningBookTest {
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0
+
+            [Result "1/2-1/2"]
+            1. e4 c5 2. Nf3 d6 1/2-1/2
+
+            [Result "0-1"]
+            1. d4 d5 2. c4 e6 0-1
+
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 1-0
+
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/8/4K2R w K - 0 1"]
+            [Result "1-0"]
+            1. Rh8+ Kd7 1-0
+            """;
+
+    private static final ChessMove E4 = move(2, 5, 4, 5);
+    private static final ChessMove D4 = move(2, 4, 4, 4);
+    private static final ChessMove E5 = move(7, 5, 5, 5);
+    private static final ChessMove C5 = move(7, 3, 5, 3);
+    private static final ChessMove D5 = move(7, 4, 5, 4);
+
+    @Test
+    void weighsMovesByResult() throws InvalidMoveException {
+        OpeningBook book = build(new OpeningBookBuilder());
+        Assertions.assertEquals(List.of(new BookMove(E4, 5)), book.moves(new ChessGame()),
+                "2 for each win and 1 for the draw, and nothing for the lost game's 1. d4");
+
+        ChessGame afterE4 = play(E4);
+        Assertions.assertEquals(List.of(new BookMove(C5, 1)), book.moves(afterE4), "1... e5 only ever lost");
+        Assertions.assertEquals(List.of(new BookMove(D5, 2)), book.moves(play(D4)));
+        Assertions.assertEquals(List.of(), book.moves(play(move(2, 3, 4, 3))));
+    }
+
+    @Test
+    void takesOnlyTheFirstPlies() throws InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(2);
+        OpeningBook book = build(builder);
+        Assertions.assertEquals(3, book.size(), "1. e4, 1... c5 and 1... d5, but not the setup game's move");
+        Assertions.assertEquals(List.of(), book.moves(play(E4, E5)));
+        ChessGame afterNc6 = play(E4, E5, move(1, 7, 3, 6), move(8, 2, 6, 3));
+        Assertions.assertEquals(List.of(), book.moves(afterNc6));
+        Assertions.assertEquals(2, build(new OpeningBookBuilder(5)).moves(afterNc6).size(), "3. Bb5 and 3. Bc4");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OpeningBookBuilder(0));
+    }
+
+    @Test
+    void picksMovesInProportionToWeight() throws InvalidMoveException {
+        OpeningBook book = build(new OpeningBookBuilder());
+        ChessGame position = play(E4, E5, move(1, 7, 3, 6), move(8, 2, 6, 3));
+        Map<ChessMove, Integer> picks = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            picks.merge(book.pick(position, random), 1, Integer::sum);
+        }
+        Assertions.assertEquals(2, picks.size(), picks.toString());
+        Assertions.assertTrue(picks.get(move(1, 6, 5, 2)) > 400, picks.toString());
+        Assertions.assertTrue(picks.get(move(1, 6, 4, 3)) > 400, picks.toString());
+
+        Assertions.assertNull(book.pick(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), random));
+        Assertions.assertNull(OpeningBook.EMPTY.pick(new ChessGame(), random));
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        PgnGame game = new PgnGame(Map.of(), List.of(E4, D4), "*");
+        Assertions.assertThrows(InvalidMoveException.class, () -> builder.add(game));
+        Assertions.assertEquals(1, builder.size(), "the moves before the illegal one are kept");
+    }
+
+    @Test
+    void writesAndMapsFiles(@TempDir Path directory) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        OpeningBook built = build(builder);
+        Path file = directory.resolve("openings.book");
+        builder.write(file);
+        Assertions.assertEquals(OpeningBook.HEADER_BYTES + (long) builder.size() * OpeningBook.RECORD_BYTES,
+                Files.size(file));
+
+        OpeningBook opened = OpeningBook.open(file);
+        Assertions.assertEquals(built.size(), opened.size());
+        for (ChessGame position : List.of(new ChessGame(), play(E4), play(D4), play(E4, E5))) {
+            Assertions.assertEquals(built.moves(position), opened.moves(position));
+        }
+
+        Files.write(file, new byte[]{1, 2, 3});
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+        Assertions.assertEquals(0, OpeningBook.open(directory.resolve("missing.book")).size());
+    }
+
+    @Test
+    void rewritingLeavesMappedBooksAlone(@TempDir Path directory) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        OpeningBook built = build(builder);
+        Path file = directory.resolve("openings.book");
+        builder.write(file);
+        OpeningBook opened = OpeningBook.open(file);
+
+        new OpeningBookBuilder().write(file);
+        Assertions.assertEquals(built.moves(new ChessGame()), opened.moves(new ChessGame()));
+        Assertions.assertEquals(0, OpeningBook.open(file).size());
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(List.of(file), files.toList(), "no temporary files are left behind");
+        }
+    }
+
+    private static OpeningBook build(OpeningBookBuilder builder) throws InvalidMoveException {
+        PgnReader reader = new PgnReader(new StringReader(GAMES));
+        while (reader.hasNext()) {
+            builder.add(reader.next());
+        }
+        return builder.build();
+    }
+
+    private static ChessGame play(ChessMove... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    private static ChessMove move(int startRow, int startColumn, int endRow, int endColumn) {
+        return new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null);
+    }
+}
@@ -0,0 +1,66 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class EvaluationTest {
+    @Test
+    void startingPositionIsEven() {
+        Assertions.assertEquals(0, Evaluation.evaluate(new ChessGame()));
+        Assertions.assertEquals(24, new ChessGame().getBoard().getPhase());
+    }
+
+    @Test
+    void mirroredPositionsHaveOppositeScores() {
+        ChessGame white = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        ChessGame black = ChessGame.fromFen("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1");
+        Assertions.assertEquals(Evaluation.evaluateForWhite(white.getBoard()),
+                -Evaluation.evaluateForWhite(black.getBoard()));
+        Assertions.assertEquals(Evaluation.evaluate(white), Evaluation.evaluate(black));
+    }
+
+    @Test
+    void prefersExtraMaterialAndAdvancedPawns() {
+        Assertions.assertTrue(Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/8/8/8/8/Q3K3 w - - 0 1")) > 800);
+        Assertions.assertTrue(Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/8/8/8/8/Q3K3 b - - 0 1")) < -800);
+        int pawnOnSeventh = Evaluation.evaluate(ChessGame.fromFen("4k3/P7/8/8/8/8/8/4K3 w - - 0 1"));
+        int pawnOnSecond = Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/8/8/8/P7/4K3 w - - 0 1"));
+        Assertions.assertTrue(pawnOnSeventh > pawnOnSecond);
+    }
+
+    @Test
+    void incrementalScoresMatchRecountedBoard() {
+        Random random = new Random(21);
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 200; ply++) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.applyMove(moves.get(random.nextInt(moves.size())));
+            assertSameScores(ChessGame.fromFen(game.toFen()).getBoard(), game.getBoard());
+        }
+        for (int ply = 0; ply < 20; ply++) {
+            game.undoMove();
+        }
+        assertSameScores(ChessGame.fromFen(game.toFen()).getBoard(), game.getBoard());
+        assertSameScores(game.getBoard(), game.getBoard().copy());
+
+        Gson gson = new Gson();
+        assertSameScores(game.getBoard(), gson.fromJson(gson.toJson(game), ChessGame.class).getBoard());
+    }
+
+    private static void assertSameScores(ChessBoard expected, ChessBoard actual) {
+        Assertions.assertEquals(expected.getMiddlegameScore(), actual.getMiddlegameScore());
+        Assertions.assertEquals(expected.getEndgameScore(), actual.getEndgameScore());
+        Assertions.assertEquals(expected.getPhase(), actual.getPhase());
+    }
+}
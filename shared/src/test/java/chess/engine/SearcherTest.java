@@ -0,0 +1,156 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.tablebase.Material;
+import chess.tablebase.TablebaseGenerator;
+import chess.tablebase.Tablebases;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+class SearcherTest {
+    private final Searcher searcher = new Searcher();
+
+    @Test
+    void findsBackRankMate() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = searcher.search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(move(1, 1, 8, 1), result.bestMove());
+        Assertions.assertEquals(Searcher.MATE_SCORE - 1, result.score());
+        Assertions.assertEquals(1, result.depth(), "a mate in one ends the search after the first iteration");
+    }
+
+    @Test
+    void findsMateInTwo() {
+        ChessGame game = ChessGame.fromFen("7k/8/5K2/8/8/8/8/6R1 w - - 0 1");
+        SearchResult result = searcher.search(game, SearchLimits.depth(5));
+        Assertions.assertEquals(Searcher.MATE_SCORE - 3, result.score());
+        Assertions.assertTrue(Searcher.isMateScore(result.score()));
+    }
+
+    @Test
+    void winsHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        Assertions.assertEquals(move(1, 4, 5, 4), searcher.bestMove(game, SearchLimits.depth(3)));
+    }
+
+    @Test
+    void quiescenceSeesRecapture() {
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3n4/8/8/8/3QK3 w - - 0 1");
+        Assertions.assertNotEquals(move(1, 4, 5, 4), searcher.bestMove(game, SearchLimits.depth(1)));
+    }
+
+    @Test
+    void leavesGameUnchanged() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = game.toFen();
+        SearchResult result = searcher.search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(fen, game.toFen());
+        Assertions.assertNotEquals(-1, game.findLegalMove(result.bestMove()));
+    }
+
+    @Test
+    void reportsMateWithoutMove() {
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = searcher.search(game, SearchLimits.depth(3));
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(-Searcher.MATE_SCORE, result.score());
+    }
+
+    @Test
+    void returnsLegalMoveWhenStoppedAtOnce() {
+        ChessGame game = new ChessGame();
+        SearchResult result = searcher.search(game, SearchLimits.nodes(1));
+        Assertions.assertEquals(0, result.depth());
+        Assertions.assertNotEquals(-1, game.findLegalMove(result.bestMove()));
+    }
+
+    @Test
+    void stopsOnNodeAndTimeLimits() {
+        ChessGame game = new ChessGame();
+        Assertions.assertTrue(searcher.search(game, SearchLimits.nodes(5000)).nodes() <= 5000);
+
+        long start = System.nanoTime();
+        SearchResult result = searcher.search(game, SearchLimits.time(Duration.ofMillis(200)));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertNotNull(result.bestMove());
+    }
+
+    @Test
+    void stopsFromAnotherThread() throws Exception {
+        SearchLimits limits = SearchLimits.time(Duration.ofSeconds(30));
+        CompletableFuture<SearchResult> future =
+                CompletableFuture.supplyAsync(() -> searcher.search(new ChessGame(), limits));
+        Thread.sleep(200);
+        searcher.stop();
+        SearchResult result = future.get(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.depth() >= 1);
+    }
+
+    @Test
+    void clearStopForgetsALateStop() {
+        searcher.stop();
+        searcher.clearStop();
+        SearchResult result = searcher.search(new ChessGame(), SearchLimits.depth(4));
+        Assertions.assertEquals(4, result.depth());
+    }
+
+    @Test
+    void sharedTableSpeedsUpLaterSearches() {
+        TranspositionTable table = new TranspositionTable(4);
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult first = new Searcher(table).search(game, SearchLimits.depth(4));
+        SearchResult second = new Searcher(table).search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(first.bestMove(), second.bestMove());
+        Assertions.assertTrue(second.nodes() < first.nodes() / 2, first.nodes() + " then " + second.nodes());
+    }
+
+    @Test
+    void lazySmpSearchesWithHelpers() {
+        ExecutorService helperExecutor = Executors.newFixedThreadPool(3);
+        try {
+            Searcher parallel = new Searcher(new TranspositionTable(4), helperExecutor);
+            SearchResult mate = parallel.search(ChessGame.fromFen("7k/8/5K2/8/8/8/8/6R1 w - - 0 1"),
+                    SearchLimits.depth(5).withThreads(4));
+            Assertions.assertEquals(Searcher.MATE_SCORE - 3, mate.score());
+
+            ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+            SearchResult result = parallel.search(game, SearchLimits.depth(6).withThreads(4));
+            Assertions.assertEquals(move(1, 4, 5, 4), result.bestMove());
+            Assertions.assertEquals(6, result.depth());
+        } finally {
+            helperExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void playsQuickestTablebaseMate() throws IOException {
+        Tablebases tablebases = new Tablebases();
+        new TablebaseGenerator(tablebases).generate(Material.parse("KRK"));
+        Searcher tablebaseSearcher = new Searcher(new TranspositionTable(1), ForkJoinPool.commonPool(), tablebases);
+
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        int pliesToMate = Tablebases.pliesToMate(tablebases.probe(game));
+        SearchResult result = tablebaseSearcher.search(game, SearchLimits.depth(20));
+        Assertions.assertEquals(1, result.depth(), "every move from a tablebase position is scored exactly");
+        Assertions.assertEquals(Searcher.MATE_SCORE - pliesToMate, result.score());
+        Assertions.assertTrue(Searcher.isMateScore(result.score()));
+
+        game.applyMove(game.findLegalMove(result.bestMove()));
+        Assertions.assertEquals(pliesToMate - 1, Tablebases.pliesToMate(tablebases.probe(game)));
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
@@ -0,0 +1,91 @@
+package chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TranspositionTableTest {
+    /**
+     * Keys that differ only above bit 40 fall into the same bucket of any table smaller than a terabyte.
+     */
+    private static final long KEY_1 = 0x1234L;
+    private static final long KEY_2 = KEY_1 + (1L << 40);
+    private static final long KEY_3 = KEY_1 + (2L << 40);
+
+    @Test
+    void storesAndProbes() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY_1, 0x4_1234, -500, 7, TranspositionTable.LOWER_BOUND);
+        table.store(KEY_2 + 1, 0, Searcher.MATE_SCORE - 3, 0, TranspositionTable.EXACT);
+
+        long entry = table.probe(KEY_1);
+        Assertions.assertEquals(0x4_1234, TranspositionTable.move(entry));
+        Assertions.assertEquals(-500, TranspositionTable.score(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+
+        entry = table.probe(KEY_2 + 1);
+        Assertions.assertEquals(Searcher.MATE_SCORE - 3, TranspositionTable.score(entry));
+        Assertions.assertEquals(TranspositionTable.EXACT, TranspositionTable.bound(entry));
+
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY_3));
+        table.clear();
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY_1));
+    }
+
+    @Test
+    void keepsDeepestEntryOfCurrentSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY_1, 0, 1, 10, TranspositionTable.EXACT);
+        table.store(KEY_2, 0, 2, 3, TranspositionTable.EXACT);
+        table.store(KEY_3, 0, 3, 2, TranspositionTable.EXACT);
+        Assertions.assertEquals(1, TranspositionTable.score(table.probe(KEY_1)));
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY_2));
+        Assertions.assertEquals(3, TranspositionTable.score(table.probe(KEY_3)));
+
+        table.newSearch();
+        table.store(KEY_2, 0, 2, 1, TranspositionTable.EXACT);
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY_1));
+        Assertions.assertEquals(2, TranspositionTable.score(table.probe(KEY_2)));
+        Assertions.assertEquals(3, TranspositionTable.score(table.probe(KEY_3)));
+    }
+
+    @Test
+    void sizesTableFromBudget() {
+        // 16 bytes per entry, rounded down to a power of two
+        Assertions.assertEquals(1 << 16, new TranspositionTable(1).capacity());
+        Assertions.assertEquals(1 << 17, new TranspositionTable(3).capacity());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    void concurrentWritersNeverCorruptEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicInteger hits = new AtomicInteger();
+        CompletableFuture<?>[] writers = new CompletableFuture<?>[4];
+        for (int thread = 0; thread < writers.length; thread++) {
+            Random random = new Random(thread);
+            writers[thread] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 500_000; i++) {
+                    // Few enough keys that the threads keep overwriting each other's entries
+                    long key = random.nextInt(1 << 18) * 0x9E3779B97F4A7C15L;
+                    long entry = table.probe(key);
+                    if (entry != TranspositionTable.NO_ENTRY) {
+                        Assertions.assertEquals(scoreFor(key), TranspositionTable.score(entry));
+                        hits.incrementAndGet();
+                    }
+                    table.store(key, 0, scoreFor(key), random.nextInt(20), TranspositionTable.EXACT);
+                }
+            });
+        }
+        CompletableFuture.allOf(writers).join();
+        Assertions.assertTrue(hits.get() > 0);
+    }
+
+    private static int scoreFor(long key) {
+        return (int) (key >>> 48) - (1 << 15);
+    }
+}
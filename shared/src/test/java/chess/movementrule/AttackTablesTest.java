@@ -0,0 +1,54 @@
+package chess.movementrule;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class AttackTablesTest {
+    @Test
+    void sliderLookupsMatchRayWalk() {
+        Random random = new Random(240);
+        for (int trial = 0; trial < 2000; trial++) {
+            long occupancy = random.nextLong() & random.nextLong();
+            for (int square = 0; square < 64; square++) {
+                Assertions.assertEquals(walkRays(square, occupancy, true), AttackTables.rookAttacks(square, occupancy));
+                Assertions.assertEquals(walkRays(square, occupancy, false),
+                        AttackTables.bishopAttacks(square, occupancy));
+            }
+        }
+    }
+
+    @Test
+    void leaperAttacksStayOnBoard() {
+        Assertions.assertEquals(Bitboards.bit(Bitboards.square(2, 3)) | Bitboards.bit(Bitboards.square(3, 2)),
+                AttackTables.knightAttacks(Bitboards.square(1, 1)));
+        Assertions.assertEquals(3, Long.bitCount(AttackTables.kingAttacks(Bitboards.square(8, 8))));
+        Assertions.assertEquals(Bitboards.bit(Bitboards.square(3, 2)),
+                AttackTables.pawnAttacks(ChessGame.TeamColor.WHITE, Bitboards.square(2, 1)));
+        Assertions.assertEquals(Bitboards.bit(Bitboards.square(6, 7)),
+                AttackTables.pawnAttacks(ChessGame.TeamColor.BLACK, Bitboards.square(7, 8)));
+    }
+
+    private long walkRays(int square, long occupancy, boolean straight) {
+        int[][] directions = straight ? new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}
+                : new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                long bit = Bitboards.bit(Bitboards.square(row, col));
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,88 @@
+package chess.movementrule;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StaticExchangeTest {
+    private static final int P = StaticExchange.value(ChessPiece.PieceType.PAWN);
+    private static final int N = StaticExchange.value(ChessPiece.PieceType.KNIGHT);
+    private static final int B = StaticExchange.value(ChessPiece.PieceType.BISHOP);
+    private static final int R = StaticExchange.value(ChessPiece.PieceType.ROOK);
+    private static final int Q = StaticExchange.value(ChessPiece.PieceType.QUEEN);
+
+    @Test
+    void knownPositions() {
+        assertExchange(P, "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5", "undefended pawn");
+        assertExchange(P - N, "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5",
+                "knight for pawn, as neither side gains by going on");
+        assertExchange(Q, "4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1", "d1d5", "undefended queen");
+        assertExchange(N - P, "4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1", "e4d5", "pawn takes defended knight");
+        assertExchange(P - Q, "4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1", "d1d5", "queen takes defended pawn");
+        assertExchange(B - R, "4k3/3r4/8/3b4/8/8/8/3RK3 w - - 0 1", "d1d5", "rook takes defended bishop");
+    }
+
+    @Test
+    void xRaysJoinIn() {
+        assertExchange(P, "3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5", "the second rook backs up the first");
+        assertExchange(P - R, "3rk3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5", "but not against two");
+        assertExchange(P - B + P, "4k3/8/4p3/3p4/8/5B2/6Q1/4K3 w - - 0 1", "f3d5", "a queen behind a bishop");
+        assertExchange(P - R, "4k3/4q3/4r3/4p3/8/8/4R3/4RK2 w - - 0 1", "e2e5",
+                "the defender's queen backs up its rook");
+    }
+
+    @Test
+    void kingsOnlyCaptureUndefendedPieces() {
+        assertExchange(P - B, "8/8/8/3k4/4p3/8/2B5/5K2 w - - 0 1", "c2e4", "the king takes the bishop");
+        assertExchange(P, "8/8/8/3k4/4p3/8/2B5/4RK2 w - - 0 1", "c2e4", "the rook guards the bishop");
+        assertExchange(P, "4k3/8/8/8/8/8/3p4/4K3 w - - 0 1", "e1d2", "a king capture");
+    }
+
+    @Test
+    void specialMoves() {
+        assertExchange(P, "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6", "en passant");
+        assertExchange(Q - P, "4k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q", "promotion");
+        assertExchange(Q - P - Q, "r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q", "the new queen is taken");
+        assertExchange(R + Q - P, "r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7a8q", "promotion by capture");
+        assertExchange(-N, "4k3/8/8/8/8/2p5/8/3NK3 w - - 0 1", "d1b2", "a quiet move to an attacked square");
+        assertExchange(0, "4k3/8/8/8/8/8/8/3NK3 w - - 0 1", "d1c3", "a quiet move to a safe square");
+        assertExchange(R - P, "4k3/8/8/8/8/8/1B1p4/2R2K2 b - - 0 1", "d2c1q",
+                "black promotes by capture, and the queen is retaken");
+    }
+
+    @Test
+    void recapturesPromote() {
+        assertExchange(-(R + Q - P), "4k3/8/8/8/8/8/3p4/R4K2 w - - 0 1", "a1c1", "the pawn that retakes promotes");
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("4k3/8/8/8/8/8/8/3NK3 w - - 0 1").staticExchange(move("d1d3")));
+    }
+
+    private static void assertExchange(int expected, String fen, String move, String message) {
+        Assertions.assertEquals(expected, ChessGame.fromFen(fen).staticExchange(move(move)), fen + " " + message);
+    }
+
+    /**
+     * @param move a move in UCI notation, e.g. {@code e2e4} or {@code e7e8q}.
+     */
+    private static ChessMove move(String move) {
+        ChessPiece.PieceType promotion = move.length() > 4 ? switch (move.charAt(4)) {
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            default -> throw new IllegalArgumentException(move);
+        } : null;
+        return new ChessMove(position(move, 0), position(move, 2), promotion);
+    }
+
+    private static ChessPosition position(String move, int index) {
+        return new ChessPosition(move.charAt(index + 1) - '0', move.charAt(index) - 'a' + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+class ParallelPerftTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesSequentialCountBelowSplitDepth() {
+        ChessGame game = Fen.read(PerftTest.POSITION_6);
+        Assertions.assertEquals(Perft.perft(game, 2), ParallelPerft.perft(game, 2, pool));
+    }
+
+    @Test
+    void startPositionAboveSplitDepth() {
+        Assertions.assertEquals(197281, ParallelPerft.perft(new ChessGame(), 4, pool));
+    }
+
+    @Test
+    void kiwipeteAboveSplitDepth() {
+        Assertions.assertEquals(4085603, ParallelPerft.perft(Fen.read(PerftTest.KIWIPETE), 4, pool));
+    }
+
+    @Test
+    void divideMatchesSequentialDivide() {
+        ChessGame game = Fen.read(PerftTest.POSITION_6);
+        Map<ChessMove, Long> parallel = ParallelPerft.divide(game, 3, pool);
+        Assertions.assertEquals(Perft.divide(game, 3), parallel);
+        Assertions.assertEquals(Fen.read(PerftTest.POSITION_6).getBoard(), game.getBoard());
+    }
+}
@@ -0,0 +1,70 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Perft counts for the standard reference positions, from https://www.chessprogramming.org/Perft_Results
+ */
+class PerftTest {
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @Test
+    void startPosition() {
+        assertPerft(new ChessGame(), 20, 400, 8902, 197281);
+    }
+
+    @Test
+    void position6() {
+        assertPerft(Fen.read(POSITION_6), 46, 2079, 89890);
+    }
+
+    @Test
+    void kiwipete() {
+        assertPerft(Fen.read(KIWIPETE), 48, 2039, 97862);
+    }
+
+    @Test
+    void position3() {
+        assertPerft(Fen.read(POSITION_3), 14, 191, 2812, 43238);
+    }
+
+    @Test
+    void position4() {
+        assertPerft(Fen.read(POSITION_4), 6, 264, 9467);
+    }
+
+    @Test
+    void position5() {
+        assertPerft(Fen.read(POSITION_5), 44, 1486, 62379);
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = Fen.read(POSITION_6);
+        long total = Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(Perft.perft(game, 2), total);
+        Assertions.assertEquals(46, Perft.divide(game, 2).size());
+    }
+
+    @Test
+    void rejectsDepthsWithNoMoves() {
+        ChessGame game = Fen.read(POSITION_6);
+        String fen = game.toFen();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Perft.divide(game, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Perft.perft(game, -1));
+        Assertions.assertEquals(fen, game.toFen(), "the game is left as it was");
+    }
+
+    private void assertPerft(ChessGame game, long... expectedCounts) {
+        for (int depth = 1; depth <= expectedCounts.length; depth++) {
+            Assertions.assertEquals(expectedCounts[depth - 1], Perft.perft(game, depth), "perft(" + depth + ")");
+        }
+    }
+}
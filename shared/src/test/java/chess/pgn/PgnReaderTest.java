@@ -0,0 +1,158 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import chess.WinState;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class PgnReaderTest {
+    private static final String PGN = """
+            [Event "F/S Return Match"]
+            [Site "Belgrade, Serbia JUG"]
+            [Date "1992.11.04"]
+            [Round "29"]
+            [White "Fischer, Robert J."]
+            [Black "Spassky, Boris V."]
+            [Result "1/2-1/2"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 {This opening is called the Ruy Lopez.}
+            4. Ba4 Nf6 5. O-O Be7 6. Re1 b5 7. Bb3 d6 8. c3 O-O 9. h3 Nb8 10. d4 Nbd7
+            11. c4 c6 12. cxb5 axb5 13. Nc3 Bb7 14. Bg5 b4 15. Nb1 h6 16. Bh4 c5 17. dxe5
+            Nxe4 18. Bxe7 Qxe7 19. exd6 Qf6 20. Nbd2 Nxd6 21. Nc4 Nxc4 22. Bxc4 Nb6
+            23. Ne5 Rae8 24. Bxf7+ Rxf7 25. Nxf7 Rxe1+ 26. Qxe1 Kxf7 27. Qe3 Qg5 28. Qxg5
+            hxg5 29. b3 Ke6 30. a3 Kd6 31. axb4 cxb4 32. Ra5 Nd5 33. f3 Bc8 34. Kf2 Bf5
+            35. Ra7 g6 36. Ra6+ Kc5 37. Ke1 Nf4 38. g3 Nxh3 39. Kd2 Kb5 40. Rd6 Kc5 41. Ra6
+            Nf2 42. g4 Bd3 43. Re6 1/2-1/2
+
+            ; A second game, starting from a set-up position
+            [Event "Endgame"]
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+
+            1. e4 (1. e3 Kd7) 1... Kd7 $1 2. e5 *
+            """;
+
+    @Test
+    void readsGamesOneAtATime() throws InvalidMoveException {
+        PgnReader reader = new PgnReader(new StringReader(PGN));
+
+        PgnGame fischerSpassky = reader.next();
+        Assertions.assertEquals("Fischer, Robert J.", fischerSpassky.tags().get("White"));
+        Assertions.assertEquals("1/2-1/2", fischerSpassky.result());
+        Assertions.assertEquals(85, fischerSpassky.moves().size());
+        Assertions.assertEquals("8/8/4R1p1/2k3p1/1p4P1/1P1b1P2/3K1n2/8 b - - 2 43", fischerSpassky.replay().toFen());
+
+        PgnGame endgame = reader.next();
+        Assertions.assertEquals("*", endgame.result());
+        Assertions.assertEquals(3, endgame.moves().size());
+        Assertions.assertEquals("8/3k4/8/4P3/8/8/8/4K3 b - - 0 2", endgame.replay().toFen());
+        Assertions.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void replayGoesOnPastUnclaimedDraws() throws InvalidMoveException {
+        PgnReader reader = new PgnReader(new StringReader("""
+                1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1 Ng8 5. e4 *
+
+                1. f3 e5 2. g4 Qh4# 0-1
+                """));
+
+        ChessGame repeated = reader.next().replay();
+        Assertions.assertEquals(WinState.IN_PROGRESS, repeated.getWinState());
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 5", repeated.toFen());
+        repeated.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5)));
+        Assertions.assertEquals(WinState.BLACK_WIN, reader.next().replay().getWinState());
+    }
+
+    @Test
+    void writtenGamesReadBack() throws IOException, InvalidMoveException {
+        Random random = new Random(240);
+        List<PgnGame> games = new ArrayList<>();
+        for (int gameNum = 0; gameNum < 10; gameNum++) {
+            ChessGame game = gameNum % 2 == 0 ? new ChessGame() :
+                    ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
+            for (int ply = 0; ply < 120 && game.getWinState() == WinState.IN_PROGRESS; ply++) {
+                MoveList moves = new MoveList();
+                game.generateLegalMoves(moves);
+                game.makeMove(chess.Moves.toChessMove(moves.get(random.nextInt(moves.size()))));
+            }
+            games.add(PgnGame.of(game, Map.of("Event", "Game \"" + gameNum + "\"")));
+        }
+
+        StringWriter out = new StringWriter();
+        PgnWriter writer = new PgnWriter(out);
+        for (PgnGame game : games) {
+            writer.write(game);
+        }
+        for (String line : out.toString().split("\n")) {
+            Assertions.assertTrue(line.length() <= 80, line);
+        }
+
+        PgnReader reader = new PgnReader(new StringReader(out.toString()));
+        for (PgnGame expected : games) {
+            PgnGame read = reader.next();
+            Assertions.assertEquals(expected.moves(), read.moves());
+            Assertions.assertEquals(expected.result(), read.result());
+            Assertions.assertEquals(expected.tags().get("Event"), read.tags().get("Event"));
+            Assertions.assertEquals(expected.replay().toFen(), read.replay().toFen());
+        }
+        Assertions.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void moveHistorySurvivesJson() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new chess.ChessPosition(2, 5), new chess.ChessPosition(4, 5)));
+        game.makeMove(new ChessMove(new chess.ChessPosition(7, 5), new chess.ChessPosition(5, 5)));
+
+        Gson gson = new Gson();
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game.getMoveHistory(), read.getMoveHistory());
+        Assertions.assertEquals(game.toFen(), PgnGame.of(read, Map.of()).replay().toFen());
+    }
+
+    @Test
+    void reportsTheLineOfAnIllegalMove() {
+        PgnReader reader = new PgnReader(new StringReader("[Event \"?\"]\n\n1. e4 e5\n2. Ke3 *\n"));
+        PgnFormatException e = Assertions.assertThrows(PgnFormatException.class, reader::next);
+        Assertions.assertTrue(e.getMessage().startsWith("PGN line 4"), e.getMessage());
+    }
+
+    @Test
+    void skipsBadGamesAndReadsOn() {
+        String pgn = """
+                [Event "Illegal move"]
+
+                1. e4 e5 2. Ke3 Bc4 3. Nf3 Nc6 1-0
+
+                [Event "Stray brace"]
+
+                1. d4 } d5 0-1
+
+                [Event "Good"]
+
+                1. c4 e5 1/2-1/2
+                """;
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+        Assertions.assertThrows(PgnFormatException.class, reader::hasNext);
+        Assertions.assertThrows(PgnFormatException.class, reader::hasNext);
+        PgnGame good = reader.next();
+        Assertions.assertEquals("Good", good.tags().get("Event"));
+        Assertions.assertEquals(2, good.moves().size());
+        Assertions.assertEquals("1/2-1/2", good.result());
+        Assertions.assertFalse(reader.hasNext());
+    }
+}
@@ -0,0 +1,66 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class SanTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void everyLegalMoveHasItsOwnSanThatParsesBack() {
+        Random random = new Random(240);
+        for (int gameNum = 0; gameNum < 20; gameNum++) {
+            ChessGame game = gameNum % 2 == 0 ? new ChessGame() : ChessGame.fromFen(KIWIPETE);
+            for (int ply = 0; ply < 80; ply++) {
+                MoveList moves = new MoveList();
+                game.generateLegalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < moves.size(); i++) {
+                    String san = San.toSan(game, moves.get(i));
+                    Assertions.assertTrue(seen.add(san), san + " in " + game.toFen());
+                    Assertions.assertEquals(moves.get(i), San.parse(game, san), san + " in " + game.toFen());
+                }
+                game.applyMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void writesStandardNotation() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        Assertions.assertEquals("O-O", San.toSan(game, San.parse(game, "0-0")));
+        Assertions.assertEquals("O-O-O", San.toSan(game, San.parse(game, "O-O-O")));
+        Assertions.assertEquals("Nxf7", San.toSan(game, San.parse(game, "Ne5xf7")));
+        Assertions.assertEquals("dxe6", San.toSan(game, San.parse(game, "dxe6")));
+        Assertions.assertEquals("Qxf6", San.toSan(game, San.parse(game, "Qxf6!?")));
+
+        ChessGame promotion = ChessGame.fromFen("7k/1P6/8/8/8/8/8/R3K3 w - - 0 1");
+        Assertions.assertEquals("b8=Q+", San.toSan(promotion, San.parse(promotion, "b8Q")));
+        Assertions.assertEquals("Ra8+", San.toSan(promotion, San.parse(promotion, "Ra8")));
+
+        ChessGame rooks = ChessGame.fromFen("4k3/8/8/R7/8/8/8/R3K2R w - - 0 1");
+        Assertions.assertEquals("R1a3", San.toSan(rooks, San.parse(rooks, "R1a3")));
+        ChessGame knights = ChessGame.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        Assertions.assertEquals("Nbd2", San.toSan(knights, San.parse(knights, "Nbd2")));
+    }
+
+    @Test
+    void rejectsIllegalAndAmbiguousMoves() {
+        ChessGame game = new ChessGame();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(game, "e5"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(game, "O-O"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Zf3"));
+
+        ChessGame rooks = ChessGame.fromFen("4k3/8/8/R7/8/8/8/R3K2R w - - 0 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(rooks, "Ra3"));
+    }
+}
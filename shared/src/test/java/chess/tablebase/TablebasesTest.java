@@ -0,0 +1,222 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class TablebasesTest {
+    private static final Tablebases TABLEBASES = new Tablebases();
+
+    @BeforeAll
+    static void generateTables() throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(TABLEBASES);
+        generator.generate(Material.parse("KQK"));
+        generator.generate(Material.parse("KRK"));
+        generator.generate(Material.parse("KPK"));
+    }
+
+    @Test
+    void parsesMaterial() {
+        Material material = Material.parse("KPKR");
+        Assertions.assertEquals("KPKR", material.signature());
+        Assertions.assertEquals(4, material.pieceCount());
+        Assertions.assertTrue(material.hasPawns());
+        Assertions.assertFalse(material.isCanonical());
+        Assertions.assertEquals("KRKP", material.mirror().signature());
+        Assertions.assertEquals("KBNK", Material.parse("KNBK").signature());
+        Assertions.assertEquals(Material.parse("KQK"), Material.of(ChessGame.fromFen("8/8/8/8/8/8/1k6/KQ6 w - - 0 1")
+                .getBoard()));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Material.parse("KQ"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Material.parse("KXK"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Material.parse("KQRBKN"));
+    }
+
+    @Test
+    void generatesWhatTablesNeed() throws IOException {
+        List<Material> generated = new TablebaseGenerator(new Tablebases()).generate(Material.parse("KKP"));
+        Assertions.assertEquals(List.of("KQK", "KRK", "KBK", "KNK", "KPK"),
+                generated.stream().map(Material::signature).toList());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new TablebaseGenerator(TABLEBASES).generate(Material.parse("KPKP")));
+    }
+
+    @Test
+    void noneStaysEmpty() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TablebaseGenerator(Tablebases.NONE));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> Tablebases.NONE.add(Material.parse("KQK"), ByteBuffer.allocate(0)));
+        Assertions.assertEquals(0, Tablebases.NONE.maxPieces());
+    }
+
+    @Test
+    void longestMates() {
+        Assertions.assertEquals(19, longestWin(Material.parse("KQK")), "KQK is mate in 10 at most");
+        Assertions.assertEquals(31, longestWin(Material.parse("KRK")), "KRK is mate in 16 at most");
+    }
+
+    @Test
+    void probesKnownPositions() {
+        assertValue("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1", false, 0);
+        assertValue("k7/8/1K6/8/8/8/7Q/8 w - - 0 1", true, 1);
+        Assertions.assertTrue(Tablebases.isDraw(probe("k7/P7/1K6/8/8/8/8/8 b - - 0 1")), "stalemate");
+        Assertions.assertTrue(Tablebases.isDraw(probe("8/8/8/8/8/8/1q6/K6k w - - 0 1")), "queen en prise");
+    }
+
+    @Test
+    void probesEitherWayRound() {
+        Assertions.assertEquals(probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"), probe("8/8/8/8/8/1k6/1q6/K7 w - - 0 1"));
+        Assertions.assertEquals(probe("8/8/8/8/4k3/8/2P5/2K5 w - - 0 1"),
+                probe("2k5/2p5/8/4K3/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(probe("8/8/8/8/4k3/8/2P5/2K5 w - - 0 1"),
+                probe("8/8/8/8/3k4/8/5P2/5K2 w - - 0 1"), "the board mirrored left to right");
+    }
+
+    @Test
+    void refusesPositionsItDoesNotCover() {
+        Assertions.assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/8/8/8/1k6/KQR5 w - - 0 1"));
+        Assertions.assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/8/8/8/1k6/K1N5 w - - 0 1"));
+        Assertions.assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/8/8/8/8/K6k w - - 0 1"));
+        Assertions.assertEquals(Tablebases.NOT_FOUND, probe("4k3/8/8/8/8/8/8/4K2R w K - 0 1"));
+        Assertions.assertEquals(Tablebases.NOT_FOUND, Tablebases.NONE.probe(game("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1")));
+    }
+
+    /**
+     * Checks positions from each table against their moves as {@link ChessGame} generates them: a position must be
+     * won one ply after its quickest winning move, lost one ply after its slowest losing move when every move loses,
+     * and drawn otherwise.
+     */
+    @Test
+    void agreesWithMoveGeneration() {
+        for (String signature : List.of("KQK", "KRK", "KPK", "KBK")) {
+            Material material = Material.parse(signature);
+            Tablebases.Table table = TABLEBASES.find(material.key());
+            int[] squares = new int[material.pieceCount()];
+            int checked = 0;
+            for (int index = 0; index < material.tableSize(); index += 31) {
+                int value = table.value(index);
+                if (value == Tablebases.ILLEGAL) {
+                    continue;
+                }
+                boolean whiteToMove = material.decode(index, squares);
+                ChessGame game = game(fen(material, squares, whiteToMove));
+                Assertions.assertEquals(value, TABLEBASES.probe(game), game.toFen());
+                Assertions.assertEquals(expectedValue(game), value, game.toFen());
+                checked++;
+            }
+            Assertions.assertTrue(checked > 500, signature);
+        }
+    }
+
+    @Test
+    void writesAndMapsFiles(@TempDir Path directory) throws IOException {
+        new TablebaseGenerator(new Tablebases(), directory).generate(Material.parse("KRK"));
+        Path file = directory.resolve("KRK" + Tablebases.FILE_SUFFIX);
+        Assertions.assertEquals(Tablebases.HEADER_BYTES + Material.parse("KRK").tableSize(), Files.size(file));
+
+        Tablebases opened = Tablebases.open(directory);
+        Assertions.assertEquals(3, opened.maxPieces());
+        for (String fen : List.of("8/8/8/4k3/8/8/8/R3K3 w - - 0 1", "8/8/8/8/8/8/2r5/K1k5 b - - 0 1",
+                "8/8/8/8/8/8/2r5/K1k5 w - - 0 1")) {
+            ChessGame game = game(fen);
+            Assertions.assertEquals(TABLEBASES.probe(game), opened.probe(game), fen);
+        }
+
+        Files.write(file, new byte[]{1, 2, 3});
+        Assertions.assertThrows(IOException.class, () -> Tablebases.open(directory));
+        Assertions.assertEquals(0, Tablebases.open(directory.resolve("missing")).maxPieces());
+    }
+
+    private static int expectedValue(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            return game.isInCheck(game.getTeamTurn()) ? Tablebases.MATE_OFFSET : Tablebases.DRAW;
+        }
+        int quickestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean allLose = true;
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            int value = TABLEBASES.probe(game);
+            game.undoMove();
+            if (Tablebases.isLoss(value)) {
+                quickestWin = Math.min(quickestWin, Tablebases.pliesToMate(value) + 1);
+            } else if (Tablebases.isWin(value)) {
+                slowestLoss = Math.max(slowestLoss, Tablebases.pliesToMate(value) + 1);
+            } else {
+                allLose = false;
+            }
+        }
+        if (quickestWin != Integer.MAX_VALUE) {
+            return Tablebases.MATE_OFFSET + quickestWin;
+        }
+        return allLose ? Tablebases.MATE_OFFSET + slowestLoss : Tablebases.DRAW;
+    }
+
+    private static int longestWin(Material material) {
+        Tablebases.Table table = TABLEBASES.find(material.key());
+        int longest = 0;
+        for (int index = 0; index < material.tableSize(); index++) {
+            int value = table.value(index);
+            if (Tablebases.isWin(value)) {
+                longest = Math.max(longest, Tablebases.pliesToMate(value));
+            }
+        }
+        return longest;
+    }
+
+    private static void assertValue(String fen, boolean win, int pliesToMate) {
+        int value = probe(fen);
+        Assertions.assertEquals(win, Tablebases.isWin(value), fen);
+        Assertions.assertEquals(!win, Tablebases.isLoss(value), fen);
+        Assertions.assertEquals(pliesToMate, Tablebases.pliesToMate(value), fen);
+    }
+
+    private static int probe(String fen) {
+        return TABLEBASES.probe(game(fen));
+    }
+
+    private static ChessGame game(String fen) {
+        return ChessGame.fromFen(fen);
+    }
+
+    private static String fen(Material material, int[] squares, boolean whiteToMove) {
+        char[] board = new char[64];
+        for (int slot = 0; slot < squares.length; slot++) {
+            char letter = "KQBNRP".charAt(material.type(slot).ordinal());
+            board[squares[slot]] = material.color(slot) == ChessGame.TeamColor.WHITE ? letter :
+                    Character.toLowerCase(letter);
+        }
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                char piece = board[row * 8 + col];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(piece);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            fen.append(row > 0 ? "/" : "");
+        }
+        return fen.append(whiteToMove ? " w - - 0 1" : " b - - 0 1").toString();
+    }
+}